@@ -0,0 +1,135 @@
+package benchmarks;
+
+import analytics.TicketAnalytics;
+import analytics.TicketStats;
+import archive.ArchiveReader;
+import archive.TicketArchive;
+import archive.TicketColumns;
+import clock.ManualClock;
+import models.ParkingSlot;
+import models.SlotType;
+import models.Ticket;
+import models.Vehicle;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// The completed-ticket archive: appending a month of exits to the day files,
+// streaming the month back for a revenue total, and building the month's
+// TicketStats across days on fork-join against one day after another.
+// Bytes per ticket on disk are printed at setup.
+//
+//   java -jar target/benchmarks.jar ArchiveBenchmark
+//   java -jar target/benchmarks.jar ArchiveBenchmark -p rows=1000000 -p mix=EV_HEAVY
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ArchiveBenchmark {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final long MONTH_START = 1_700_000_000_000L / DAY_MILLIS * DAY_MILLIS;
+    private static final long MONTH_END = MONTH_START + 30 * DAY_MILLIS;
+
+    @State(Scope.Benchmark)
+    public static class MonthState {
+        @Param({"100000", "1000000"})
+        public int rows;
+
+        @Param({"ALL_REGULAR", "VIP_HEAVY", "EV_HEAVY"})
+        public VehicleMix mix;
+
+        Ticket[] tickets;
+        ParkingSlot[] slots;
+        Path scanDirectory;
+        Path appendDirectory;
+
+        // A month of exits spread evenly, each after a stay of up to a day.
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            Vehicle[] vehicles = mix.vehicles(rows, 42);
+            Random rand = new Random(7);
+            ManualClock clock = new ManualClock(MONTH_START);
+            ParkingSlot[] slotsByType = new ParkingSlot[SlotType.count()];
+            for (SlotType slotType : SlotType.values()) {
+                slotsByType[slotType.ordinal()] = new ParkingSlot(slotType.ordinal() + 1, slotType, 10, 20.0);
+            }
+            tickets = new Ticket[rows];
+            slots = new ParkingSlot[rows];
+            long step = (MONTH_END - MONTH_START) / rows;
+            for (int i = 0; i < rows; i++) {
+                Vehicle vehicle = vehicles[i];
+                SlotType slotType = vehicle.isVIP() ? SlotType.VIP
+                    : vehicle.isElectric() ? SlotType.EV_CHARGING : SlotType.REGULAR;
+                long exitMillis = MONTH_START + i * step;
+                long entryMillis = exitMillis - (long) (rand.nextDouble() * DAY_MILLIS);
+                Ticket ticket = new Ticket(i, vehicle, slotsByType[slotType.ordinal()], clock, entryMillis);
+                ticket.completePayment(2_000 + rand.nextInt(50_000), exitMillis, rand.nextInt(1000));
+                tickets[i] = ticket;
+                slots[i] = new ParkingSlot(1 + rand.nextInt(1000), slotType, 10, 20.0);
+            }
+
+            scanDirectory = Files.createTempDirectory("archive-scan");
+            appendDirectory = Files.createTempDirectory("archive-append");
+            try (TicketArchive archive = new TicketArchive(scanDirectory)) {
+                for (int i = 0; i < rows; i++) archive.append(tickets[i], slots[i]);
+                archive.flush();
+                System.out.printf("%n%d tickets, %.1f bytes per ticket%n", rows,
+                    (double) archive.getBytesWritten() / rows);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void clearAppends() throws IOException {
+            deleteFiles(appendDirectory);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            deleteFiles(scanDirectory);
+            deleteFiles(appendDirectory);
+            Files.delete(scanDirectory);
+            Files.delete(appendDirectory);
+        }
+
+        private static void deleteFiles(Path directory) throws IOException {
+            try (var files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public long appendMonth(MonthState state) throws IOException {
+        try (TicketArchive archive = new TicketArchive(state.appendDirectory)) {
+            for (int i = 0; i < state.rows; i++) archive.append(state.tickets[i], state.slots[i]);
+            archive.flush();
+            return archive.getBytesWritten();
+        }
+    }
+
+    @Benchmark
+    public long scanMonthRevenue(MonthState state) throws IOException {
+        long revenuePaise = 0;
+        try (ArchiveReader reader = TicketArchive.read(state.scanDirectory, MONTH_START, MONTH_END)) {
+            while (reader.next()) {
+                TicketColumns segment = reader.segment();
+                for (int row = 0; row < segment.size(); row++) revenuePaise += segment.getPricePaise(row);
+            }
+        }
+        return revenuePaise;
+    }
+
+    @Benchmark
+    public TicketStats monthStats(MonthState state) throws IOException {
+        return TicketAnalytics.scan(state.scanDirectory, MONTH_START, MONTH_END);
+    }
+
+    @Benchmark
+    public TicketStats monthStatsSequential(MonthState state) throws IOException {
+        return TicketAnalytics.scanSequential(state.scanDirectory, MONTH_START, MONTH_END);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import models.ParkingLot;
+import models.Vehicle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Park/exit turnover on one lot shared by eight gate threads, without a
+// journal, journaling without waiting for the disk, and with every exit and
+// park committed (group fsync). Each op is one exit plus one park, two
+// journal records.
+//
+//   java -jar target/benchmarks.jar JournalBenchmark
+//   java -jar target/benchmarks.jar JournalBenchmark -p durability=SYNC -t 32
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Threads(8)
+public class JournalBenchmark {
+    private static final int SLOTS = 10000;
+    private static final double RESIDENT_OCCUPANCY = 0.6;
+
+    public enum Durability { NONE, ASYNC, SYNC }
+
+    @State(Scope.Benchmark)
+    public static class JournaledLot {
+        @Param({"NONE", "ASYNC", "SYNC"})
+        public Durability durability;
+
+        ParkingLot lot;
+        Vehicle[] residents;
+        Path journalFile;
+        final AtomicInteger gates = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            lot = new ParkingLot(SLOTS);
+            if (durability != Durability.NONE) {
+                journalFile = Files.createTempFile("parking", ".journal");
+                Files.delete(journalFile);
+                lot.openJournal(journalFile, durability == Durability.SYNC);
+            }
+            residents = VehicleMix.ALL_REGULAR.vehicles((int) (SLOTS * RESIDENT_OCCUPANCY), 42);
+            for (Vehicle resident : residents) {
+                lot.parkVehicle(resident);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            lot.closeJournal();
+            if (journalFile != null) Files.deleteIfExists(journalFile);
+        }
+    }
+
+    // Each gate cycles through its own share of the residents, so no two
+    // threads ever exit the same plate.
+    @State(Scope.Thread)
+    public static class Gate {
+        int from;
+        int to;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(JournaledLot state, BenchmarkParams params) {
+            int gates = params.getThreads();
+            int gate = state.gates.getAndIncrement() % gates;
+            int share = state.residents.length / gates;
+            from = gate * share;
+            to = from + share;
+            cursor = from;
+        }
+
+        Vehicle next(JournaledLot state) {
+            Vehicle vehicle = state.residents[cursor];
+            cursor = cursor + 1 == to ? from : cursor + 1;
+            return vehicle;
+        }
+    }
+
+    @Benchmark
+    public void exitThenPark(JournaledLot state, Gate gate, Blackhole bh) {
+        Vehicle vehicle = gate.next(state);
+        bh.consume(state.lot.exitVehicle(vehicle.getLicensePlate()));
+        bh.consume(state.lot.parkVehicle(vehicle));
+    }
+}
@@ -0,0 +1,96 @@
+package benchmarks;
+
+import clock.CachedTickClock;
+import models.ParkingLot;
+import models.Vehicle;
+import network.ParkingNetwork;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Turnover through a ParkingNetwork from four gate threads at once, with
+// the same total slots split over 1, 4 or 16 lots. Each gate works its own
+// residents, spread over the lots, so the lots share no locks and the
+// network adds one plate-table lookup per park and per exit. Run with more
+// cores than gates to see the shards scale.
+//
+//   java -jar target/benchmarks.jar NetworkBenchmark
+//   java -jar target/benchmarks.jar NetworkBenchmark -p lots=16 -t 8
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Threads(4)
+public class NetworkBenchmark {
+    private static final int TOTAL_SLOTS = 64_000;
+    private static final int GATES = 16;
+    private static final double RESIDENT_OCCUPANCY = 0.6;
+
+    @State(Scope.Benchmark)
+    public static class NetworkState {
+        @Param({"1", "4", "16"})
+        public int lots;
+
+        @Param({"ALL_REGULAR", "VIP_HEAVY"})
+        public VehicleMix mix;
+
+        ParkingNetwork network;
+        Vehicle[] residents;
+        int[] preferredLots;
+        final AtomicInteger gates = new AtomicInteger();
+
+        // Lots 1..n on a line 1 km apart, each resident parked at its own lot.
+        @Setup(Level.Trial)
+        public void setUp() {
+            List<ParkingLot> shards = new ArrayList<>();
+            double[] xKm = new double[lots];
+            double[] yKm = new double[lots];
+            for (int i = 0; i < lots; i++) {
+                int slots = TOTAL_SLOTS / lots;
+                shards.add(new ParkingLot(i + 1, slots, slots, CachedTickClock.shared()));
+                xKm[i] = i;
+            }
+            network = new ParkingNetwork(shards, xKm, yKm);
+
+            residents = mix.vehicles((int) (TOTAL_SLOTS * RESIDENT_OCCUPANCY), 42);
+            preferredLots = new int[residents.length];
+            for (int i = 0; i < residents.length; i++) {
+                preferredLots[i] = 1 + i % lots;
+                network.parkVehicle(preferredLots[i], residents[i]);
+            }
+        }
+    }
+
+    // One of GATES disjoint stripes of residents per benchmark thread.
+    @State(Scope.Thread)
+    public static class GateState {
+        int first;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(NetworkState network) {
+            first = network.gates.getAndIncrement() % GATES;
+            cursor = first;
+        }
+
+        int next(NetworkState network) {
+            int resident = cursor;
+            cursor += GATES;
+            if (cursor >= network.residents.length) cursor = first;
+            return resident;
+        }
+    }
+
+    // A resident leaves and parks again at its own lot: one exit and one
+    // park through the network per call.
+    @Benchmark
+    public void exitThenPark(NetworkState network, GateState gate, Blackhole bh) {
+        int resident = gate.next(network);
+        Vehicle vehicle = network.residents[resident];
+        bh.consume(network.network.exitVehicle(vehicle.getLicensePlate()));
+        bh.consume(network.network.parkVehicle(network.preferredLots[resident], vehicle));
+    }
+}
@@ -0,0 +1,122 @@
+package benchmarks;
+
+import algorithms.pricing.DynamicPricing;
+import models.ParkingLot;
+import models.ParkingSlot;
+import models.Ticket;
+import models.Vehicle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+// Measured costs of the lot's hot paths, for regression tracking against the
+// claims printed by ParkingLot.displayComplexityAnalysis().
+//
+//   mvn -Pjmh package
+//   java -jar target/benchmarks.jar ParkingLotBenchmark
+//   java -jar target/benchmarks.jar ParkingLotBenchmark -bm sample   (latency percentiles)
+//   java -jar target/benchmarks.jar ParkingLotBenchmark -p slots=10000 -p mix=EV_HEAVY
+//
+// Each trial starts from a lot that is 60% full, which every mix can reach
+// without spilling into the waiting queue.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ParkingLotBenchmark {
+    private static final double RESIDENT_OCCUPANCY = 0.6;
+
+    @State(Scope.Thread)
+    public static class LotState {
+        @Param({"100", "10000", "1000000"})
+        public int slots;
+
+        @Param({"ALL_REGULAR", "VIP_HEAVY", "EV_HEAVY"})
+        public VehicleMix mix;
+
+        ParkingLot lot;
+        Vehicle[] residents;
+        Ticket[] tickets;
+        DynamicPricing pricing;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            lot = new ParkingLot(slots);
+            residents = mix.vehicles((int) (slots * RESIDENT_OCCUPANCY), 42);
+            tickets = new Ticket[residents.length];
+            for (int i = 0; i < residents.length; i++) {
+                tickets[i] = lot.parkVehicle(residents[i]).getTicket();
+            }
+            pricing = new DynamicPricing();
+        }
+
+        Vehicle nextResident() {
+            Vehicle vehicle = residents[cursor];
+            cursor = cursor + 1 == residents.length ? 0 : cursor + 1;
+            return vehicle;
+        }
+
+        Ticket nextTicket() {
+            Ticket ticket = tickets[cursor];
+            cursor = cursor + 1 == tickets.length ? 0 : cursor + 1;
+            return ticket;
+        }
+    }
+
+    // Opens gaps before every optimizeParking call by sending 10% of the
+    // residents home; the previous gap batch is parked again first so the lot
+    // stays at the same occupancy across invocations. Exits only propose
+    // moves, so optimizeParking makes one move per gap plus the follow-on
+    // moves. Per-invocation setup is coarse at this scale; read the
+    // 100-slot numbers with that in mind.
+    @State(Scope.Thread)
+    public static class FragmentedLotState extends LotState {
+        private static final int GAP_STRIDE = 10;
+        int gapOffset;
+        boolean gapsOpen;
+
+        @Setup(Level.Invocation)
+        public void openGaps() {
+            if (gapsOpen) {
+                for (int i = gapOffset; i < residents.length; i += GAP_STRIDE) {
+                    lot.parkVehicle(residents[i]);
+                }
+                gapOffset = (gapOffset + 1) % GAP_STRIDE;
+            }
+            for (int i = gapOffset; i < residents.length; i += GAP_STRIDE) {
+                lot.exitVehicle(residents[i].getLicensePlate());
+            }
+            gapsOpen = true;
+        }
+    }
+
+    // Steady-state turnover: a resident leaves and immediately parks again,
+    // so every call is one exit (pricing, heap insert) plus one park (heap
+    // poll, ticket). Park and exit have to be measured as a pair to keep the
+    // occupancy constant.
+    @Benchmark
+    public void exitThenPark(LotState state, Blackhole bh) {
+        Vehicle vehicle = state.nextResident();
+        bh.consume(state.lot.exitVehicle(vehicle.getLicensePlate()));
+        bh.consume(state.lot.parkVehicle(vehicle));
+    }
+
+    @Benchmark
+    public ParkingSlot findVehicle(LotState state) {
+        return state.lot.findVehicle(state.nextResident().getLicensePlate());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void optimizeParking(FragmentedLotState state) {
+        state.lot.optimizeParking();
+    }
+
+    @Benchmark
+    public long calculateDynamicPrice(LotState state) {
+        return state.pricing.calculateDynamicPrice(state.nextTicket(), state.lot);
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import models.ParkingLot;
+import models.Vehicle;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Time until a restarted lot can serve: mapping its snapshot against
+// building the slots and replaying the journal of everything that parked.
+// Both start from the same 60%-full lot, saved once per trial.
+//
+//   java -jar target/benchmarks.jar RestartBenchmark
+//   java -jar target/benchmarks.jar RestartBenchmark -p slots=1000000
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class RestartBenchmark {
+    private static final double RESIDENT_OCCUPANCY = 0.6;
+
+    @Param({"10000", "1000000"})
+    public int slots;
+
+    Path dir;
+    Path journalFile;
+    Path snapshotFile;
+    ParkingLot restored;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("parking-restart");
+        journalFile = dir.resolve("lot.journal");
+        snapshotFile = dir.resolve("lot.snapshot");
+        Path snapshotJournal = dir.resolve("snapshot.journal");
+
+        ParkingLot lot = new ParkingLot(slots);
+        lot.openJournal(journalFile, false);
+        for (Vehicle resident : VehicleMix.EV_HEAVY.vehicles((int) (slots * RESIDENT_OCCUPANCY), 42)) {
+            lot.parkVehicle(resident);
+        }
+        lot.closeJournal();
+        // The snapshot checkpoints its own journal, not the one rebuilt below.
+        Files.copy(journalFile, snapshotJournal);
+        lot.openJournal(snapshotJournal, false);
+        lot.writeSnapshot(snapshotFile);
+        lot.closeJournal();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(snapshotFile);
+        Files.deleteIfExists(dir.resolve("snapshot.journal"));
+        Files.delete(dir);
+    }
+
+    // Finishes the restored lot's background loading outside the timed
+    // call, so it does not run into the next one.
+    @TearDown(Level.Iteration)
+    public void finishLoading() {
+        if (restored != null) restored.loadSnapshot();
+        restored = null;
+    }
+
+    @Benchmark
+    public ParkingLot restoreSnapshot() throws IOException {
+        restored = ParkingLot.restore(snapshotFile);
+        return restored;
+    }
+
+    @Benchmark
+    public ParkingLot rebuildFromJournal() throws IOException {
+        ParkingLot lot = new ParkingLot(slots);
+        lot.openJournal(journalFile, false);
+        lot.closeJournal();
+        return lot;
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import algorithms.pricing.DynamicPricing;
+import algorithms.pricing.PricingTable;
+import clock.ManualClock;
+import models.ParkingLot;
+import models.ParkingSlot;
+import models.SlotType;
+import models.Ticket;
+import models.Vehicle;
+import org.openjdk.jmh.annotations.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// End-of-day repricing of a day's tickets: one DynamicPricing call per
+// Ticket against the columnar bulk loop, sequential and fork-join.
+//
+//   java -jar target/benchmarks.jar SettlementBenchmark
+//   java -jar target/benchmarks.jar SettlementBenchmark -p rows=1000000 -p mix=VIP_HEAVY
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SettlementBenchmark {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    @State(Scope.Benchmark)
+    public static class DayState {
+        @Param({"10000", "1000000"})
+        public int rows;
+
+        @Param({"ALL_REGULAR", "VIP_HEAVY", "EV_HEAVY"})
+        public VehicleMix mix;
+
+        ParkingLot lot;
+        DynamicPricing pricing;
+        PricingTable table;
+        Ticket[] tickets;
+        int[] minutes;
+        byte[] entryHours;
+        byte[] slotTypes;
+        byte[] vehicleFlags;
+        int[] occupied;
+        long[] prices;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ManualClock clock = new ManualClock(1_700_000_000_000L);
+            lot = new ParkingLot(1000, 16, clock);
+            pricing = new DynamicPricing();
+            table = lot.getPricingTable();
+
+            ParkingSlot[] slotsByType = new ParkingSlot[SlotType.count()];
+            for (SlotType slotType : SlotType.values()) {
+                slotsByType[slotType.ordinal()] = new ParkingSlot(slotType.ordinal() + 1, slotType, 10,
+                    lot.getRateCard().getSlotRatePaise(slotType) / 100.0);
+            }
+
+            Vehicle[] vehicles = mix.vehicles(rows, 42);
+            Random rand = new Random(7);
+            tickets = new Ticket[rows];
+            minutes = new int[rows];
+            entryHours = new byte[rows];
+            slotTypes = new byte[rows];
+            vehicleFlags = new byte[rows];
+            occupied = new int[rows];
+            prices = new long[rows];
+            long now = clock.millis();
+            for (int i = 0; i < rows; i++) {
+                Vehicle vehicle = vehicles[i];
+                SlotType slotType = vehicle.isVIP() ? SlotType.VIP
+                    : vehicle.isElectric() ? SlotType.EV_CHARGING : SlotType.REGULAR;
+                Ticket ticket = new Ticket(i, vehicle, slotsByType[slotType.ordinal()], clock,
+                    now - (long) (rand.nextDouble() * DAY_MILLIS));
+                tickets[i] = ticket;
+                minutes[i] = (int) ticket.getParkingDurationMinutes();
+                entryHours[i] = (byte) ticket.getEntryHour();
+                slotTypes[i] = (byte) slotType.ordinal();
+                vehicleFlags[i] = (byte) vehicle.getFlags();
+                // The per-ticket path prices at the lot's current occupancy.
+                occupied[i] = lot.getOccupiedCount();
+            }
+        }
+    }
+
+    @Benchmark
+    public long[] perTicket(DayState state) {
+        Ticket[] tickets = state.tickets;
+        long[] prices = state.prices;
+        for (int i = 0; i < tickets.length; i++) {
+            prices[i] = state.pricing.calculateDynamicPrice(tickets[i], state.lot);
+        }
+        return prices;
+    }
+
+    @Benchmark
+    public long[] bulk(DayState state) {
+        state.table.pricePaise(state.minutes, state.entryHours, state.slotTypes, state.vehicleFlags,
+            state.occupied, state.prices, 0, state.rows);
+        return state.prices;
+    }
+
+    @Benchmark
+    public long[] bulkParallel(DayState state) {
+        state.table.pricePaiseParallel(state.minutes, state.entryHours, state.slotTypes, state.vehicleFlags,
+            state.occupied, state.prices, 0, state.rows);
+        return state.prices;
+    }
+}
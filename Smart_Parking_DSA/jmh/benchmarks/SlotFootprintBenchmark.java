@@ -0,0 +1,98 @@
+package benchmarks;
+
+import algorithms.allocation.SegregatedSlotHeaps;
+import models.SlotStore;
+import models.SlotType;
+import models.Vehicle;
+import java.util.*;
+
+// Measures retained heap per slot for the old one-object-per-slot layout
+// against SlotStore + SegregatedSlotHeaps.
+//
+//   mvn -Pjmh package
+//   java -cp target/benchmarks.jar benchmarks.SlotFootprintBenchmark [slots]
+public class SlotFootprintBenchmark {
+
+    // Field-for-field copy of the pre-SlotStore ParkingSlot.
+    private static class LegacySlot {
+        private int slotId;
+        private String slotType;
+        private int distanceFromEntrance;
+        private boolean isOccupied;
+        private Vehicle parkedVehicle;
+        private double basePrice;
+
+        LegacySlot(int slotId, String slotType, int distanceFromEntrance, double basePrice) {
+            this.slotId = slotId;
+            this.slotType = slotType;
+            this.distanceFromEntrance = distanceFromEntrance;
+            this.basePrice = basePrice;
+        }
+    }
+
+    public static void main(String[] args) {
+        int slots = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("Slot footprint benchmark (" + slots + " slots)");
+
+        long before = usedHeap();
+        PriorityQueue<LegacySlot> legacy = buildLegacy(slots);
+        long legacyBytes = usedHeap() - before;
+        report("Object per slot + PriorityQueue", legacyBytes, slots);
+        keepAlive(legacy.size());
+        legacy = null;
+
+        before = usedHeap();
+        SlotStore store = new SlotStore(slots);
+        SegregatedSlotHeaps heaps = buildStore(store, slots);
+        long storeBytes = usedHeap() - before;
+        report("SlotStore + per-type int heaps", storeBytes, slots);
+        keepAlive(heaps.size());
+
+        System.out.printf("Reduction: %.1fx%n", (double) legacyBytes / Math.max(1, storeBytes));
+    }
+
+    private static PriorityQueue<LegacySlot> buildLegacy(int slots) {
+        PriorityQueue<LegacySlot> queue = new PriorityQueue<>(
+            Comparator.comparingInt((LegacySlot s) -> s.distanceFromEntrance));
+        Random rand = new Random(42);
+        for (int i = 0; i < slots; i++) {
+            String type = SlotType.fromOrdinal(i % SlotType.count()).name();
+            queue.add(new LegacySlot(i + 1, type, rand.nextInt(1000), 50.0));
+        }
+        return queue;
+    }
+
+    private static SegregatedSlotHeaps buildStore(SlotStore store, int slots) {
+        SegregatedSlotHeaps heaps = new SegregatedSlotHeaps(store);
+        Random rand = new Random(42);
+        for (int i = 0; i < slots; i++) {
+            SlotType type = SlotType.fromOrdinal(i % SlotType.count());
+            heaps.add(store.addSlot(i + 1, type, rand.nextInt(1000)));
+        }
+        return heaps;
+    }
+
+    private static void report(String label, long bytes, int slots) {
+        System.out.printf("  %-34s %,12d bytes  %6.1f bytes/slot%n", label, bytes, (double) bytes / slots);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static volatile int sink;
+
+    private static void keepAlive(int value) {
+        sink = value;
+    }
+}
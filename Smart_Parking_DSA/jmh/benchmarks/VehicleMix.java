@@ -0,0 +1,32 @@
+package benchmarks;
+
+import models.Vehicle;
+import models.VehicleType;
+import java.util.*;
+
+// Arrival mixes used by the JMH benchmarks. The heavy mixes make 60% of
+// arrivals VIP or electric, so the VIP and EV heaps are the ones under load.
+public enum VehicleMix {
+    ALL_REGULAR(0, 0),
+    VIP_HEAVY(60, 0),
+    EV_HEAVY(0, 60);
+
+    private final int vipPercent;
+    private final int evPercent;
+
+    VehicleMix(int vipPercent, int evPercent) {
+        this.vipPercent = vipPercent;
+        this.evPercent = evPercent;
+    }
+
+    public Vehicle[] vehicles(int count, long seed) {
+        Random rand = new Random(seed);
+        Vehicle[] vehicles = new Vehicle[count];
+        for (int i = 0; i < count; i++) {
+            boolean vip = rand.nextInt(100) < vipPercent;
+            boolean electric = rand.nextInt(100) < evPercent;
+            vehicles[i] = new Vehicle("BM" + i, VehicleType.CAR, vip, electric);
+        }
+        return vehicles;
+    }
+}
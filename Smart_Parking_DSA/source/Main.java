@@ -1,6 +1,19 @@
 // ============ ALL IMPORTS ============
 import algorithms.allocation.MinHeapAllocation;
 import algorithms.pricing.DynamicPricing;
+import algorithms.pricing.RateCardWatcher;
+import algorithms.queue.WaitTimeHistogram;
+import analytics.TicketStats;
+import clock.CachedTickClock;
+import events.ConsoleEventListener;
+import journal.EventJournal;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.Scanner;
 import models.*;
 // =====================================
@@ -13,13 +26,49 @@ public class Main {
         System.out.println("       SMART PARKING SYSTEM - INTERACTIVE      ");
         System.out.println("===============================================");
         
-        // STEP 1: Create Parking Lot
-        System.out.print("\nEnter total parking slots: ");
-        int totalSlots = scanner.nextInt();
-        scanner.nextLine();
-        
-        ParkingLot parkingLot = new ParkingLot(totalSlots);
+        // STEP 1: Create Parking Lot, or recover the one in the snapshot and
+        // journal. Journal file: java Main [rates.properties] [parking.journal];
+        // the snapshot sits beside it as parking.snapshot. A new lot takes the
+        // lot number in the third argument, 1 by default, so its ticket ids
+        // stay the same across restarts and apart from other lots'.
+        Path journalFile = Paths.get(args.length > 1 ? args[1] : "parking.journal");
+        Path snapshotFile = journalFile.resolveSibling(
+            journalFile.getFileName().toString().replaceFirst("\\.journal$", "") + ".snapshot");
+        ParkingLot parkingLot = restoreSnapshot(snapshotFile);
+        if (parkingLot == null) {
+            int totalSlots = journaledSlotCount(journalFile);
+            if (totalSlots > 0) {
+                System.out.println("\nRecovering " + totalSlots + "-slot lot from " + journalFile);
+            } else {
+                System.out.print("\nEnter total parking slots: ");
+                totalSlots = scanner.nextInt();
+                scanner.nextLine();
+            }
+            int lotNumber = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+            parkingLot = new ParkingLot(lotNumber, totalSlots, Math.max(16, totalSlots), CachedTickClock.shared());
+        }
+        parkingLot.setEventListener(new ConsoleEventListener());
         System.out.println("SUCCESS: Parking Lot '" + parkingLot.getLotId() + "' created!");
+        // A journal that cannot be replayed (damaged, for another lot, or
+        // checkpointed past a snapshot that did not load) holds state this
+        // lot lacks, and running on would overwrite both files at exit.
+        try {
+            parkingLot.openJournal(journalFile);
+            System.out.println("- Journal: " + journalFile);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("ERROR: Could not recover from journal, not starting: " + e.getMessage());
+            System.out.println("Move " + journalFile + " and " + snapshotFile + " aside to start an empty lot.");
+            scanner.close();
+            return;
+        }
+        // Paid tickets are kept in day files under ticket-archive beside the journal.
+        Path archiveDir = journalFile.resolveSibling("ticket-archive");
+        try {
+            parkingLot.openArchive(archiveDir);
+            System.out.println("- Ticket archive: " + archiveDir);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("WARNING: Could not open ticket archive, exits will not be kept: " + e.getMessage());
+        }
         
         // STEP 2: Initialize Algorithms
         MinHeapAllocation allocator = new MinHeapAllocation(parkingLot);
@@ -29,6 +78,17 @@ public class Main {
         System.out.println("- MinHeap Allocation: Ready");
         System.out.println("- Dynamic Pricing: Ready");
         
+        // Optional rate card file: java Main rates.properties
+        RateCardWatcher rateCards = null;
+        if (args.length > 0) {
+            try {
+                rateCards = parkingLot.watchRateCard(Paths.get(args[0]));
+                System.out.println("- Rate Card: watching " + args[0]);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("WARNING: Could not load rate card, using defaults: " + e.getMessage());
+            }
+        }
+        
         boolean exit = false;
         
         while (!exit) {
@@ -73,9 +133,52 @@ public class Main {
             }
         }
         
+        if (rateCards != null) rateCards.close();
+        try {
+            parkingLot.writeSnapshot(snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("WARNING: Could not write snapshot, the next start replays the journal: " + e.getMessage());
+        }
+        try {
+            parkingLot.closeJournal();
+        } catch (IOException e) {
+            System.out.println("WARNING: Journal was not fully written: " + e.getMessage());
+        }
+        try {
+            parkingLot.closeArchive();
+        } catch (IOException e) {
+            System.out.println("WARNING: Ticket archive was not fully written: " + e.getMessage());
+        }
         scanner.close();
     }
     
+    // The lot saved in the snapshot, or null if there is none to restore.
+    private static ParkingLot restoreSnapshot(Path snapshotFile) {
+        if (!Files.exists(snapshotFile)) return null;
+        try {
+            long start = System.nanoTime();
+            ParkingLot parkingLot = ParkingLot.restore(snapshotFile);
+            System.out.println("\nRestored " + parkingLot.getTotalSlots() + "-slot lot from " + snapshotFile +
+                             " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+            return parkingLot;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("WARNING: Ignoring unreadable snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    // Slot count of the lot an existing journal belongs to, 0 if there is
+    // no journal to recover from.
+    private static int journaledSlotCount(Path journalFile) {
+        try {
+            if (!Files.exists(journalFile) || Files.size(journalFile) == 0) return 0;
+            return EventJournal.slotCount(journalFile);
+        } catch (IOException e) {
+            System.out.println("WARNING: Ignoring unreadable journal: " + e.getMessage());
+            return 0;
+        }
+    }
+    
     // ========== 1. PARK VEHICLE ==========
     private static void parkVehicleInteractive(Scanner scanner, ParkingLot parkingLot, MinHeapAllocation allocator) {
         System.out.println("\n========== PARK VEHICLE ==========");
@@ -94,7 +197,7 @@ public class Main {
         scanner.nextLine();
         
         // Create vehicle
-        Vehicle vehicle = new Vehicle(license, type, isVIP, isElectric);
+        Vehicle vehicle = new Vehicle(license, VehicleType.fromString(type), isVIP, isElectric);
         System.out.println("\nVehicle created: " + vehicle);
         
         // Use MinHeap Allocation to find optimal slot
@@ -108,12 +211,17 @@ public class Main {
         
         // Actually park the vehicle using ParkingLot
         System.out.println("\n[SYSTEM] Attempting to park vehicle...");
-        Ticket ticket = parkingLot.parkVehicle(vehicle);
+        ParkResult result = parkingLot.parkVehicle(vehicle);
         
-        if (ticket != null) {
+        if (result.isParked()) {
+            Ticket ticket = result.getTicket();
             System.out.println("SUCCESS: Vehicle parked!");
             System.out.println("Ticket ID: " + ticket.getTicketId());
             System.out.println("Allocated Slot: #" + ticket.getSlot().getSlotId());
+        } else if (result.getStatus() == ParkStatus.QUEUED) {
+            System.out.println("Vehicle queued at position " + result.getQueuePosition());
+        } else if (result.getStatus() == ParkStatus.REJECTED_FULL) {
+            System.out.println("Parking and waiting queue are full - please try later.");
         }
     }
     
@@ -127,7 +235,11 @@ public class Main {
         // Check if vehicle exists
         ParkingSlot slot = parkingLot.findVehicle(license);
         if (slot == null) {
-            System.out.println("ERROR: Vehicle not found in parking!");
+            if (parkingLot.leaveQueue(license)) {
+                System.out.println("Vehicle removed from the waiting queue.");
+            } else {
+                System.out.println("ERROR: Vehicle not found in parking!");
+            }
             return;
         }
         
@@ -135,16 +247,16 @@ public class Main {
         System.out.println("Slot: #" + slot.getSlotId() + " [" + slot.getSlotType() + "]");
         System.out.println("Base Rate: Rs" + slot.getBasePrice() + "/hour");
         
-        // Note: Your ParkingLot.exitVehicle() automatically calculates price
-        // using its internal pricing logic
+        // Note: ParkingLot.exitVehicle() prices the stay from the lot's
+        // compiled dynamic pricing table
         
         System.out.print("\nConfirm exit? (yes/no): ");
         String confirm = scanner.nextLine();
         
         if (confirm.equalsIgnoreCase("yes")) {
-            double charged = parkingLot.exitVehicle(license);
+            long chargedPaise = parkingLot.exitVehicle(license);
             System.out.println("SUCCESS: Vehicle exited!");
-            System.out.println("Amount charged: Rs" + charged);
+            System.out.println("Amount charged: " + Money.format(chargedPaise));
         } else {
             System.out.println("Exit cancelled.");
         }
@@ -184,6 +296,36 @@ public class Main {
         
         System.out.println("\n[PRICING INFORMATION]");
         System.out.println(pricing.getCurrentPricingInfo(parkingLot));
+        
+        showTicketHistory(parkingLot);
+    }
+    
+    // The last 24 whole hours of exits, read back from the ticket archive.
+    private static void showTicketHistory(ParkingLot parkingLot) {
+        long hour = 60 * 60 * 1000L;
+        long to = (System.currentTimeMillis() / hour + 1) * hour;
+        TicketStats stats;
+        try {
+            stats = parkingLot.getTicketStats(to - 24 * hour, to);
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("\nTicket history unavailable: " + e.getMessage());
+            return;
+        }
+        
+        System.out.println("\n[LAST 24 HOURS]");
+        System.out.println("Exits: " + stats.getTotalExits() + ", revenue " + Money.format(stats.getTotalRevenuePaise()));
+        for (SlotType slotType : SlotType.values()) {
+            WaitTimeHistogram dwell = stats.getDwellTimes(slotType);
+            if (dwell.getCount() == 0) continue;
+            System.out.println("- " + slotType + ": " + Money.format(stats.getTotalRevenuePaise(slotType)) +
+                ", stay p50 " + dwell.percentile(50) / 60_000 + " min, p90 " + dwell.percentile(90) / 60_000 + " min");
+        }
+        int busiest = stats.getBusiestHour();
+        if (busiest >= 0) {
+            LocalTime start = Instant.ofEpochMilli(stats.getHourStartMillis(busiest)).atZone(ZoneId.systemDefault()).toLocalTime();
+            System.out.println("Busiest hour: " + start + " (" + Money.format(stats.getRevenuePaise(busiest)) +
+                ", peak " + stats.getPeakOccupied(busiest) + " occupied)");
+        }
     }
     
     // ========== 5. OPTIMIZE PARKING ==========
@@ -202,10 +344,10 @@ public class Main {
         System.out.println("Testing with different vehicle types...");
         
         Vehicle[] testVehicles = {
-            new Vehicle("TEST001", "CAR", false, false),
-            new Vehicle("TEST002", "CAR", true, false),
-            new Vehicle("TEST003", "CAR", false, true),
-            new Vehicle("TEST004", "CAR", true, true)
+            new Vehicle("TEST001", VehicleType.CAR, false, false),
+            new Vehicle("TEST002", VehicleType.CAR, true, false),
+            new Vehicle("TEST003", VehicleType.CAR, false, true),
+            new Vehicle("TEST004", VehicleType.CAR, true, true)
         };
         
         for (Vehicle vehicle : testVehicles) {
@@ -220,16 +362,16 @@ public class Main {
         System.out.println("Testing price calculation...");
         
         // Create a test ticket
-        Vehicle testVehicle = new Vehicle("PRICETEST", "CAR", true, false);
-        ParkingSlot testSlot = new ParkingSlot(99, "VIP", 10, 100.0);
-        Ticket testTicket = new Ticket(testVehicle, testSlot);
+        Vehicle testVehicle = new Vehicle("PRICETEST", VehicleType.CAR, true, false);
+        ParkingSlot testSlot = new ParkingSlot(99, SlotType.VIP, 10, 100.0);
+        Ticket testTicket = new Ticket(0L, testVehicle, testSlot, parkingLot.getClock());
         
         // Calculate price
-        double price = pricing.calculateDynamicPrice(testTicket, parkingLot);
+        long pricePaise = pricing.calculateDynamicPrice(testTicket, parkingLot);
         System.out.println("Test Calculation:");
         System.out.println("  Vehicle: VIP Car");
         System.out.println("  Slot: VIP (Rs100/hour)");
-        System.out.println("  Calculated Price: Rs" + price);
+        System.out.println("  Calculated Price: " + Money.format(pricePaise));
         
         System.out.println("\n3. ALGORITHM ANALYSIS:");
         parkingLot.displayComplexityAnalysis();
@@ -243,7 +385,7 @@ public class Main {
         System.out.println("Occupied Slots: " + parkingLot.getOccupiedCount());
         System.out.println("Available Slots: " + parkingLot.getAvailableSlotsCount());
         System.out.println("Waiting Queue: " + parkingLot.getWaitingQueueSize());
-        System.out.println("Total Revenue: Rs" + String.format("%.2f", parkingLot.getTotalRevenue()));
+        System.out.println("Total Revenue: " + Money.format(parkingLot.getTotalRevenuePaise()));
         System.out.println("Vehicles Served: " + parkingLot.getTotalVehiclesServed());
         System.out.println("Occupancy Rate: " + String.format("%.1f", parkingLot.getOccupancyRate() * 100) + "%");
         System.out.println("\nThank you for using Smart Parking System!");
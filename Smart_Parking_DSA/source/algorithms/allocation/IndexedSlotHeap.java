@@ -0,0 +1,182 @@
+package algorithms.allocation;
+
+import models.SlotStore;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+// Binary heap of slot indexes ordered by distance from entrance: nearest on
+// top by default, farthest on top when built with farthestFirst. Each slot's
+// array position is kept in the SlotStore, so remove/update/contains never
+// have to search the heap. A slot may sit in at most one heap at a time.
+public class IndexedSlotHeap {
+    private final SlotStore store;
+    private final boolean farthestFirst;
+    private int[] heap;
+    private int size;
+
+    public IndexedSlotHeap(SlotStore store) {
+        this(store, 16, false);
+    }
+
+    public IndexedSlotHeap(SlotStore store, int initialCapacity) {
+        this(store, initialCapacity, false);
+    }
+
+    public IndexedSlotHeap(SlotStore store, int initialCapacity, boolean farthestFirst) {
+        this.store = store;
+        this.farthestFirst = farthestFirst;
+        this.heap = new int[Math.max(1, initialCapacity)];
+        this.size = 0;
+    }
+
+    public void add(int slot) {
+        if (store.getHeapIndex(slot) >= 0) {
+            throw new IllegalStateException("Slot #" + store.getSlotId(slot) + " is already in a heap");
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = slot;
+        size++;
+        siftUp(size - 1);
+    }
+
+    // Adds slots[from, to) in one pass: they are appended as given and the
+    // array is then put in heap order bottom-up, O(n) instead of O(n log n)
+    // for adding them one at a time.
+    public void addAll(int[] slots, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (store.getHeapIndex(slots[i]) >= 0) {
+                throw new IllegalStateException("Slot #" + store.getSlotId(slots[i]) + " is already in a heap");
+            }
+        }
+        if (size + (to - from) > heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(heap.length * 2, size + (to - from)));
+        }
+        for (int i = from; i < to; i++) {
+            place(slots[i], size++);
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public int peek() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    public int poll() {
+        if (size == 0) return -1;
+        int top = heap[0];
+        removeAt(0);
+        return top;
+    }
+
+    public boolean remove(int slot) {
+        if (!contains(slot)) return false;
+        removeAt(store.getHeapIndex(slot));
+        return true;
+    }
+
+    public boolean contains(int slot) {
+        int index = store.getHeapIndex(slot);
+        return index >= 0 && index < size && heap[index] == slot;
+    }
+
+    // Restores heap order after the slot's distance has changed.
+    public void update(int slot) {
+        if (!contains(slot)) return;
+        siftUp(store.getHeapIndex(slot));
+        siftDown(store.getHeapIndex(slot));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(heap, size);
+    }
+
+    public int slotAt(int position) {
+        return heap[position];
+    }
+
+    // Visits every slot that is not past boundDistance in heap order: no
+    // farther than it in a nearest-first heap, no nearer in a farthest-first
+    // one. Subtrees whose root is past the bound are skipped whole, so the
+    // cost is proportional to the number of slots visited, not the heap size.
+    public void forEachUpTo(int boundDistance, IntConsumer action) {
+        if (size == 0) return;
+        // Preorder walk; at most one pending sibling per level is stacked.
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int position = stack[--top];
+            int slot = heap[position];
+            if (before(boundDistance, store.getDistance(slot))) continue;
+            action.accept(slot);
+            int child = 2 * position + 1;
+            if (child + 1 < size) stack[top++] = child + 1;
+            if (child < size) stack[top++] = child;
+        }
+    }
+
+    private void removeAt(int index) {
+        int removed = heap[index];
+        size--;
+
+        if (index != size) {
+            int last = heap[size];
+            heap[index] = last;
+            siftUp(index);
+            siftDown(store.getHeapIndex(last));
+        }
+
+        store.setHeapIndex(removed, -1);
+    }
+
+    // True if a distance-a slot belongs above a distance-b slot.
+    private boolean before(int a, int b) {
+        return farthestFirst ? a > b : a < b;
+    }
+
+    private void siftUp(int index) {
+        int slot = heap[index];
+        int distance = store.getDistance(slot);
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(distance, store.getDistance(heap[parent]))) break;
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(slot, index);
+    }
+
+    private void siftDown(int index) {
+        int slot = heap[index];
+        int distance = store.getDistance(slot);
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && before(store.getDistance(heap[right]), store.getDistance(heap[child]))) {
+                child = right;
+            }
+            if (!before(store.getDistance(heap[child]), distance)) break;
+            place(heap[child], index);
+            index = child;
+        }
+        place(slot, index);
+    }
+
+    private void place(int slot, int index) {
+        heap[index] = slot;
+        store.setHeapIndex(slot, index);
+    }
+}
@@ -2,32 +2,30 @@ package algorithms.allocation;
 
 import models.ParkingLot;
 import models.ParkingSlot;
+import models.SlotType;
 import models.Vehicle;
 import java.util.*;
 
 public class MinHeapAllocation {
     private ParkingLot parkingLot;
+    private final List<ParkingSlot> demoSlots;
     
     public MinHeapAllocation(ParkingLot parkingLot) {
         this.parkingLot = parkingLot;
+        this.demoSlots = createDemoSlots();
     }
     
     public ParkingSlot allocateSlot(Vehicle vehicle) {
-        System.out.println("\n[MIDDLEWARE] MinHeapAllocation called for: " + vehicle);
-        
         // Since your ParkingLot already has its own allocation logic,
         // this acts as a middleware that demonstrates the algorithm
         
-        // Create sample slots for demonstration
-        List<ParkingSlot> demoSlots = createDemoSlots();
-        
         // Filter suitable slots
         List<ParkingSlot> suitableSlots = demoSlots.stream()
             .filter(slot -> slot.isAvailableFor(vehicle))
             .toList();
         
         if (suitableSlots.isEmpty()) {
-            System.out.println("  No suitable slots found in demo");
+            parkingLot.getEventListener().onAllocationSuggested(vehicle, null);
             return null;
         }
         
@@ -39,20 +37,18 @@ public class MinHeapAllocation {
         minHeap.addAll(suitableSlots);
         ParkingSlot optimalSlot = minHeap.peek();
         
-        System.out.println("  Algorithm suggests: Slot #" + optimalSlot.getSlotId() + 
-                         " [" + optimalSlot.getSlotType() + "]");
-        System.out.println("  Distance: " + optimalSlot.getDistanceFromEntrance() + "m (nearest)");
+        parkingLot.getEventListener().onAllocationSuggested(vehicle, optimalSlot);
         
         return optimalSlot;
     }
     
     private List<ParkingSlot> createDemoSlots() {
         List<ParkingSlot> slots = new ArrayList<>();
-        slots.add(new ParkingSlot(1, "REGULAR", 10, 50.0));
-        slots.add(new ParkingSlot(2, "VIP", 5, 100.0));
-        slots.add(new ParkingSlot(3, "EV_CHARGING", 8, 80.0));
-        slots.add(new ParkingSlot(4, "REGULAR", 15, 50.0));
-        slots.add(new ParkingSlot(5, "REGULAR", 12, 50.0));
+        slots.add(new ParkingSlot(1, SlotType.REGULAR, 10, 50.0));
+        slots.add(new ParkingSlot(2, SlotType.VIP, 5, 100.0));
+        slots.add(new ParkingSlot(3, SlotType.EV_CHARGING, 8, 80.0));
+        slots.add(new ParkingSlot(4, SlotType.REGULAR, 15, 50.0));
+        slots.add(new ParkingSlot(5, SlotType.REGULAR, 12, 50.0));
         return slots;
     }
     
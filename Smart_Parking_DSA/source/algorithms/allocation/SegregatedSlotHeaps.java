@@ -0,0 +1,487 @@
+package algorithms.allocation;
+
+import models.ParkingSlot;
+import models.SlotStore;
+import models.SlotType;
+import models.Vehicle;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One min-heap of free slots per slot type, each guarded by its own lock.
+// Gate threads that need different slot types never contend; a vehicle that
+// may use several types locks those heaps in ordinal order so lock ordering
+// is global.
+//
+// Occupied slots are indexed too, farthest first, in one heap per (slot type,
+// occupant flag word) under the same per-type lock. A slot therefore moves
+// between its free and occupied heaps atomically, and both can share the
+// SlotStore's heap-position column.
+public class SegregatedSlotHeaps {
+    private static final int VEHICLE_CLASSES = 1 << Vehicle.FLAG_BITS;
+
+    private final SlotStore store;
+    private final IndexedSlotHeap[] heaps;
+    private final IndexedSlotHeap[] occupied;
+    private final ReentrantLock[] locks;
+    private final int allTypes;
+
+    public SegregatedSlotHeaps(SlotStore store) {
+        this.store = store;
+        this.heaps = new IndexedSlotHeap[SlotType.count()];
+        this.occupied = new IndexedSlotHeap[SlotType.count() * VEHICLE_CLASSES];
+        this.locks = new ReentrantLock[SlotType.count()];
+        this.allTypes = (1 << SlotType.count()) - 1;
+        for (int type = 0; type < heaps.length; type++) {
+            heaps[type] = new IndexedSlotHeap(store);
+            locks[type] = new ReentrantLock();
+        }
+        for (int i = 0; i < occupied.length; i++) {
+            occupied[i] = new IndexedSlotHeap(store, 16, true);
+        }
+    }
+
+    // Returns a freed slot to its free heap, dropping it from the occupied
+    // index. Idempotent, and skips slots that were claimed directly
+    // (parkVehicleAt) between being freed and being handed back here.
+    public void add(int slot) {
+        int type = store.getTypeOrdinal(slot);
+        locks[type].lock();
+        try {
+            if (store.isOccupied(slot)) return;
+            occupiedHeapOf(slot).remove(slot);
+            if (!heaps[type].contains(slot)) {
+                heaps[type].add(slot);
+            }
+        } finally {
+            locks[type].unlock();
+        }
+    }
+
+    // Files every slot of a store that was filled in bulk (a lot restored from
+    // a snapshot) under its free heap, or its occupied heap by the occupant
+    // flags already in the store. Slots are bucketed per heap in one counting
+    // pass and each heap is built in O(n). For a lot not yet taking traffic.
+    public void addAll() {
+        int buckets = heaps.length + occupied.length;
+        int[] start = new int[buckets + 1];
+        for (int slot = 0; slot < store.size(); slot++) {
+            start[bucketOf(slot) + 1]++;
+        }
+        for (int b = 0; b < buckets; b++) {
+            start[b + 1] += start[b];
+        }
+        int[] slots = new int[store.size()];
+        int[] next = Arrays.copyOf(start, buckets);
+        for (int slot = 0; slot < store.size(); slot++) {
+            slots[next[bucketOf(slot)]++] = slot;
+        }
+
+        lockAll(allTypes);
+        try {
+            for (int type = 0; type < heaps.length; type++) {
+                heaps[type].addAll(slots, start[type], start[type + 1]);
+            }
+            for (int i = 0; i < occupied.length; i++) {
+                occupied[i].addAll(slots, start[heaps.length + i], start[heaps.length + i + 1]);
+            }
+        } finally {
+            unlockAll(allTypes);
+        }
+    }
+
+    private int bucketOf(int slot) {
+        int type = store.getTypeOrdinal(slot);
+        if (!store.isOccupied(slot)) return type;
+        return heaps.length + type * VEHICLE_CLASSES + store.getOccupantFlags(slot);
+    }
+
+    // Files a slot under the occupied index once its vehicle is registered.
+    // The occupant is read back from the store, so a late call for a slot
+    // that has since been freed, or re-let to another vehicle, does no harm.
+    public void markOccupied(ParkingSlot slot) {
+        int index = slot.getIndex();
+        int type = store.getTypeOrdinal(index);
+        locks[type].lock();
+        try {
+            Vehicle occupant = store.getVehicle(index);
+            if (occupant == null || !store.isOccupied(index)) return;
+            heaps[type].remove(index);
+
+            IndexedSlotHeap current = occupiedHeapOf(index);
+            if (current.contains(index)) {
+                if (store.getOccupantFlags(index) == occupant.getFlags()) return;
+                current.remove(index);
+            }
+            store.setOccupantFlags(index, occupant.getFlags());
+            occupied[type * VEHICLE_CLASSES + occupant.getFlags()].add(index);
+        } finally {
+            locks[type].unlock();
+        }
+    }
+
+    public void add(ParkingSlot slot) {
+        add(slot.getIndex());
+    }
+
+    public boolean remove(ParkingSlot slot) {
+        int type = store.getTypeOrdinal(slot.getIndex());
+        locks[type].lock();
+        try {
+            return heaps[type].remove(slot.getIndex());
+        } finally {
+            locks[type].unlock();
+        }
+    }
+
+    public boolean contains(ParkingSlot slot) {
+        int type = store.getTypeOrdinal(slot.getIndex());
+        locks[type].lock();
+        try {
+            return heaps[type].contains(slot.getIndex());
+        } finally {
+            locks[type].unlock();
+        }
+    }
+
+    // Changes a slot's distance and restores order in whichever heap holds it.
+    public void updateDistance(ParkingSlot slot, int distanceFromEntrance) {
+        int type = store.getTypeOrdinal(slot.getIndex());
+        locks[type].lock();
+        try {
+            store.setDistance(slot.getIndex(), distanceFromEntrance);
+            heaps[type].update(slot.getIndex());
+            occupiedHeapOf(slot.getIndex()).update(slot.getIndex());
+        } finally {
+            locks[type].unlock();
+        }
+    }
+
+    // Only the heads of the heaps this vehicle may use are compared, so the
+    // cost no longer depends on how many ineligible slots sit closer to the gate.
+    public ParkingSlot peekBestFor(Vehicle vehicle) {
+        int eligible = SlotType.eligibleMask(vehicle.getFlags());
+        lockAll(eligible);
+        try {
+            int type = bestTypeFor(eligible, Integer.MAX_VALUE);
+            return type < 0 ? null : store.view(heaps[type].peek());
+        } finally {
+            unlockAll(eligible);
+        }
+    }
+
+    public ParkingSlot pollBestFor(Vehicle vehicle) {
+        return pollBestFor(vehicle, Integer.MAX_VALUE);
+    }
+
+    // Removes the nearest eligible slot only if it is strictly closer than
+    // maxDistanceExclusive; the check and the removal happen under one lock.
+    public ParkingSlot pollBestFor(Vehicle vehicle, int maxDistanceExclusive) {
+        int eligible = SlotType.eligibleMask(vehicle.getFlags());
+        lockAll(eligible);
+        try {
+            int type = bestTypeFor(eligible, maxDistanceExclusive);
+            return type < 0 ? null : store.view(heaps[type].poll());
+        } finally {
+            unlockAll(eligible);
+        }
+    }
+
+    // Batch form of pollBestFor: takes up to count slots for vehicles with the
+    // given flags under one lock acquisition, nearest first, writing slot
+    // indexes to out[offset..]. Returns how many slots were taken.
+    public int pollBestFor(int vehicleFlags, int count, int[] out, int offset) {
+        int eligible = SlotType.eligibleMask(vehicleFlags);
+        int taken = 0;
+        lockAll(eligible);
+        try {
+            while (taken < count) {
+                int type = bestTypeFor(eligible, Integer.MAX_VALUE);
+                if (type < 0) break;
+                out[offset + taken++] = heaps[type].poll();
+            }
+        } finally {
+            unlockAll(eligible);
+        }
+        return taken;
+    }
+
+    // The farthest occupied slot whose occupant may use freeSlot and would be
+    // closer there. Null if freeSlot has been taken meanwhile or nobody gains.
+    // Only the heads of the occupied heaps are compared, each under its own
+    // type's lock alone, so an exit never holds every stripe at once. The
+    // answer can be stale by the time it returns; the move rechecks it under
+    // the locks it takes.
+    public ParkingSlot peekFarthestMovableInto(ParkingSlot freeSlot) {
+        int index = freeSlot.getIndex();
+        SlotType freeType = store.getSlotType(index);
+        int bestDistance;
+        locks[freeType.ordinal()].lock();
+        try {
+            if (!heaps[freeType.ordinal()].contains(index)) return null;
+            bestDistance = store.getDistance(index);
+        } finally {
+            locks[freeType.ordinal()].unlock();
+        }
+
+        int best = -1;
+        for (int type = 0; type < heaps.length; type++) {
+            locks[type].lock();
+            try {
+                for (int flags = 0; flags < VEHICLE_CLASSES; flags++) {
+                    if (!freeType.accepts(flags)) continue;
+                    int head = occupied[type * VEHICLE_CLASSES + flags].peek();
+                    if (head >= 0 && store.getDistance(head) > bestDistance) {
+                        best = head;
+                        bestDistance = store.getDistance(head);
+                    }
+                }
+            } finally {
+                locks[type].unlock();
+            }
+        }
+        return best < 0 ? null : store.view(best);
+    }
+
+    // The farthest occupied slot whose occupant could move to a strictly
+    // closer free slot, or null when the layout is already optimal. If the
+    // head of an occupied heap cannot move, nothing beneath it can either.
+    // Heads are read one type's lock at a time, so like
+    // peekFarthestMovableInto the answer is a hint the move rechecks.
+    public ParkingSlot peekRelocationCandidate() {
+        return peekRelocationCandidate(Collections.emptySet());
+    }
+
+    // Same, passing over the occupied slots in skip, whose moves have
+    // already failed in this pass. Costs O(s log s) per heap for s skipped.
+    public ParkingSlot peekRelocationCandidate(Set<ParkingSlot> skip) {
+        int[] nearestFree = new int[heaps.length];
+        int[] occupiedHeads = new int[occupied.length];
+        for (int type = 0; type < heaps.length; type++) {
+            locks[type].lock();
+            try {
+                int head = heaps[type].peek();
+                nearestFree[type] = head < 0 ? Integer.MAX_VALUE : store.getDistance(head);
+                for (int flags = 0; flags < VEHICLE_CLASSES; flags++) {
+                    int i = type * VEHICLE_CLASSES + flags;
+                    occupiedHeads[i] = farthestNotIn(i, skip);
+                }
+            } finally {
+                locks[type].unlock();
+            }
+        }
+
+        int best = -1;
+        int bestDistance = -1;
+        for (int i = 0; i < occupied.length; i++) {
+            int head = occupiedHeads[i];
+            if (head < 0) continue;
+
+            int distance = store.getDistance(head);
+            if (distance <= bestDistance) continue;
+            int eligible = SlotType.eligibleMask(i % VEHICLE_CLASSES);
+            for (int type = 0; type < heaps.length; type++) {
+                if ((eligible & (1 << type)) != 0 && nearestFree[type] < distance) {
+                    best = head;
+                    bestDistance = distance;
+                    break;
+                }
+            }
+        }
+        return best < 0 ? null : store.view(best);
+    }
+
+    // Farthest slot of occupied[i] that is not in skip, or -1. The caller
+    // holds the lock of the heap's type.
+    private int farthestNotIn(int i, Set<ParkingSlot> skip) {
+        if (skip.isEmpty()) return occupied[i].peek();
+        for (ParkingSlot slot : firstK(occupied, i, i + 1, skip.size() + 1, true)) {
+            if (!skip.contains(slot)) return slot.getIndex();
+        }
+        return -1;
+    }
+
+    // Farthest occupied slot of the given type, or of any type when null.
+    public ParkingSlot peekFarthestOccupied(SlotType slotType) {
+        List<ParkingSlot> farthest = farthestOccupied(slotType, 1);
+        return farthest.isEmpty() ? null : farthest.get(0);
+    }
+
+    // Up to k occupied slots, farthest first, of the given type or of any
+    // type when null. O(k log k): only the heap entries that could be next
+    // are kept in the frontier.
+    public List<ParkingSlot> farthestOccupied(SlotType slotType, int k) {
+        int typeMask = slotType == null ? allTypes : slotType.bit();
+        lockAll(typeMask);
+        try {
+            return firstK(occupied, occupiedFrom(slotType), occupiedTo(slotType), k, true);
+        } finally {
+            unlockAll(typeMask);
+        }
+    }
+
+    // Up to k free slots of any type, nearest first. Each type's heap is read
+    // under its own lock and the per-type lists are merged afterwards.
+    public List<ParkingSlot> nearestFree(int k) {
+        List<ParkingSlot> nearest = new ArrayList<>();
+        for (int type = 0; type < heaps.length; type++) {
+            locks[type].lock();
+            try {
+                nearest.addAll(firstK(heaps, type, type + 1, k, false));
+            } finally {
+                locks[type].unlock();
+            }
+        }
+        nearest.sort(Comparator.comparingInt(ParkingSlot::getDistanceFromEntrance));
+        return nearest.size() > k ? new ArrayList<>(nearest.subList(0, k)) : nearest;
+    }
+
+    // Occupied slots with minDistance <= distance <= maxDistance, farthest
+    // first, of the given type or of any type when null. The heaps are
+    // farthest first, so only subtrees nearer than minDistance can be cut:
+    // the walk visits every occupied slot at or beyond minDistance, including
+    // those past maxDistance, which sit above the window and must be passed
+    // through to reach it. The cost is proportional to the window only when
+    // maxDistance is at or near the farthest occupied slot; a narrow band
+    // close to the entrance costs nearly a full scan of the heaps.
+    public List<ParkingSlot> occupiedWithin(SlotType slotType, int minDistance, int maxDistance) {
+        List<ParkingSlot> result = new ArrayList<>();
+        if (minDistance > maxDistance) return result;
+        int typeMask = slotType == null ? allTypes : slotType.bit();
+        lockAll(typeMask);
+        try {
+            for (int i = occupiedFrom(slotType); i < occupiedTo(slotType); i++) {
+                occupied[i].forEachUpTo(minDistance, slot -> {
+                    if (store.getDistance(slot) <= maxDistance) result.add(store.view(slot));
+                });
+            }
+        } finally {
+            unlockAll(typeMask);
+        }
+        result.sort(Comparator.comparingInt(ParkingSlot::getDistanceFromEntrance).reversed());
+        return result;
+    }
+
+    public int occupiedSize(SlotType slotType) {
+        int type = slotType.ordinal();
+        locks[type].lock();
+        try {
+            int size = 0;
+            for (int i = occupiedFrom(slotType); i < occupiedTo(slotType); i++) {
+                size += occupied[i].size();
+            }
+            return size;
+        } finally {
+            locks[type].unlock();
+        }
+    }
+
+    // k-way walk over several heaps that share one ordering. The frontier
+    // holds {distance, heap, position} for entries whose parents are taken.
+    private List<ParkingSlot> firstK(IndexedSlotHeap[] source, int from, int to, int k, boolean farthestFirst) {
+        List<ParkingSlot> result = new ArrayList<>(Math.max(0, Math.min(k, 64)));
+        Comparator<int[]> order = Comparator.comparingInt(entry -> entry[0]);
+        PriorityQueue<int[]> frontier = new PriorityQueue<>(farthestFirst ? order.reversed() : order);
+
+        for (int h = from; h < to; h++) {
+            if (!source[h].isEmpty()) {
+                frontier.add(new int[] {store.getDistance(source[h].slotAt(0)), h, 0});
+            }
+        }
+        while (result.size() < k && !frontier.isEmpty()) {
+            int[] entry = frontier.poll();
+            IndexedSlotHeap heap = source[entry[1]];
+            result.add(store.view(heap.slotAt(entry[2])));
+
+            int child = 2 * entry[2] + 1;
+            for (int c = child; c <= child + 1 && c < heap.size(); c++) {
+                frontier.add(new int[] {store.getDistance(heap.slotAt(c)), entry[1], c});
+            }
+        }
+        return result;
+    }
+
+    private int occupiedFrom(SlotType slotType) {
+        return slotType == null ? 0 : slotType.ordinal() * VEHICLE_CLASSES;
+    }
+
+    private int occupiedTo(SlotType slotType) {
+        return slotType == null ? occupied.length : (slotType.ordinal() + 1) * VEHICLE_CLASSES;
+    }
+
+    private IndexedSlotHeap occupiedHeapOf(int slot) {
+        return occupied[store.getTypeOrdinal(slot) * VEHICLE_CLASSES + store.getOccupantFlags(slot)];
+    }
+
+    private int bestTypeFor(int eligible, int maxDistanceExclusive) {
+        int best = -1;
+        int bestDistance = maxDistanceExclusive;
+
+        for (int type = 0; type < heaps.length; type++) {
+            if ((eligible & (1 << type)) == 0) continue;
+
+            int head = heaps[type].peek();
+            if (head < 0) continue;
+
+            // Ties on distance go to the higher type (VIP > EV_CHARGING > REGULAR),
+            // matching the ordering of the old single heap.
+            int distance = store.getDistance(head);
+            if (distance < bestDistance || (best >= 0 && distance == bestDistance)) {
+                best = type;
+                bestDistance = distance;
+            }
+        }
+
+        return best;
+    }
+
+    private void lockAll(int typeMask) {
+        for (int type = 0; type < locks.length; type++) {
+            if ((typeMask & (1 << type)) != 0) locks[type].lock();
+        }
+    }
+
+    private void unlockAll(int typeMask) {
+        for (int type = locks.length - 1; type >= 0; type--) {
+            if ((typeMask & (1 << type)) != 0) locks[type].unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (int type = 0; type < heaps.length; type++) {
+            size += size(SlotType.fromOrdinal(type));
+        }
+        return size;
+    }
+
+    public int size(SlotType slotType) {
+        int type = slotType.ordinal();
+        locks[type].lock();
+        try {
+            return heaps[type].size();
+        } finally {
+            locks[type].unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public List<ParkingSlot> toList() {
+        List<ParkingSlot> all = new ArrayList<>();
+        for (int type = 0; type < heaps.length; type++) {
+            int[] slots;
+            locks[type].lock();
+            try {
+                slots = heaps[type].toArray();
+            } finally {
+                locks[type].unlock();
+            }
+            for (int slot : slots) {
+                all.add(store.view(slot));
+            }
+        }
+        return all;
+    }
+}
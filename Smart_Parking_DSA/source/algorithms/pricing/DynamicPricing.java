@@ -3,27 +3,39 @@ package algorithms.pricing;
 import models.ParkingLot;
 import models.Ticket;
 import models.Vehicle;
-import java.time.LocalDateTime;
 
 public class DynamicPricing {
     
-    public double calculateDynamicPrice(Ticket ticket, ParkingLot parkingLot) {
+    // Charge in paise.
+    public long calculateDynamicPrice(Ticket ticket, ParkingLot parkingLot) {
         if (ticket == null || parkingLot == null) {
-            return 0.0;
+            return 0L;
         }
         
-        double basePrice = calculateBasePrice(ticket);
-        double timeMultiplier = calculateTimeMultiplier(ticket);
-        double occupancyMultiplier = calculateOccupancyMultiplier(parkingLot);
-        double vehicleMultiplier = calculateVehicleMultiplier(ticket.getVehicle());
-        
-        double finalPrice = basePrice * timeMultiplier * occupancyMultiplier * vehicleMultiplier;
-        
-        finalPrice = applyPriceCaps(finalPrice, ticket.getVehicle());
-        
-        return Math.round(finalPrice * 100.0) / 100.0;
+        // Same charge the lot bills on exit: one lookup in its compiled table.
+        return parkingLot.getPricingTable().pricePaise(ticket.getEntryHour(), parkingLot.getOccupiedCount(),
+            ticket.getVehicle().getFlags(), ticket.getSlot().getSlotType().ordinal(),
+            ticket.getParkingDurationMinutes());
     }
     
+    // Bulk counterpart for end-of-day settlement. Row i of the columns is one
+    // ticket: minutes parked, entry hour, SlotType ordinal, vehicle flags and
+    // lot occupancy at exit (Ticket.getOccupiedAtExit). Returns paise per row,
+    // priced on the fork-join pool when the batch is large.
+    public long[] calculateDynamicPrices(ParkingLot parkingLot, int[] minutes, byte[] entryHours,
+                                         byte[] slotTypes, byte[] vehicleFlags, int[] occupiedSlots) {
+        int rows = minutes.length;
+        if (entryHours.length != rows || slotTypes.length != rows
+                || vehicleFlags.length != rows || occupiedSlots.length != rows) {
+            throw new IllegalArgumentException("Pricing columns differ in length");
+        }
+        long[] prices = new long[rows];
+        parkingLot.getPricingTable().pricePaiseParallel(minutes, entryHours, slotTypes, vehicleFlags,
+            occupiedSlots, prices, 0, rows);
+        return prices;
+    }
+    
+    // Rupees, for the breakdown text only.
     private double calculateBasePrice(Ticket ticket) {
         double hours = ticket.getParkingDurationHours();
         double slotBaseRate = ticket.getSlot().getBasePrice();
@@ -35,82 +47,42 @@ public class DynamicPricing {
         return hours * slotBaseRate;
     }
     
-    private double calculateTimeMultiplier(Ticket ticket) {
-        LocalDateTime entryTime = ticket.getEntryTime();
-        int hour = entryTime.getHour();
-        
-        boolean isPeak = (hour >= 8 && hour < 10) || (hour >= 17 && hour < 20);
-        
-        return isPeak ? 1.5 : 1.0;
+    private double calculateTimeMultiplier(Ticket ticket, RateCard rateCard) {
+        return rateCard.timeMultiplier(ticket.getEntryHour());
     }
     
-    private double calculateOccupancyMultiplier(ParkingLot parkingLot) {
-        double occupancyRate = parkingLot.getOccupancyRate();
-        
-        if (occupancyRate > 0.8) {
-            return 1.4;
-        } else if (occupancyRate > 0.6) {
-            return 1.2;
-        } else if (occupancyRate < 0.3) {
-            return 0.8;
-        }
-        
-        return 1.0;
+    private double calculateOccupancyMultiplier(ParkingLot parkingLot, RateCard rateCard) {
+        return rateCard.occupancyMultiplier(parkingLot.getOccupancyRate());
     }
     
-    private double calculateVehicleMultiplier(Vehicle vehicle) {
-        double multiplier = 1.0;
-        
-        if (vehicle.isVIP()) {
-            multiplier *= 0.8;
-        }
-        
-        if (vehicle.isElectric()) {
-            multiplier *= 0.9;
-        }
-        
-        return multiplier;
-    }
-    
-    private double applyPriceCaps(double price, Vehicle vehicle) {
-        double minPrice = 20.0;
-        double maxDailyRate = 500.0;
-        
-        if (vehicle.isVIP()) {
-            maxDailyRate = 800.0;
-        }
-        
-        if (price < minPrice) {
-            return minPrice;
-        }
-        
-        if (price > maxDailyRate) {
-            return maxDailyRate;
-        }
-        
-        return price;
+    private double calculateVehicleMultiplier(Vehicle vehicle, RateCard rateCard) {
+        return rateCard.vehicleMultiplier(vehicle.getFlags());
     }
     
     public String getCurrentPricingInfo(ParkingLot parkingLot) {
+        RateCard rateCard = parkingLot.getRateCard();
         double occupancy = parkingLot.getOccupancyRate();
-        double multiplier = calculateOccupancyMultiplier(parkingLot);
+        double multiplier = calculateOccupancyMultiplier(parkingLot, rateCard);
         
         return String.format(
-            "[PRICING] Current Pricing Info:\n" +
+            "[PRICING] Current Pricing Info (rate card v%d):\n" +
             "   • Occupancy Rate: %.1f%%\n" +
             "   • Pricing Multiplier: %.2fx\n" +
-            "   • Peak Hours (8-10 AM, 5-8 PM): 1.5x\n" +
-            "   • VIP Discount: 20%%\n" +
-            "   • EV Discount: 10%%",
-            occupancy * 100, multiplier
+            "   • Peak Hours (%s): %.1fx\n" +
+            "   • VIP Discount: %.0f%%\n" +
+            "   • EV Discount: %.0f%%",
+            rateCard.getVersion(), occupancy * 100, multiplier,
+            rateCard.getPeakWindows(), rateCard.getPeakMultiplier(),
+            (1.0 - rateCard.getVipMultiplier()) * 100, (1.0 - rateCard.getEvMultiplier()) * 100
         );
     }
     
     public String getPriceBreakdown(Ticket ticket, ParkingLot parkingLot) {
+        RateCard rateCard = parkingLot.getRateCard();
         double base = calculateBasePrice(ticket);
-        double timeMult = calculateTimeMultiplier(ticket);
-        double occMult = calculateOccupancyMultiplier(parkingLot);
-        double vehicleMult = calculateVehicleMultiplier(ticket.getVehicle());
+        double timeMult = calculateTimeMultiplier(ticket, rateCard);
+        double occMult = calculateOccupancyMultiplier(parkingLot, rateCard);
+        double vehicleMult = calculateVehicleMultiplier(ticket.getVehicle(), rateCard);
         double finalPrice = base * timeMult * occMult * vehicleMult;
         
         return String.format(
@@ -123,7 +95,7 @@ public class DynamicPricing {
             ticket.getParkingDurationHours(), 
             ticket.getSlot().getBasePrice(),
             base,
-            calculateTimeMultiplier(ticket) > 1.0 ? "Peak" : "Off-Peak",
+            rateCard.isPeakHour(ticket.getEntryHour()) ? "Peak" : "Off-Peak",
             timeMult,
             parkingLot.getOccupancyRate() * 100,
             occMult,
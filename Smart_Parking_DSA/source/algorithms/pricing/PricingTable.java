@@ -0,0 +1,222 @@
+package algorithms.pricing;
+
+import models.SlotType;
+import models.Vehicle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// A rate card's multipliers folded into one per-minute rate per
+// (entry hour x occupancy band x vehicle flags x slot type). The table is
+// compiled once per rate card and lot size; pricing an exit is then one array
+// index, one multiply and the caps. The charge is the exact value of
+// minutes x rate x multipliers / 60, rounded half up to a whole paisa. The
+// double product is only a few ulps off that, which decides the rounding
+// unless it lands within a hair of half a paisa; those few stays are
+// recomputed in decimal.
+public final class PricingTable {
+    public static final int HOURS = 24;
+    public static final int OCCUPANCY_BANDS = 4;
+    private static final int FLAG_COMBOS = 1 << Vehicle.FLAG_BITS;
+
+    // Occupancy bands, in multiplier order.
+    public static final int BAND_LOW = 0;
+    public static final int BAND_NORMAL = 1;
+    public static final int BAND_BUSY = 2;
+    public static final int BAND_FULL = 3;
+
+    private static final long MINUTES_PER_HOUR = 60;
+    private static final double TIE_TOLERANCE = 1e-6;
+    // Rows per gather/arithmetic pass in bulk pricing; the scratch columns
+    // stay in L1.
+    private static final int BLOCK = 1024;
+    // Below this many rows a parallel batch is priced on the calling thread.
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private final RateCard rateCard;
+    private final long[] slotRatesPaise;
+    private final long minPricePaise;
+    private final int totalSlots;
+    // Paise per minute; fractional until multiplied by the stay.
+    private final double[] minuteRates;
+    private final long[] maxPricesPaise;
+    private final byte[] bandByOccupied;
+
+    public PricingTable(RateCard rateCard, int totalSlots) {
+        if (totalSlots < 1) {
+            throw new IllegalArgumentException("Lot must have at least one slot: " + totalSlots);
+        }
+        this.rateCard = rateCard;
+        this.slotRatesPaise = new long[SlotType.count()];
+        for (SlotType slotType : SlotType.values()) {
+            slotRatesPaise[slotType.ordinal()] = rateCard.getSlotRatePaise(slotType);
+        }
+        this.minPricePaise = rateCard.getMinPricePaise();
+        this.totalSlots = totalSlots;
+        this.minuteRates = new double[HOURS * OCCUPANCY_BANDS * FLAG_COMBOS * SlotType.count()];
+        this.maxPricesPaise = new long[FLAG_COMBOS];
+        this.bandByOccupied = new byte[totalSlots + 1];
+
+        for (int hour = 0; hour < HOURS; hour++) {
+            for (int band = 0; band < OCCUPANCY_BANDS; band++) {
+                for (int flags = 0; flags < FLAG_COMBOS; flags++) {
+                    for (int type = 0; type < SlotType.count(); type++) {
+                        minuteRates[index(hour, band, flags, type)] = slotRatesPaise[type]
+                            * rateCard.timeMultiplier(hour) * rateCard.bandMultiplier(band)
+                            * rateCard.vehicleMultiplier(flags) / MINUTES_PER_HOUR;
+                    }
+                }
+            }
+        }
+        for (int flags = 0; flags < FLAG_COMBOS; flags++) {
+            maxPricesPaise[flags] = rateCard.maxPricePaise(flags);
+        }
+        for (int occupied = 0; occupied <= totalSlots; occupied++) {
+            bandByOccupied[occupied] = (byte) rateCard.occupancyBand((double) occupied / totalSlots);
+        }
+    }
+
+    // Charge in paise for a stay of whole minutes. Stays under an hour bill
+    // as one.
+    public long pricePaise(int entryHour, int occupiedSlots, int vehicleFlags, int slotTypeOrdinal, long minutes) {
+        long billed = Math.max(minutes, MINUTES_PER_HOUR);
+        int band = bandByOccupied[Math.min(Math.max(occupiedSlots, 0), totalSlots)];
+        double paise = billed * minuteRates[index(entryHour, band, vehicleFlags, slotTypeOrdinal)];
+
+        // Caps are whole paise, so a value a few ulps either side clamps the same.
+        if (paise <= minPricePaise) return minPricePaise;
+        if (paise >= maxPricesPaise[vehicleFlags]) return maxPricesPaise[vehicleFlags];
+        if (nearHalfPaisa(paise)) return exactPaise(entryHour, band, vehicleFlags, slotTypeOrdinal, billed);
+        return Math.round(paise);
+    }
+
+    // Prices rows [from, to) of a columnar batch into out, with the same
+    // result per row as pricePaise. Each block runs in three passes: gather
+    // the per-minute rate and cap for every row (the only table reads), then
+    // clamp and round over plain primitive arrays, a branch-free loop the JIT
+    // can vectorize, then fix up the rare rows that sit on half a paisa.
+    public void pricePaise(int[] minutes, byte[] entryHours, byte[] slotTypes, byte[] vehicleFlags,
+                           int[] occupiedSlots, long[] out, int from, int to) {
+        if (from < 0 || to > out.length || from > to) {
+            throw new IndexOutOfBoundsException("Rows [" + from + ", " + to + ") out of range for " + out.length);
+        }
+        double[] paise = new double[Math.min(BLOCK, to - from)];
+        double[] caps = new double[paise.length];
+        double minPrice = minPricePaise;
+
+        for (int start = from; start < to; start += BLOCK) {
+            int rows = Math.min(BLOCK, to - start);
+
+            for (int i = 0; i < rows; i++) {
+                int row = start + i;
+                int band = bandByOccupied[Math.min(Math.max(occupiedSlots[row], 0), totalSlots)];
+                int flags = vehicleFlags[row];
+                paise[i] = Math.max(minutes[row], MINUTES_PER_HOUR)
+                    * minuteRates[index(entryHours[row], band, flags, slotTypes[row])];
+                caps[i] = maxPricesPaise[flags];
+            }
+
+            for (int i = 0; i < rows; i++) {
+                out[start + i] = Math.round(Math.min(Math.max(paise[i], minPrice), caps[i]));
+            }
+
+            for (int i = 0; i < rows; i++) {
+                double p = paise[i];
+                if (p > minPrice && p < caps[i] && nearHalfPaisa(p)) {
+                    int row = start + i;
+                    int band = bandByOccupied[Math.min(Math.max(occupiedSlots[row], 0), totalSlots)];
+                    out[row] = exactPaise(entryHours[row], band, vehicleFlags[row], slotTypes[row],
+                        Math.max(minutes[row], MINUTES_PER_HOUR));
+                }
+            }
+        }
+    }
+
+    // Fork-join variant for very large batches: the range is split in halves
+    // down to PARALLEL_THRESHOLD rows, each priced with the sequential loop.
+    public void pricePaiseParallel(int[] minutes, byte[] entryHours, byte[] slotTypes, byte[] vehicleFlags,
+                                   int[] occupiedSlots, long[] out, int from, int to) {
+        if (to - from <= PARALLEL_THRESHOLD) {
+            pricePaise(minutes, entryHours, slotTypes, vehicleFlags, occupiedSlots, out, from, to);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(
+            new PriceTask(this, minutes, entryHours, slotTypes, vehicleFlags, occupiedSlots, out, from, to));
+    }
+
+    // ForkJoinTask is Serializable, but these tasks never leave the pool.
+    @SuppressWarnings("serial")
+    private static final class PriceTask extends RecursiveAction {
+        private final PricingTable table;
+        private final int[] minutes;
+        private final byte[] entryHours;
+        private final byte[] slotTypes;
+        private final byte[] vehicleFlags;
+        private final int[] occupiedSlots;
+        private final long[] out;
+        private final int from;
+        private final int to;
+
+        PriceTask(PricingTable table, int[] minutes, byte[] entryHours, byte[] slotTypes, byte[] vehicleFlags,
+                  int[] occupiedSlots, long[] out, int from, int to) {
+            this.table = table;
+            this.minutes = minutes;
+            this.entryHours = entryHours;
+            this.slotTypes = slotTypes;
+            this.vehicleFlags = vehicleFlags;
+            this.occupiedSlots = occupiedSlots;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                table.pricePaise(minutes, entryHours, slotTypes, vehicleFlags, occupiedSlots, out, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PriceTask(table, minutes, entryHours, slotTypes, vehicleFlags, occupiedSlots, out, from, mid),
+                      new PriceTask(table, minutes, entryHours, slotTypes, vehicleFlags, occupiedSlots, out, mid, to));
+        }
+    }
+
+    // Decimal evaluation of the same charge. The multipliers are taken at
+    // their decimal value ("0.9", not the nearest double) so that ties round
+    // the way the rate card reads.
+    private long exactPaise(int entryHour, int band, int vehicleFlags, int slotTypeOrdinal, long minutes) {
+        BigDecimal paise = BigDecimal.valueOf(minutes)
+            .multiply(BigDecimal.valueOf(slotRatesPaise[slotTypeOrdinal]))
+            .multiply(BigDecimal.valueOf(rateCard.timeMultiplier(entryHour)))
+            .multiply(BigDecimal.valueOf(rateCard.bandMultiplier(band)));
+        if ((vehicleFlags & Vehicle.FLAG_VIP) != 0) {
+            paise = paise.multiply(BigDecimal.valueOf(rateCard.getVipMultiplier()));
+        }
+        if ((vehicleFlags & Vehicle.FLAG_ELECTRIC) != 0) {
+            paise = paise.multiply(BigDecimal.valueOf(rateCard.getEvMultiplier()));
+        }
+        return paise.divide(BigDecimal.valueOf(MINUTES_PER_HOUR), 0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public RateCard getRateCard() {
+        return rateCard;
+    }
+
+    public long getSlotRatePaise(SlotType slotType) {
+        return slotRatesPaise[slotType.ordinal()];
+    }
+
+    public int getTotalSlots() {
+        return totalSlots;
+    }
+
+    private static boolean nearHalfPaisa(double paise) {
+        return Math.abs(paise - Math.floor(paise) - 0.5) < TIE_TOLERANCE;
+    }
+
+    private static int index(int hour, int band, int flags, int type) {
+        return ((hour * OCCUPANCY_BANDS + band) * FLAG_COMBOS + flags) * SlotType.count() + type;
+    }
+}
@@ -0,0 +1,260 @@
+package algorithms.pricing;
+
+import models.Money;
+import models.SlotType;
+import models.Vehicle;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Immutable set of prices and pricing rules. A lot compiles each card into a
+// PricingTable and swaps the whole table at once, so a card is never seen
+// half-applied. Cards are ordered by version; a lot ignores a card that is
+// not newer than the one it runs.
+//
+// Amounts are held in paise. File format (java.util.Properties, amounts in
+// rupees with at most two decimals; version is required and at least 1, as
+// the default card is version 0, and every other key falls back to the
+// default card):
+//
+//   version=2
+//   rate.regular=50            rate.ev_charging=80        rate.vip=100
+//   peak.windows=8-10,17-20    peak.multiplier=1.5
+//   occupancy.thresholds=0.3,0.6,0.8
+//   occupancy.multipliers=0.8,1.0,1.2,1.4
+//   discount.vip=0.8           discount.ev=0.9
+//   price.min=20               price.max=500              price.max.vip=800
+public final class RateCard {
+    private final long version;
+    private final long[] slotRatesPaise;
+    private final boolean[] peakHours;
+    private final String peakWindows;
+    private final double peakMultiplier;
+    private final double[] occupancyThresholds;
+    private final double[] occupancyMultipliers;
+    private final double vipMultiplier;
+    private final double evMultiplier;
+    private final long minPricePaise;
+    private final long maxPricePaise;
+    private final long vipMaxPricePaise;
+
+    private static final RateCard DEFAULTS = new RateCard(0L,
+        new long[] {50_00, 80_00, 100_00}, "8-10,17-20", 1.5,
+        new double[] {0.3, 0.6, 0.8}, new double[] {0.8, 1.0, 1.2, 1.4},
+        0.8, 0.9, 20_00, 500_00, 800_00);
+
+    // slotRatesPaise is indexed by SlotType ordinal; occupancyThresholds are the
+    // low/busy/full cut-offs and occupancyMultipliers the four band factors.
+    public RateCard(long version, long[] slotRatesPaise, String peakWindows, double peakMultiplier,
+                    double[] occupancyThresholds, double[] occupancyMultipliers,
+                    double vipMultiplier, double evMultiplier,
+                    long minPricePaise, long maxPricePaise, long vipMaxPricePaise) {
+        if (slotRatesPaise.length != SlotType.count()) {
+            throw new IllegalArgumentException("Expected " + SlotType.count() + " slot rates, got " + slotRatesPaise.length);
+        }
+        if (occupancyThresholds.length != 3
+                || !(occupancyThresholds[0] <= occupancyThresholds[1] && occupancyThresholds[1] <= occupancyThresholds[2])) {
+            throw new IllegalArgumentException("Occupancy thresholds must be three ascending values: "
+                + Arrays.toString(occupancyThresholds));
+        }
+        if (occupancyMultipliers.length != PricingTable.OCCUPANCY_BANDS) {
+            throw new IllegalArgumentException("Expected " + PricingTable.OCCUPANCY_BANDS
+                + " occupancy multipliers, got " + occupancyMultipliers.length);
+        }
+        if (minPricePaise < 0 || maxPricePaise < minPricePaise || vipMaxPricePaise < minPricePaise) {
+            throw new IllegalArgumentException("Price caps out of order: min " + Money.format(minPricePaise)
+                + ", max " + Money.format(maxPricePaise) + ", VIP max " + Money.format(vipMaxPricePaise));
+        }
+        this.version = version;
+        this.slotRatesPaise = slotRatesPaise.clone();
+        this.peakHours = parsePeakWindows(peakWindows);
+        this.peakWindows = peakWindows.replace(" ", "");
+        this.peakMultiplier = peakMultiplier;
+        this.occupancyThresholds = occupancyThresholds.clone();
+        this.occupancyMultipliers = occupancyMultipliers.clone();
+        this.vipMultiplier = vipMultiplier;
+        this.evMultiplier = evMultiplier;
+        this.minPricePaise = minPricePaise;
+        this.maxPricePaise = maxPricePaise;
+        this.vipMaxPricePaise = vipMaxPricePaise;
+    }
+
+    public static RateCard defaults() {
+        return DEFAULTS;
+    }
+
+    // Reads a card from a properties file. An edit takes effect only when
+    // the file's version is raised.
+    public static RateCard load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        try {
+            return fromProperties(properties);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid rate card " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static RateCard fromProperties(Properties properties) {
+        RateCard d = DEFAULTS;
+        long[] slotRatesPaise = new long[SlotType.count()];
+        for (SlotType slotType : SlotType.values()) {
+            String key = "rate." + slotType.name().toLowerCase(Locale.ROOT);
+            slotRatesPaise[slotType.ordinal()] = amount(properties, key, d.slotRatesPaise[slotType.ordinal()]);
+        }
+        return new RateCard(
+            version(properties),
+            slotRatesPaise,
+            properties.getProperty("peak.windows", d.peakWindows).trim(),
+            number(properties, "peak.multiplier", d.peakMultiplier),
+            numbers(properties, "occupancy.thresholds", d.occupancyThresholds),
+            numbers(properties, "occupancy.multipliers", d.occupancyMultipliers),
+            number(properties, "discount.vip", d.vipMultiplier),
+            number(properties, "discount.ev", d.evMultiplier),
+            amount(properties, "price.min", d.minPricePaise),
+            amount(properties, "price.max", d.maxPricePaise),
+            amount(properties, "price.max.vip", d.vipMaxPricePaise));
+    }
+
+    public long getVersion() { return version; }
+    public long getSlotRatePaise(SlotType slotType) { return slotRatesPaise[slotType.ordinal()]; }
+    public String getPeakWindows() { return peakWindows; }
+    public double getPeakMultiplier() { return peakMultiplier; }
+    public double getVipMultiplier() { return vipMultiplier; }
+    public double getEvMultiplier() { return evMultiplier; }
+    public long getMinPricePaise() { return minPricePaise; }
+
+    public boolean isPeakHour(int hour) {
+        return peakHours[hour];
+    }
+
+    public double timeMultiplier(int hour) {
+        return peakHours[hour] ? peakMultiplier : 1.0;
+    }
+
+    public int occupancyBand(double occupancyRate) {
+        if (occupancyRate > occupancyThresholds[2]) return PricingTable.BAND_FULL;
+        if (occupancyRate > occupancyThresholds[1]) return PricingTable.BAND_BUSY;
+        if (occupancyRate < occupancyThresholds[0]) return PricingTable.BAND_LOW;
+        return PricingTable.BAND_NORMAL;
+    }
+
+    public double bandMultiplier(int band) {
+        return occupancyMultipliers[band];
+    }
+
+    public double occupancyMultiplier(double occupancyRate) {
+        return occupancyMultipliers[occupancyBand(occupancyRate)];
+    }
+
+    public double vehicleMultiplier(int vehicleFlags) {
+        double multiplier = 1.0;
+        if ((vehicleFlags & Vehicle.FLAG_VIP) != 0) multiplier *= vipMultiplier;
+        if ((vehicleFlags & Vehicle.FLAG_ELECTRIC) != 0) multiplier *= evMultiplier;
+        return multiplier;
+    }
+
+    public long maxPricePaise(int vehicleFlags) {
+        return (vehicleFlags & Vehicle.FLAG_VIP) != 0 ? vipMaxPricePaise : maxPricePaise;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner rates = new StringJoiner(", ", "[", "]");
+        for (long ratePaise : slotRatesPaise) {
+            rates.add(Money.format(ratePaise));
+        }
+        return "RateCard[v" + version + ", rates=" + rates + ", peak=" + peakWindows + " x" + peakMultiplier
+            + ", caps=" + Money.format(minPricePaise) + "/" + Money.format(maxPricePaise)
+            + "/" + Money.format(vipMaxPricePaise) + "]";
+    }
+
+    // "8-10,17-20" -> hours 8, 9, 17, 18, 19. Hours run 0-23 and the end is
+    // exclusive, so a window up to midnight ends at 0 ("20-0") and a window
+    // may wrap midnight ("22-2"). A window must not be empty ("8-8").
+    private static boolean[] parsePeakWindows(String windows) {
+        boolean[] peak = new boolean[PricingTable.HOURS];
+        for (String window : windows.split(",")) {
+            window = window.trim();
+            if (window.isEmpty()) continue;
+            String[] bounds = window.split("-");
+            if (bounds.length != 2) {
+                throw new IllegalArgumentException("Peak window must be start-end: " + window);
+            }
+            int start = hour(bounds[0]);
+            int length = hour(bounds[1]) - start;
+            if (length == 0) {
+                throw new IllegalArgumentException("Peak window is empty: " + window);
+            }
+            if (length < 0) length += PricingTable.HOURS;
+            for (int h = 0; h < length; h++) {
+                peak[(start + h) % PricingTable.HOURS] = true;
+            }
+        }
+        return peak;
+    }
+
+    private static int hour(String text) {
+        int hour = Integer.parseInt(text.trim());
+        if (hour < 0 || hour >= PricingTable.HOURS) {
+            throw new IllegalArgumentException("Hour out of range: " + hour);
+        }
+        return hour;
+    }
+
+    private static long version(Properties properties) {
+        String value = properties.getProperty("version");
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("version is required");
+        }
+        long version;
+        try {
+            version = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("version is not a whole number: " + value);
+        }
+        if (version < 1) {
+            throw new IllegalArgumentException("version must be at least 1: " + version);
+        }
+        return version;
+    }
+
+    private static long amount(Properties properties, String key, long fallbackPaise) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) return fallbackPaise;
+        try {
+            return Money.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(key + ": " + e.getMessage());
+        }
+    }
+
+    private static double number(Properties properties, String key, double fallback) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) return fallback;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not a number: " + value);
+        }
+    }
+
+    private static double[] numbers(Properties properties, String key, double[] fallback) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) return fallback;
+        String[] parts = value.split(",");
+        double[] result = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                result[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + " is not a list of numbers: " + value);
+            }
+        }
+        return result;
+    }
+}
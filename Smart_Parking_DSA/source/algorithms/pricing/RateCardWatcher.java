@@ -0,0 +1,87 @@
+package algorithms.pricing;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Reloads a rate card file whenever it is created or modified and hands the
+// new card to a consumer, on a daemon thread of its own. Parsing and table
+// compilation happen here, off the gate threads. A file that fails to load
+// is handed to the error consumer and skipped; the card already in use stays
+// in force.
+public class RateCardWatcher implements AutoCloseable {
+    // Editors often save in more than one write; wait for the burst to settle.
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Path file;
+    private final Consumer<RateCard> onLoad;
+    private final Consumer<Exception> onError;
+    private final WatchService watchService;
+    private final Thread watcher;
+    private volatile boolean running = true;
+
+    public RateCardWatcher(Path file, Consumer<RateCard> onLoad, Consumer<Exception> onError) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.onLoad = onLoad;
+        this.onError = onError;
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcher = new Thread(this::watch, "rate-card-watcher");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Closing only wakes the watcher thread; nothing left to release.
+        }
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                WatchKey key = watchService.take();
+                boolean changed = touchesFile(key);
+                // Fold any follow-up events from the same save into this reload.
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= touchesFile(key);
+                }
+                if (changed) reload();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private boolean touchesFile(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (context instanceof Path && file.getFileName().equals(context))) {
+                touched = true;
+            }
+        }
+        key.reset();
+        return touched;
+    }
+
+    private void reload() {
+        if (!Files.exists(file)) return;
+        try {
+            onLoad.accept(RateCard.load(file));
+        } catch (IOException | RuntimeException e) {
+            onError.accept(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package algorithms.queue;
+
+import java.util.*;
+
+// Log-linear histogram of wait times in milliseconds: values below 16 are
+// exact, larger ones fall into 8 sub-buckets per power of two, so any
+// reported percentile is within 12.5% of the true value. Fixed size, no
+// allocation per sample. Not thread-safe; WaitingQueue records under its lock
+// and hands out copies.
+public class WaitTimeHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_LIMIT = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = EXACT_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long max;
+
+    public WaitTimeHistogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    public void record(long millis) {
+        if (millis < 0) millis = 0;
+        counts[bucketOf(millis)]++;
+        count++;
+        sum += millis;
+        max = Math.max(max, millis);
+    }
+
+    public void merge(WaitTimeHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public WaitTimeHistogram copy() {
+        WaitTimeHistogram copy = new WaitTimeHistogram();
+        copy.merge(this);
+        return copy;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100], capped
+    // at the largest value recorded. 0 when nothing has been recorded.
+    public long percentile(double percent) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBoundOf(i), max);
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < EXACT_LIMIT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < EXACT_LIMIT) return bucket;
+        int exponent = (bucket - EXACT_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int sub = (bucket - EXACT_LIMIT) % SUB_BUCKETS;
+        long upper = ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WaitTimes[count=%d, p50=%dms, p90=%dms, p99=%dms, max=%dms]",
+            count, percentile(50), percentile(90), percentile(99), max);
+    }
+}
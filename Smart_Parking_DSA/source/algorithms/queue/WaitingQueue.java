@@ -0,0 +1,314 @@
+package algorithms.queue;
+
+import clock.EpochClock;
+import journal.EventJournal;
+import models.SlotType;
+import models.Vehicle;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Vehicles waiting for a slot, one FIFO per eligibility class (vehicle flag
+// word). A freed slot is matched against the oldest waiter that may use its
+// type by comparing the heads of the eligible FIFOs only, so a waiting EV
+// never holds up regular cars queued behind it. Every operation is a few
+// steps under one lock.
+//
+// The queue holds at most capacity vehicles. A polled waiter keeps its place
+// counted until it is parked or discarded, so putting it back can never
+// push the queue past capacity. Each FIFO is an array ring; a plate that
+// gives up is found through byPlate and its cell is nulled out, and the
+// tombstone is skipped when it reaches the head.
+//
+// With a journal set, every change to who is waiting is journaled under the
+// lock, in the order it happened: a QUEUE record when a vehicle joins or is
+// put back, a LEFT_QUEUE record when it is polled or gives up.
+public class WaitingQueue {
+    public static final int FULL = -1;
+    public static final int ALREADY_WAITING = -2;
+    private static final int VEHICLE_CLASSES = 1 << Vehicle.FLAG_BITS;
+
+    private final int capacity;
+    private final Ring[] rings;
+    private final Map<String, Waiter> byPlate;
+    private final WaitTimeHistogram waitTimes;
+    private final ReentrantLock lock;
+    private final EpochClock clock;
+    private volatile EventJournal journal;
+    private long nextSequence;
+    private int size;
+
+    public static final class Waiter {
+        private final Vehicle vehicle;
+        private final long sequence;
+        private final long enqueuedAtMillis;
+        private long position;
+
+        private Waiter(Vehicle vehicle, long sequence, long enqueuedAtMillis) {
+            this.vehicle = vehicle;
+            this.sequence = sequence;
+            this.enqueuedAtMillis = enqueuedAtMillis;
+        }
+
+        public Vehicle getVehicle() {
+            return vehicle;
+        }
+
+        public long getEnqueuedAtMillis() {
+            return enqueuedAtMillis;
+        }
+    }
+
+    // Ring addressed by ever-increasing logical positions; cell = position & mask.
+    private static final class Ring {
+        private Waiter[] cells = new Waiter[16];
+        private long head;
+        private long tail;
+        private int live;
+
+        void addLast(Waiter waiter) {
+            ensureRoom();
+            waiter.position = tail++;
+            cells[cell(waiter.position)] = waiter;
+            live++;
+        }
+
+        void addFirst(Waiter waiter) {
+            ensureRoom();
+            waiter.position = --head;
+            cells[cell(waiter.position)] = waiter;
+            live++;
+        }
+
+        Waiter peekFirst() {
+            while (head < tail) {
+                Waiter waiter = cells[cell(head)];
+                if (waiter != null) return waiter;
+                head++;
+            }
+            return null;
+        }
+
+        Waiter pollFirst() {
+            Waiter waiter = peekFirst();
+            if (waiter != null) {
+                cells[cell(head++)] = null;
+                live--;
+            }
+            return waiter;
+        }
+
+        void remove(Waiter waiter) {
+            cells[cell(waiter.position)] = null;
+            live--;
+        }
+
+        // Full ring: squeeze out tombstones if they are at least half of it,
+        // otherwise double. Either way positions are renumbered from zero.
+        private void ensureRoom() {
+            if (tail - head < cells.length) return;
+            Waiter[] next = new Waiter[live < cells.length / 2 ? cells.length : cells.length * 2];
+            int count = 0;
+            for (long p = head; p < tail; p++) {
+                Waiter waiter = cells[cell(p)];
+                if (waiter == null) continue;
+                waiter.position = count;
+                next[count++] = waiter;
+            }
+            cells = next;
+            head = 0;
+            tail = count;
+        }
+
+        private int cell(long position) {
+            return (int) position & (cells.length - 1);
+        }
+    }
+
+    public WaitingQueue(int capacity) {
+        this(capacity, EpochClock.system());
+    }
+
+    public WaitingQueue(int capacity, EpochClock clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Waiting queue capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.clock = clock;
+        this.rings = new Ring[VEHICLE_CLASSES];
+        for (int c = 0; c < VEHICLE_CLASSES; c++) {
+            rings[c] = new Ring();
+        }
+        this.byPlate = new HashMap<>();
+        this.waitTimes = new WaitTimeHistogram();
+        this.lock = new ReentrantLock();
+    }
+
+    // Returns the vehicle's position counted over the whole queue, FULL when
+    // the queue is at capacity, or ALREADY_WAITING for a plate in the queue.
+    public int add(Vehicle vehicle) {
+        return add(vehicle, clock.millis());
+    }
+
+    // As add(vehicle), with the time the wait started given by the caller
+    // (journal replay, or a lot that records the same instant elsewhere).
+    public int add(Vehicle vehicle, long enqueuedAtMillis) {
+        lock.lock();
+        try {
+            if (byPlate.containsKey(vehicle.getLicensePlate())) return ALREADY_WAITING;
+            if (size == capacity) return FULL;
+
+            Waiter waiter = new Waiter(vehicle, nextSequence++, enqueuedAtMillis);
+            rings[vehicle.getFlags()].addLast(waiter);
+            byPlate.put(vehicle.getLicensePlate(), waiter);
+            EventJournal journal = this.journal;
+            if (journal != null) journal.queue(vehicle, enqueuedAtMillis);
+            return ++size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Removes the longest-waiting vehicle that may park in a slotType slot.
+    // The caller must follow up with recordParked, discard or restore.
+    public Waiter pollFor(SlotType slotType) {
+        lock.lock();
+        try {
+            Waiter oldest = null;
+            for (int c = 0; c < VEHICLE_CLASSES; c++) {
+                if (!slotType.accepts(c)) continue;
+                Waiter head = rings[c].peekFirst();
+                if (head != null && (oldest == null || head.sequence < oldest.sequence)) {
+                    oldest = head;
+                }
+            }
+            if (oldest != null) {
+                rings[oldest.vehicle.getFlags()].pollFirst();
+                byPlate.remove(oldest.vehicle.getLicensePlate());
+                EventJournal journal = this.journal;
+                if (journal != null) journal.leftQueue(oldest.vehicle.getLicensePlate());
+            }
+            return oldest;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Puts back a polled waiter that could not be parked after all, ahead of
+    // everyone who queued after it. Dropped if the plate has queued again in
+    // the meantime.
+    public void restore(Waiter waiter) {
+        lock.lock();
+        try {
+            if (byPlate.putIfAbsent(waiter.vehicle.getLicensePlate(), waiter) != null) {
+                size--;
+                return;
+            }
+            rings[waiter.vehicle.getFlags()].addFirst(waiter);
+            EventJournal journal = this.journal;
+            if (journal != null) journal.queue(waiter.vehicle, waiter.enqueuedAtMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Releases the place of a polled waiter that will not be parked.
+    public void discard(Waiter waiter) {
+        lock.lock();
+        try {
+            size--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Takes a plate out of the queue wherever it stands, in O(1). Returns the
+    // vehicle, or null if the plate was not waiting.
+    public Vehicle remove(String licensePlate) {
+        lock.lock();
+        try {
+            Waiter waiter = byPlate.remove(licensePlate);
+            if (waiter == null) return null;
+            rings[waiter.vehicle.getFlags()].remove(waiter);
+            size--;
+            EventJournal journal = this.journal;
+            if (journal != null) journal.leftQueue(licensePlate);
+            return waiter.vehicle;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Everyone waiting, oldest first across all classes. Polled waiters not
+    // yet parked or put back are not included.
+    public List<Waiter> waiters() {
+        lock.lock();
+        try {
+            List<Waiter> waiting = new ArrayList<>(byPlate.values());
+            waiting.sort(Comparator.comparingLong(waiter -> waiter.sequence));
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(String licensePlate) {
+        lock.lock();
+        try {
+            return byPlate.containsKey(licensePlate);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Releases the place of a polled waiter that has been parked and records
+    // how long it waited.
+    public void recordParked(Waiter waiter) {
+        long waitedMillis = Math.max(0L, clock.millis() - waiter.enqueuedAtMillis);
+        lock.lock();
+        try {
+            size--;
+            waitTimes.record(waitedMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setJournal(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size(int vehicleFlags) {
+        lock.lock();
+        try {
+            return rings[vehicleFlags].live;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public WaitTimeHistogram getWaitTimes() {
+        lock.lock();
+        try {
+            return waitTimes.copy();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package analytics;
+
+import archive.ArchiveReader;
+import archive.TicketArchive;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Builds TicketStats from the ticket archive. The archive keeps one file
+// per UTC day, so the range is split in halves down to single days on the
+// common fork-join pool; each day is streamed into its own TicketStats and
+// the halves are merged on the way back up. Every task holds one segment
+// at a time, whatever the length of the range.
+public final class TicketAnalytics {
+    private static final long DAY_MILLIS = 24 * TicketStats.HOUR_MILLIS;
+
+    private TicketAnalytics() {}
+
+    // Stats for the tickets that exited in [fromMillis, toMillis). Flush
+    // the archive first to include exits still being buffered.
+    public static TicketStats scan(Path archiveDirectory, long fromMillis, long toMillis) throws IOException {
+        try {
+            return ForkJoinPool.commonPool().invoke(new ScanTask(archiveDirectory, fromMillis, toMillis,
+                Math.floorDiv(fromMillis, DAY_MILLIS), Math.floorDiv(toMillis - 1, DAY_MILLIS) + 1));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Same result on the calling thread, one day after another.
+    public static TicketStats scanSequential(Path archiveDirectory, long fromMillis, long toMillis) throws IOException {
+        TicketStats stats = new TicketStats(fromMillis, toMillis);
+        scanInto(stats, archiveDirectory, fromMillis, toMillis);
+        return stats;
+    }
+
+    private static void scanInto(TicketStats stats, Path archiveDirectory, long fromMillis, long toMillis)
+            throws IOException {
+        try (ArchiveReader reader = TicketArchive.read(archiveDirectory, fromMillis, toMillis)) {
+            while (reader.next()) {
+                stats.add(reader.segment());
+            }
+        }
+    }
+
+    // Scans the UTC days [firstDay, endDay) of the range. Tasks only ever
+    // live inside the pool, so RecursiveTask's Serializable goes unused.
+    @SuppressWarnings("serial")
+    private static final class ScanTask extends RecursiveTask<TicketStats> {
+        private final Path archiveDirectory;
+        private final long fromMillis;
+        private final long toMillis;
+        private final long firstDay;
+        private final long endDay;
+
+        ScanTask(Path archiveDirectory, long fromMillis, long toMillis, long firstDay, long endDay) {
+            this.archiveDirectory = archiveDirectory;
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.firstDay = firstDay;
+            this.endDay = endDay;
+        }
+
+        @Override
+        protected TicketStats compute() {
+            if (endDay - firstDay <= 1) {
+                TicketStats stats = new TicketStats(fromMillis, toMillis);
+                try {
+                    scanInto(stats, archiveDirectory, Math.max(fromMillis, firstDay * DAY_MILLIS),
+                        Math.min(toMillis, endDay * DAY_MILLIS));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return stats;
+            }
+            long midDay = firstDay + (endDay - firstDay) / 2;
+            ScanTask right = new ScanTask(archiveDirectory, fromMillis, toMillis, midDay, endDay);
+            right.fork();
+            TicketStats stats = new ScanTask(archiveDirectory, fromMillis, toMillis, firstDay, midDay).compute();
+            stats.merge(right.join());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package analytics;
+
+import algorithms.queue.WaitTimeHistogram;
+import archive.TicketColumns;
+import models.SlotType;
+
+// One-pass aggregates over completed tickets for a fixed range of hours:
+// revenue and exits per hour and slot type, average and peak occupancy per
+// hour, and a dwell-time histogram per slot type (the same log-linear
+// histogram the waiting queue keeps, in milliseconds). Tickets can be added
+// a row or a segment at a time, and two stats over the same range merge by
+// adding, so the range can be scanned in pieces on separate threads.
+//
+// Hours run from fromMillis, not from UTC midnight, so passing a local
+// midnight gives local hours. A ticket is counted by its exit; its stay is
+// spread over the hours it covers within the range. Cars still parked, or
+// that left after toMillis, are not in the occupancy. Not thread-safe.
+public class TicketStats {
+    static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+    private final long fromMillis;
+    private final long toMillis;
+    private final int hours;
+    private final int types;
+    private final long[] revenuePaise;    // [hour * types + type]
+    private final int[] exits;            // [hour * types + type]
+    private final long[] parkedMillis;    // vehicle-milliseconds parked in each hour
+    private final int[] peakOccupied;     // highest occupancy seen at an exit in each hour
+    private final WaitTimeHistogram[] dwellTimes;
+
+    public TicketStats(long fromMillis, long toMillis) {
+        if (toMillis <= fromMillis) {
+            throw new IllegalArgumentException("Empty range: " + fromMillis + ".." + toMillis);
+        }
+        long hourCount = (toMillis - fromMillis + HOUR_MILLIS - 1) / HOUR_MILLIS;
+        if (hourCount > Integer.MAX_VALUE / SlotType.count()) {
+            throw new IllegalArgumentException("Range too long: " + hourCount + " hours");
+        }
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        this.hours = (int) hourCount;
+        this.types = SlotType.count();
+        this.revenuePaise = new long[hours * types];
+        this.exits = new int[hours * types];
+        this.parkedMillis = new long[hours];
+        this.peakOccupied = new int[hours];
+        this.dwellTimes = new WaitTimeHistogram[types];
+        for (int type = 0; type < types; type++) {
+            dwellTimes[type] = new WaitTimeHistogram();
+        }
+    }
+
+    // Tickets exiting outside the range are ignored.
+    public void record(long entryMillis, long exitMillis, int slotTypeOrdinal, long pricePaise, int occupiedAtExit) {
+        if (exitMillis < fromMillis || exitMillis >= toMillis) return;
+        int hour = (int) ((exitMillis - fromMillis) / HOUR_MILLIS);
+        int cell = hour * types + slotTypeOrdinal;
+        revenuePaise[cell] += pricePaise;
+        exits[cell]++;
+        peakOccupied[hour] = Math.max(peakOccupied[hour], occupiedAtExit);
+        dwellTimes[slotTypeOrdinal].record(exitMillis - entryMillis);
+
+        long start = Math.max(entryMillis, fromMillis);
+        int first = (int) ((start - fromMillis) / HOUR_MILLIS);
+        for (int h = first; h <= hour; h++) {
+            long hourStart = fromMillis + h * HOUR_MILLIS;
+            long hourEnd = hourStart + HOUR_MILLIS;
+            parkedMillis[h] += Math.min(exitMillis, hourEnd) - Math.max(start, hourStart);
+        }
+    }
+
+    public void add(TicketColumns segment) {
+        for (int row = 0; row < segment.size(); row++) {
+            record(segment.getEntryMillis(row), segment.getExitMillis(row), segment.getSlotTypeOrdinal(row),
+                segment.getPricePaise(row), segment.getOccupiedAtExit(row));
+        }
+    }
+
+    public void merge(TicketStats other) {
+        if (other.fromMillis != fromMillis || other.toMillis != toMillis) {
+            throw new IllegalArgumentException("Cannot merge stats over different ranges");
+        }
+        for (int i = 0; i < revenuePaise.length; i++) {
+            revenuePaise[i] += other.revenuePaise[i];
+            exits[i] += other.exits[i];
+        }
+        for (int h = 0; h < hours; h++) {
+            parkedMillis[h] += other.parkedMillis[h];
+            peakOccupied[h] = Math.max(peakOccupied[h], other.peakOccupied[h]);
+        }
+        for (int type = 0; type < types; type++) {
+            dwellTimes[type].merge(other.dwellTimes[type]);
+        }
+    }
+
+    public long getFromMillis() { return fromMillis; }
+    public long getToMillis() { return toMillis; }
+    public int getHours() { return hours; }
+
+    public long getHourStartMillis(int hour) {
+        return fromMillis + hour * HOUR_MILLIS;
+    }
+
+    public long getRevenuePaise(int hour, SlotType slotType) {
+        return revenuePaise[hour * types + slotType.ordinal()];
+    }
+
+    public long getRevenuePaise(int hour) {
+        long total = 0;
+        for (int type = 0; type < types; type++) total += revenuePaise[hour * types + type];
+        return total;
+    }
+
+    public long getTotalRevenuePaise(SlotType slotType) {
+        long total = 0;
+        for (int h = 0; h < hours; h++) total += revenuePaise[h * types + slotType.ordinal()];
+        return total;
+    }
+
+    public long getTotalRevenuePaise() {
+        long total = 0;
+        for (long paise : revenuePaise) total += paise;
+        return total;
+    }
+
+    public int getExits(int hour, SlotType slotType) {
+        return exits[hour * types + slotType.ordinal()];
+    }
+
+    public long getTotalExits() {
+        long total = 0;
+        for (int count : exits) total += count;
+        return total;
+    }
+
+    // Mean number of cars parked over the hour, from the stays that covered it.
+    public double getAverageOccupied(int hour) {
+        return (double) parkedMillis[hour] / HOUR_MILLIS;
+    }
+
+    public int getPeakOccupied(int hour) {
+        return peakOccupied[hour];
+    }
+
+    // The histogram itself; copy it before recording into it elsewhere.
+    public WaitTimeHistogram getDwellTimes(SlotType slotType) {
+        return dwellTimes[slotType.ordinal()];
+    }
+
+    public WaitTimeHistogram getDwellTimes() {
+        WaitTimeHistogram all = new WaitTimeHistogram();
+        for (WaitTimeHistogram histogram : dwellTimes) all.merge(histogram);
+        return all;
+    }
+
+    // Hour with the highest revenue, or -1 if nothing exited in the range.
+    public int getBusiestHour() {
+        int busiest = -1;
+        long best = 0;
+        for (int h = 0; h < hours; h++) {
+            long revenue = getRevenuePaise(h);
+            if (revenue > best) {
+                best = revenue;
+                busiest = h;
+            }
+        }
+        return busiest;
+    }
+}
@@ -0,0 +1,120 @@
+package archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Streams archived tickets that exited in [fromMillis, toMillis) one segment
+// at a time, walking the day files in date order. Only the current segment
+// is held in memory, decoded into the same TicketColumns each time, so a
+// month scan costs one segment of heap however long the month was.
+//
+//     try (ArchiveReader reader = TicketArchive.read(dir, from, to)) {
+//         while (reader.next()) {
+//             TicketColumns segment = reader.segment();
+//             for (int row = 0; row < segment.size(); row++) ...
+//         }
+//     }
+//
+// A segment that fails its checks ends the scan of that file: it can only
+// be the tail of a write cut short by a crash.
+public class ArchiveReader implements AutoCloseable {
+    private final Path directory;
+    private final long fromMillis;
+    private final long toMillis;
+    private final long lastDay;
+    private final TicketColumns segment;
+    private final ByteBuffer header;
+    private final CRC32 crc;
+    private ByteBuffer body;
+    private long day;
+    private FileChannel channel;
+    private long offset;
+
+    ArchiveReader(Path directory, long fromMillis, long toMillis) {
+        this.directory = directory;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        this.day = TicketArchive.epochDay(fromMillis);
+        this.lastDay = toMillis > fromMillis ? TicketArchive.epochDay(toMillis - 1) : day - 1;
+        this.segment = new TicketColumns(TicketArchive.DEFAULT_SEGMENT_ROWS);
+        this.header = ByteBuffer.allocate(12);
+        this.crc = new CRC32();
+        this.body = ByteBuffer.allocate(1024);
+    }
+
+    // Moves to the next segment with at least one row in range.
+    public boolean next() throws IOException {
+        while (true) {
+            if (channel == null && !openNextDay()) return false;
+            if (readSegment()) {
+                segment.retainExitsBetween(fromMillis, toMillis);
+                if (!segment.isEmpty()) return true;
+            } else {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    // The current segment; its contents change on the next call to next().
+    public TicketColumns segment() {
+        return segment;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        day = lastDay + 1;
+    }
+
+    private boolean openNextDay() throws IOException {
+        while (day <= lastDay) {
+            Path file = TicketArchive.dayFile(directory, day++);
+            if (Files.exists(file)) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+                offset = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Decodes the segment at offset; false at the end of the file or at a
+    // torn or corrupt segment.
+    private boolean readSegment() throws IOException {
+        header.clear();
+        if (!readFully(header)) return false;
+        if (header.getInt(0) != TicketArchive.SEGMENT_MAGIC) return false;
+        int rows = header.getInt(4);
+        int length = header.getInt(8);
+        if (rows < 0 || length < 0 || length > Integer.MAX_VALUE - 4) return false;
+
+        if (body.capacity() < length + 4) body = ByteBuffer.allocate(length + 4);
+        body.clear().limit(length + 4);
+        if (!readFully(body)) return false;
+        crc.reset();
+        crc.update(body.array(), 0, length);
+        if ((int) crc.getValue() != body.getInt(length)) return false;
+
+        body.position(0).limit(length);
+        segment.decode(body, rows);
+        return true;
+    }
+
+    private boolean readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) return false;
+            offset += read;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,284 @@
+package archive;
+
+import models.ParkingSlot;
+import models.Ticket;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// History of completed tickets, kept as columns rather than Ticket objects.
+// Exits append a row to an in-memory segment under a short lock; a full
+// segment is handed to one background thread that encodes it and appends
+// it to the day file for its first exit, tickets-YYYY-MM-DD.tca (UTC days).
+//
+// A segment never spans two days: an exit on a new day seals the segment
+// first, and the writer seals a segment that has been open for sealMillis
+// however few rows it holds, so a quiet lot still reaches disk. A day file
+// is a run of segments, each [int magic][int rows][int body length][body]
+// [int CRC32 of body], the body being TicketColumns' encoding. A crash loses
+// at most the last sealMillis of exits plus the segment being written; the
+// journal's exit records cover the lot's state, not its history. A segment
+// torn by a crash is cut off before the next write to its file.
+public class TicketArchive implements AutoCloseable {
+    static final int SEGMENT_MAGIC = 0x53504131;  // "SPA1"
+    static final String FILE_PREFIX = "tickets-";
+    static final String FILE_SUFFIX = ".tca";
+    static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    public static final int DEFAULT_SEGMENT_ROWS = 1 << 16;
+    public static final long DEFAULT_SEAL_MILLIS = 1_000;
+
+    private final Path directory;
+    private final int segmentRows;
+    private final long sealNanos;
+    private final ReentrantLock lock;
+    private final Condition sealed;
+    private final Condition written;
+    private final ArrayDeque<TicketColumns> full;
+    private final Thread writer;
+    private TicketColumns current;
+    // System.nanoTime() of the first row in current.
+    private long currentOpenedNanos;
+    private long sealedSegments;
+    private long writtenSegments;
+    private long rows;
+    private long bytes;
+    private IOException failure;
+    private boolean closed;
+
+    public TicketArchive(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_ROWS);
+    }
+
+    public TicketArchive(Path directory, int segmentRows) throws IOException {
+        this(directory, segmentRows, DEFAULT_SEAL_MILLIS);
+    }
+
+    public TicketArchive(Path directory, int segmentRows, long sealMillis) throws IOException {
+        if (segmentRows < 1) {
+            throw new IllegalArgumentException("Segment must hold at least one row: " + segmentRows);
+        }
+        if (sealMillis < 1) {
+            throw new IllegalArgumentException("Seal interval must be at least 1 ms: " + sealMillis);
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.segmentRows = segmentRows;
+        this.sealNanos = sealMillis * 1_000_000L;
+        this.lock = new ReentrantLock();
+        this.sealed = lock.newCondition();
+        this.written = lock.newCondition();
+        this.full = new ArrayDeque<>();
+        this.current = new TicketColumns(segmentRows);
+        this.writer = new Thread(this::writeLoop, "ticket-archive");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Records a paid ticket. slot is where the vehicle left from, which
+    // differs from the ticket's own slot if it was moved while parked.
+    // Appends after close or a write failure are dropped; flush() reports it.
+    public void append(Ticket ticket, ParkingSlot slot) {
+        lock.lock();
+        try {
+            if (closed || failure != null) return;
+            if (!current.isEmpty() && epochDay(ticket.getExitMillis()) != epochDay(current.getExitMillis(0))) {
+                seal();
+            }
+            if (current.isEmpty()) {
+                // Wakes the writer to time the new segment.
+                currentOpenedNanos = System.nanoTime();
+                sealed.signal();
+            }
+            current.add(ticket.getId(), ticket.getEntryMillis(), ticket.getExitMillis(), slot.getSlotId(),
+                slot.getSlotType(), ticket.getVehicle().getFlags(), ticket.getPricePaise(),
+                ticket.getOccupiedAtExit());
+            rows++;
+            if (current.size() == segmentRows) seal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes out the partly filled segment and everything queued before it,
+    // and waits until it is on disk.
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            if (!current.isEmpty()) seal();
+            long target = sealedSegments;
+            while (writtenSegments < target && failure == null) {
+                written.awaitUninterruptibly();
+            }
+            if (failure != null) throw failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getRowCount() {
+        lock.lock();
+        try {
+            return rows;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Encoded bytes written so far; with getRowCount, the bytes per ticket.
+    public long getBytesWritten() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            if (!current.isEmpty()) seal();
+            closed = true;
+            sealed.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw failure;
+    }
+
+    // Streams the tickets that exited in [fromMillis, toMillis), one segment
+    // at a time.
+    public static ArchiveReader read(Path directory, long fromMillis, long toMillis) throws IOException {
+        return new ArchiveReader(directory, fromMillis, toMillis);
+    }
+
+    static long epochDay(long epochMillis) {
+        return Math.floorDiv(epochMillis, DAY_MILLIS);
+    }
+
+    static Path dayFile(Path directory, long epochDay) {
+        return directory.resolve(FILE_PREFIX + LocalDate.ofEpochDay(epochDay) + FILE_SUFFIX);
+    }
+
+    // Walks the segment headers of a file this run has not written yet and
+    // truncates it after the last whole segment, so a segment torn by an
+    // earlier crash does not hide the ones appended after it.
+    private static void cutTornTail(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        long size = channel.size();
+        long offset = 0;
+        while (offset + 12 <= size) {
+            header.clear();
+            while (header.hasRemaining() && channel.read(header, offset + header.position()) >= 0) {}
+            long end = offset + 12 + (header.getInt(8) & 0xFFFFFFFFL) + 4;
+            if (header.getInt(0) != SEGMENT_MAGIC || end > size) break;
+            offset = end;
+        }
+        if (offset < size) channel.truncate(offset);
+    }
+
+    // Under lock.
+    private void seal() {
+        full.addLast(current);
+        current = new TicketColumns(segmentRows);
+        sealedSegments++;
+        sealed.signal();
+    }
+
+    private void writeLoop() {
+        ByteBuffer out = ByteBuffer.allocate(1024);
+        CRC32 crc = new CRC32();
+        Path checked = null;
+        while (true) {
+            TicketColumns segment;
+            lock.lock();
+            try {
+                while (full.isEmpty() && !closed) {
+                    if (current.isEmpty()) {
+                        sealed.awaitUninterruptibly();
+                        continue;
+                    }
+                    long wait = currentOpenedNanos + sealNanos - System.nanoTime();
+                    if (wait <= 0) {
+                        seal();
+                    } else {
+                        try {
+                            sealed.awaitNanos(wait);
+                        } catch (InterruptedException e) {
+                            // Nothing interrupts the writer; treat it as a spurious wakeup.
+                        }
+                    }
+                }
+                segment = full.pollFirst();
+                if (segment == null) return;
+            } finally {
+                lock.unlock();
+            }
+
+            int length;
+            try {
+                int capacity = 12 + segment.maxEncodedBytes() + 4;
+                if (out.capacity() < capacity) out = ByteBuffer.allocate(capacity);
+                out.clear();
+                out.putInt(SEGMENT_MAGIC).putInt(segment.size()).putInt(0);
+                segment.encode(out);
+                int bodyLength = out.position() - 12;
+                out.putInt(8, bodyLength);
+                crc.reset();
+                crc.update(out.array(), 12, bodyLength);
+                out.putInt((int) crc.getValue());
+                out.flip();
+                length = out.remaining();
+
+                Path file = dayFile(directory, epochDay(segment.getExitMillis(0)));
+                try (FileChannel channel = FileChannel.open(file,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    if (!file.equals(checked)) {
+                        cutTornTail(channel);
+                        checked = file;
+                    }
+                    long at = channel.size();
+                    while (out.hasRemaining()) at += channel.write(out, at);
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    written.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                writtenSegments++;
+                bytes += length;
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
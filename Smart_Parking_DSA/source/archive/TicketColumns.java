@@ -0,0 +1,245 @@
+package archive;
+
+import models.SlotType;
+import models.Vehicle;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+// One segment of completed tickets as parallel primitive columns: what the
+// archive buffers before encoding, and what the reader decodes a segment
+// into. Rows stay in the order the exits happened.
+//
+// Encoded, each column is [int byte length][values]. Ticket ids, entry
+// times and occupancy are zigzag varint deltas from the previous row; the
+// exit is stored as the stay (exit - entry); slot ids and prices are plain
+// varints; slot type and vehicle flags share one byte.
+public final class TicketColumns {
+    private long[] ticketIds;
+    private long[] entryMillis;
+    private long[] exitMillis;
+    private int[] slotIds;
+    private byte[] slotTypes;
+    private byte[] vehicleFlags;
+    private long[] pricesPaise;
+    private int[] occupiedAtExit;
+    private int size;
+
+    public TicketColumns(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.ticketIds = new long[capacity];
+        this.entryMillis = new long[capacity];
+        this.exitMillis = new long[capacity];
+        this.slotIds = new int[capacity];
+        this.slotTypes = new byte[capacity];
+        this.vehicleFlags = new byte[capacity];
+        this.pricesPaise = new long[capacity];
+        this.occupiedAtExit = new int[capacity];
+    }
+
+    public void add(long ticketId, long entryMillis, long exitMillis, int slotId, SlotType slotType,
+                    int vehicleFlags, long pricePaise, int occupiedAtExit) {
+        if (size == ticketIds.length) grow(size * 2);
+        int row = size++;
+        this.ticketIds[row] = ticketId;
+        this.entryMillis[row] = entryMillis;
+        this.exitMillis[row] = exitMillis;
+        this.slotIds[row] = slotId;
+        this.slotTypes[row] = (byte) slotType.ordinal();
+        this.vehicleFlags[row] = (byte) vehicleFlags;
+        this.pricesPaise[row] = pricePaise;
+        this.occupiedAtExit[row] = occupiedAtExit;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public long getTicketId(int row) { return ticketIds[row]; }
+    public long getEntryMillis(int row) { return entryMillis[row]; }
+    public long getExitMillis(int row) { return exitMillis[row]; }
+    public int getSlotId(int row) { return slotIds[row]; }
+    public SlotType getSlotType(int row) { return SlotType.fromOrdinal(slotTypes[row]); }
+    public int getSlotTypeOrdinal(int row) { return slotTypes[row]; }
+    public int getVehicleFlags(int row) { return vehicleFlags[row]; }
+    public long getPricePaise(int row) { return pricesPaise[row]; }
+    public int getOccupiedAtExit(int row) { return occupiedAtExit[row]; }
+
+    // Whole minutes parked, as the exit was billed.
+    public long getMinutes(int row) {
+        return (exitMillis[row] - entryMillis[row]) / 60_000L;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Keeps only the rows whose exit falls in [fromMillis, toMillis), in order.
+    void retainExitsBetween(long fromMillis, long toMillis) {
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (exitMillis[row] < fromMillis || exitMillis[row] >= toMillis) continue;
+            if (kept != row) {
+                ticketIds[kept] = ticketIds[row];
+                entryMillis[kept] = entryMillis[row];
+                exitMillis[kept] = exitMillis[row];
+                slotIds[kept] = slotIds[row];
+                slotTypes[kept] = slotTypes[row];
+                vehicleFlags[kept] = vehicleFlags[row];
+                pricesPaise[kept] = pricesPaise[row];
+                occupiedAtExit[kept] = occupiedAtExit[row];
+            }
+            kept++;
+        }
+        size = kept;
+    }
+
+    // Upper bound on the encoded body, for sizing the buffer once.
+    int maxEncodedBytes() {
+        // Seven columns with a length word each; a varint long is at most
+        // ten bytes, the type/flags byte is one.
+        return 7 * 4 + size * (10 + 10 + 10 + 5 + 1 + 10 + 5);
+    }
+
+    void encode(ByteBuffer out) {
+        int at = begin(out);
+        long previous = 0;
+        for (int row = 0; row < size; row++) {
+            putVarLong(out, zigzag(ticketIds[row] - previous));
+            previous = ticketIds[row];
+        }
+        at = next(out, at);
+        previous = 0;
+        for (int row = 0; row < size; row++) {
+            putVarLong(out, zigzag(entryMillis[row] - previous));
+            previous = entryMillis[row];
+        }
+        at = next(out, at);
+        for (int row = 0; row < size; row++) {
+            putVarLong(out, zigzag(exitMillis[row] - entryMillis[row]));
+        }
+        at = next(out, at);
+        for (int row = 0; row < size; row++) {
+            putVarLong(out, slotIds[row] & 0xFFFFFFFFL);
+        }
+        at = next(out, at);
+        for (int row = 0; row < size; row++) {
+            out.put((byte) (slotTypes[row] << Vehicle.FLAG_BITS | vehicleFlags[row]));
+        }
+        at = next(out, at);
+        for (int row = 0; row < size; row++) {
+            putVarLong(out, zigzag(pricesPaise[row]));
+        }
+        at = next(out, at);
+        previous = 0;
+        for (int row = 0; row < size; row++) {
+            putVarLong(out, zigzag(occupiedAtExit[row] - previous));
+            previous = occupiedAtExit[row];
+        }
+        end(out, at);
+    }
+
+    // Replaces the contents with rows decoded from in.
+    void decode(ByteBuffer in, int rows) throws IOException {
+        if (ticketIds.length < rows) grow(rows);
+        size = 0;
+        try {
+            ByteBuffer column = column(in);
+            long previous = 0;
+            for (int row = 0; row < rows; row++) {
+                ticketIds[row] = previous += unzigzag(getVarLong(column));
+            }
+            column = column(in);
+            previous = 0;
+            for (int row = 0; row < rows; row++) {
+                entryMillis[row] = previous += unzigzag(getVarLong(column));
+            }
+            column = column(in);
+            for (int row = 0; row < rows; row++) {
+                exitMillis[row] = entryMillis[row] + unzigzag(getVarLong(column));
+            }
+            column = column(in);
+            for (int row = 0; row < rows; row++) {
+                slotIds[row] = (int) getVarLong(column);
+            }
+            column = column(in);
+            int flagMask = (1 << Vehicle.FLAG_BITS) - 1;
+            for (int row = 0; row < rows; row++) {
+                int packed = column.get() & 0xFF;
+                slotTypes[row] = (byte) (packed >>> Vehicle.FLAG_BITS);
+                vehicleFlags[row] = (byte) (packed & flagMask);
+            }
+            column = column(in);
+            for (int row = 0; row < rows; row++) {
+                pricesPaise[row] = unzigzag(getVarLong(column));
+            }
+            column = column(in);
+            previous = 0;
+            for (int row = 0; row < rows; row++) {
+                occupiedAtExit[row] = (int) (previous += unzigzag(getVarLong(column)));
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed ticket segment", e);
+        }
+        size = rows;
+    }
+
+    // Reserves a column's length word and returns where it sits.
+    private static int begin(ByteBuffer out) {
+        int at = out.position();
+        out.putInt(0);
+        return at;
+    }
+
+    // Fills in the finished column's length and starts the next one.
+    private static int next(ByteBuffer out, int at) {
+        end(out, at);
+        return begin(out);
+    }
+
+    private static void end(ByteBuffer out, int at) {
+        out.putInt(at, out.position() - at - 4);
+    }
+
+    private static ByteBuffer column(ByteBuffer in) {
+        int length = in.getInt();
+        ByteBuffer column = in.slice().limit(length);
+        in.position(in.position() + length);
+        return column;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Varint longer than ten bytes");
+    }
+
+    private void grow(int capacity) {
+        ticketIds = Arrays.copyOf(ticketIds, capacity);
+        entryMillis = Arrays.copyOf(entryMillis, capacity);
+        exitMillis = Arrays.copyOf(exitMillis, capacity);
+        slotIds = Arrays.copyOf(slotIds, capacity);
+        slotTypes = Arrays.copyOf(slotTypes, capacity);
+        vehicleFlags = Arrays.copyOf(vehicleFlags, capacity);
+        pricesPaise = Arrays.copyOf(pricesPaise, capacity);
+        occupiedAtExit = Arrays.copyOf(occupiedAtExit, capacity);
+    }
+}
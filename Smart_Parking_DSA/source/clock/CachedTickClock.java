@@ -0,0 +1,61 @@
+package clock;
+
+import java.time.ZoneId;
+import java.util.concurrent.locks.LockSupport;
+
+// Wall-clock time refreshed by a daemon thread every tickMillis; reading it
+// is a single volatile load. Meant for the gate paths, where millisecond
+// resolution is all that pricing and durations need.
+public class CachedTickClock extends EpochClock implements AutoCloseable {
+    private static volatile CachedTickClock shared;
+
+    private final long tickNanos;
+    private final Thread ticker;
+    private volatile long now;
+    private volatile boolean running = true;
+
+    public CachedTickClock(ZoneId zone, long tickMillis) {
+        super(zone);
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least 1ms: " + tickMillis);
+        }
+        this.tickNanos = tickMillis * 1_000_000L;
+        this.now = System.currentTimeMillis();
+        this.ticker = new Thread(this::tick, "parking-clock-tick");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    // Process-wide 1ms clock in the system zone, started on first use.
+    public static CachedTickClock shared() {
+        CachedTickClock clock = shared;
+        if (clock == null) {
+            synchronized (CachedTickClock.class) {
+                clock = shared;
+                if (clock == null) {
+                    clock = new CachedTickClock(ZoneId.systemDefault(), 1);
+                    shared = clock;
+                }
+            }
+        }
+        return clock;
+    }
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    private void tick() {
+        while (running) {
+            now = System.currentTimeMillis();
+            LockSupport.parkNanos(tickNanos);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package clock;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+// Source of wall-clock time as primitive epoch milliseconds. Tickets, vehicles
+// and pricing read time only through a clock, so a lot can be driven by the
+// system time, a cached tick, or a ManualClock in replays and simulations.
+//
+// hourOfDay() converts to local time without allocating: the zone offset is
+// looked up once and reused until the next offset transition (DST change).
+public abstract class EpochClock {
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    private final ZoneId zone;
+    private volatile OffsetWindow window;
+
+    // One zone offset and the instants between which it applies.
+    private static final class OffsetWindow {
+        final long from;
+        final long until;
+        final long offsetMillis;
+
+        OffsetWindow(long from, long until, long offsetMillis) {
+            this.from = from;
+            this.until = until;
+            this.offsetMillis = offsetMillis;
+        }
+    }
+
+    protected EpochClock(ZoneId zone) {
+        this.zone = zone;
+        this.window = new OffsetWindow(0, 0, 0);
+    }
+
+    public static EpochClock system() {
+        return SystemClock.INSTANCE;
+    }
+
+    public abstract long millis();
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // Local hour (0-23) of the given instant in this clock's zone.
+    public int hourOfDay(long epochMillis) {
+        OffsetWindow current = window;
+        if (epochMillis < current.from || epochMillis >= current.until) {
+            current = lookUpOffset(epochMillis);
+            window = current;
+        }
+        return (int) (Math.floorMod(epochMillis + current.offsetMillis, MILLIS_PER_DAY) / MILLIS_PER_HOUR);
+    }
+
+    private OffsetWindow lookUpOffset(long epochMillis) {
+        ZoneRules rules = zone.getRules();
+        Instant instant = Instant.ofEpochMilli(epochMillis);
+        ZoneOffsetTransition previous = rules.previousTransition(instant);
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        long from = previous == null ? Long.MIN_VALUE : previous.getInstant().toEpochMilli();
+        long until = next == null ? Long.MAX_VALUE : next.getInstant().toEpochMilli();
+        return new OffsetWindow(from, until, rules.getOffset(instant).getTotalSeconds() * 1000L);
+    }
+}
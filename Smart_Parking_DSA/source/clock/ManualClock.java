@@ -0,0 +1,33 @@
+package clock;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Time that only moves when told to, for replaying journals and simulating
+// a day of traffic in milliseconds of real time.
+public class ManualClock extends EpochClock {
+    private final AtomicLong now;
+
+    public ManualClock(long epochMillis) {
+        this(epochMillis, ZoneOffset.UTC);
+    }
+
+    public ManualClock(long epochMillis, ZoneId zone) {
+        super(zone);
+        this.now = new AtomicLong(epochMillis);
+    }
+
+    @Override
+    public long millis() {
+        return now.get();
+    }
+
+    public void set(long epochMillis) {
+        now.set(epochMillis);
+    }
+
+    public long advance(long millis) {
+        return now.addAndGet(millis);
+    }
+}
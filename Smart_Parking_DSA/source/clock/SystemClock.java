@@ -0,0 +1,17 @@
+package clock;
+
+import java.time.ZoneId;
+
+// Reads System.currentTimeMillis() on every call.
+public class SystemClock extends EpochClock {
+    static final SystemClock INSTANCE = new SystemClock(ZoneId.systemDefault());
+
+    public SystemClock(ZoneId zone) {
+        super(zone);
+    }
+
+    @Override
+    public long millis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,275 @@
+package events;
+
+import algorithms.pricing.RateCard;
+import models.ParkingSlot;
+import models.Ticket;
+import models.Vehicle;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded multi-producer ring buffer in front of a (slow) listener. Gate
+// threads only copy references and primitives into a preallocated slot; a
+// single background thread replays the events on the delegate in order.
+// When the ring is full new events are dropped and counted rather than
+// stalling a gate.
+public class AsyncEventSink implements ParkingEventListener, AutoCloseable {
+    private static final int PARKED = 1;
+    private static final int QUEUED = 2;
+    private static final int REJECTED = 3;
+    private static final int EXITED = 4;
+    private static final int QUEUE_PROCESSING = 5;
+    private static final int BATCH_PARKED = 6;
+    private static final int BATCH_EXITED = 7;
+    private static final int OPTIMIZATION_STARTED = 8;
+    private static final int BETTER_SLOT_FOUND = 9;
+    private static final int REALLOCATED = 10;
+    private static final int OPTIMIZATION_FINISHED = 11;
+    private static final int ALLOCATION_SUGGESTED = 12;
+    private static final int LEFT_QUEUE = 13;
+    private static final int RATE_CARD_APPLIED = 14;
+    private static final int JOURNAL_REPLAYED = 15;
+    private static final int MOVE_PROPOSED = 16;
+    private static final int RATE_CARD_REJECTED = 17;
+
+    private static final class Event {
+        volatile long published = -1;
+        int type;
+        Object a;
+        Object b;
+        Object c;
+        int i;
+        int j;
+        int k;
+        long x;
+    }
+
+    private final ParkingEventListener delegate;
+    private final Event[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long consumed;
+    private volatile boolean running = true;
+    private final Thread worker;
+
+    public AsyncEventSink(ParkingEventListener delegate) {
+        this(delegate, 8192);
+    }
+
+    public AsyncEventSink(ParkingEventListener delegate, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.delegate = delegate;
+        this.ring = new Event[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Event();
+        }
+        this.worker = new Thread(this::drainLoop, "parking-event-sink");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void onParked(Vehicle vehicle, ParkingSlot slot, Ticket ticket) {
+        publish(PARKED, vehicle, slot, ticket, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onQueued(Vehicle vehicle, int position) {
+        publish(QUEUED, vehicle, null, null, position, 0, 0, 0L);
+    }
+
+    @Override
+    public void onRejected(String licensePlate, RejectReason reason, int slotId) {
+        publish(REJECTED, licensePlate, reason, null, slotId, 0, 0, 0L);
+    }
+
+    @Override
+    public void onExited(Ticket ticket, ParkingSlot slot, long pricePaise) {
+        publish(EXITED, ticket, slot, null, 0, 0, 0, pricePaise);
+    }
+
+    @Override
+    public void onQueueProcessing(Vehicle vehicle) {
+        publish(QUEUE_PROCESSING, vehicle, null, null, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onLeftQueue(Vehicle vehicle) {
+        publish(LEFT_QUEUE, vehicle, null, null, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onBatchParked(int parked, int total, int queued) {
+        publish(BATCH_PARKED, null, null, null, parked, total, queued, 0L);
+    }
+
+    @Override
+    public void onBatchExited(int exited, int total) {
+        publish(BATCH_EXITED, null, null, null, exited, total, 0, 0L);
+    }
+
+    @Override
+    public void onOptimizationStarted() {
+        publish(OPTIMIZATION_STARTED, null, null, null, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onBetterSlotFound(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {
+        publish(BETTER_SLOT_FOUND, vehicle, from, to, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onReallocated(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {
+        publish(REALLOCATED, vehicle, from, to, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onMoveProposed(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {
+        publish(MOVE_PROPOSED, vehicle, from, to, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onOptimizationFinished(int reallocated) {
+        publish(OPTIMIZATION_FINISHED, null, null, null, reallocated, 0, 0, 0L);
+    }
+
+    @Override
+    public void onAllocationSuggested(Vehicle vehicle, ParkingSlot slot) {
+        publish(ALLOCATION_SUGGESTED, vehicle, slot, null, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onRateCardApplied(RateCard rateCard) {
+        publish(RATE_CARD_APPLIED, rateCard, null, null, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onRateCardRejected(Path file, Exception error) {
+        publish(RATE_CARD_REJECTED, file, error, null, 0, 0, 0, 0L);
+    }
+
+    @Override
+    public void onJournalReplayed(long records, int parked, int waiting) {
+        publish(JOURNAL_REPLAYED, null, null, null, parked, waiting, 0, records);
+    }
+
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    // Stops accepting events, waits for the worker to flush what is queued.
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(int type, Object a, Object b, Object c, int i, int j, int k, long x) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (!running || sequence - consumed >= ring.length) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Event event = ring[(int) sequence & mask];
+        event.type = type;
+        event.a = a;
+        event.b = b;
+        event.c = c;
+        event.i = i;
+        event.j = j;
+        event.k = k;
+        event.x = x;
+        event.published = sequence;
+        LockSupport.unpark(worker);
+    }
+
+    private void drainLoop() {
+        long next = 0;
+        while (true) {
+            Event event = ring[(int) next & mask];
+            if (event.published != next) {
+                if (!running && next == claimed.get()) return;
+                LockSupport.parkNanos(1_000_000L);
+                continue;
+            }
+
+            try {
+                dispatch(event);
+            } catch (RuntimeException e) {
+                // A failing sink must not kill the worker; the event is skipped.
+            }
+            event.a = null;
+            event.b = null;
+            event.c = null;
+            next++;
+            consumed = next;
+        }
+    }
+
+    private void dispatch(Event e) {
+        switch (e.type) {
+            case PARKED:
+                delegate.onParked((Vehicle) e.a, (ParkingSlot) e.b, (Ticket) e.c);
+                break;
+            case QUEUED:
+                delegate.onQueued((Vehicle) e.a, e.i);
+                break;
+            case REJECTED:
+                delegate.onRejected((String) e.a, (RejectReason) e.b, e.i);
+                break;
+            case EXITED:
+                delegate.onExited((Ticket) e.a, (ParkingSlot) e.b, e.x);
+                break;
+            case QUEUE_PROCESSING:
+                delegate.onQueueProcessing((Vehicle) e.a);
+                break;
+            case LEFT_QUEUE:
+                delegate.onLeftQueue((Vehicle) e.a);
+                break;
+            case BATCH_PARKED:
+                delegate.onBatchParked(e.i, e.j, e.k);
+                break;
+            case BATCH_EXITED:
+                delegate.onBatchExited(e.i, e.j);
+                break;
+            case OPTIMIZATION_STARTED:
+                delegate.onOptimizationStarted();
+                break;
+            case BETTER_SLOT_FOUND:
+                delegate.onBetterSlotFound((Vehicle) e.a, (ParkingSlot) e.b, (ParkingSlot) e.c);
+                break;
+            case REALLOCATED:
+                delegate.onReallocated((Vehicle) e.a, (ParkingSlot) e.b, (ParkingSlot) e.c);
+                break;
+            case MOVE_PROPOSED:
+                delegate.onMoveProposed((Vehicle) e.a, (ParkingSlot) e.b, (ParkingSlot) e.c);
+                break;
+            case OPTIMIZATION_FINISHED:
+                delegate.onOptimizationFinished(e.i);
+                break;
+            case ALLOCATION_SUGGESTED:
+                delegate.onAllocationSuggested((Vehicle) e.a, (ParkingSlot) e.b);
+                break;
+            case RATE_CARD_APPLIED:
+                delegate.onRateCardApplied((RateCard) e.a);
+                break;
+            case RATE_CARD_REJECTED:
+                delegate.onRateCardRejected((Path) e.a, (Exception) e.b);
+                break;
+            case JOURNAL_REPLAYED:
+                delegate.onJournalReplayed(e.x, e.i, e.j);
+                break;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package events;
+
+import algorithms.pricing.RateCard;
+import models.Money;
+import models.ParkingSlot;
+import models.SlotType;
+import models.Ticket;
+import models.Vehicle;
+import java.io.*;
+import java.nio.file.Path;
+
+// Prints lot events in the console format the lot used to print inline.
+// Writes synchronously; wrap it in an AsyncEventSink to take it off the
+// gate threads.
+public class ConsoleEventListener implements ParkingEventListener {
+    private final PrintStream out;
+
+    public ConsoleEventListener() {
+        this(System.out);
+    }
+
+    public ConsoleEventListener(PrintStream out) {
+        this.out = out;
+    }
+
+    public static ConsoleEventListener toFile(String path) throws IOException {
+        return new ConsoleEventListener(new PrintStream(new FileOutputStream(path, true), true, "UTF-8"));
+    }
+
+    @Override
+    public void onParked(Vehicle vehicle, ParkingSlot slot, Ticket ticket) {
+        printParkingHeader(vehicle);
+        out.println("  SUCCESS: Allocated Slot #" + slot.getSlotId() +
+                    " [" + slot.getSlotType() + "]" +
+                    " Distance: " + slot.getDistanceFromEntrance() + "m");
+        out.println("  Ticket ID: " + ticket.getTicketId());
+    }
+
+    @Override
+    public void onQueued(Vehicle vehicle, int position) {
+        printParkingHeader(vehicle);
+        out.println("  WAITING: Parking full! Added to queue. Position: " + position);
+    }
+
+    @Override
+    public void onRejected(String licensePlate, RejectReason reason, int slotId) {
+        switch (reason) {
+            case ALREADY_PARKED:
+                out.println("\n[PARKING] Vehicle: " + licensePlate);
+                out.println("  ERROR: Vehicle already parked!");
+                break;
+            case UNKNOWN_SLOT:
+                out.println("\n[PARKING] Vehicle: " + licensePlate + " at Slot #" + slotId);
+                out.println("  ERROR: Unknown slot #" + slotId);
+                break;
+            case SLOT_UNAVAILABLE:
+                out.println("\n[PARKING] Vehicle: " + licensePlate + " at Slot #" + slotId);
+                out.println("  ERROR: Slot #" + slotId + " is not available for this vehicle");
+                break;
+            case NOT_FOUND:
+                out.println("\n[EXITING] Vehicle: " + licensePlate);
+                out.println("  ERROR: Vehicle not found in parking lot!");
+                break;
+            case NO_ACTIVE_TICKET:
+                out.println("\n[EXITING] Vehicle: " + licensePlate);
+                out.println("  ERROR: No active ticket found!");
+                break;
+            case QUEUE_FULL:
+                out.println("\n[PARKING] Vehicle: " + licensePlate);
+                out.println("  REJECTED: Parking full and waiting queue at capacity!");
+                break;
+            case ALREADY_QUEUED:
+                out.println("\n[PARKING] Vehicle: " + licensePlate);
+                out.println("  ERROR: Vehicle already waiting in queue!");
+                break;
+        }
+    }
+
+    @Override
+    public void onExited(Ticket ticket, ParkingSlot slot, long pricePaise) {
+        out.println("\n[EXITING] Vehicle: " + ticket.getVehicle().getLicensePlate());
+        out.println("  SUCCESS: Vehicle exited");
+        out.println("  - Slot Freed: #" + slot.getSlotId() + " [" + slot.getSlotType() + "]");
+        out.println("  - Parking Duration: " + String.format("%.2f", ticket.getParkingDurationHours()) + " hours");
+        out.println("  - Base Rate: Rs" + slot.getBasePrice() + "/hour");
+        out.println("  - Total Charge: " + Money.format(pricePaise));
+    }
+
+    @Override
+    public void onQueueProcessing(Vehicle vehicle) {
+        out.println("\n[QUEUE] Processing waiting vehicle: " + vehicle.getLicensePlate());
+    }
+
+    @Override
+    public void onLeftQueue(Vehicle vehicle) {
+        out.println("\n[QUEUE] Vehicle left the waiting queue: " + vehicle.getLicensePlate());
+    }
+
+    @Override
+    public void onBatchParked(int parked, int total, int queued) {
+        out.println("\n[BATCH] Parked " + parked + " of " + total + " vehicles" +
+                    (queued > 0 ? ", " + queued + " queued" : ""));
+    }
+
+    @Override
+    public void onBatchExited(int exited, int total) {
+        out.println("\n[BATCH] Exited " + exited + " of " + total + " vehicles");
+    }
+
+    @Override
+    public void onOptimizationStarted() {
+        out.println("\n[OPTIMIZATION] Checking for better slot allocations...");
+    }
+
+    @Override
+    public void onBetterSlotFound(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {
+        out.println("  Found better slot for " + vehicle.getLicensePlate() +
+                    ": Slot #" + from.getSlotId() +
+                    " -> Slot #" + to.getSlotId());
+    }
+
+    @Override
+    public void onReallocated(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {
+        out.println("  Reallocated " + vehicle.getLicensePlate() +
+                    " from Slot #" + from.getSlotId() +
+                    " to Slot #" + to.getSlotId());
+    }
+
+    @Override
+    public void onMoveProposed(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {
+        out.println("  Proposed move for " + vehicle.getLicensePlate() +
+                    ": Slot #" + from.getSlotId() +
+                    " -> Slot #" + to.getSlotId());
+    }
+
+    @Override
+    public void onOptimizationFinished(int reallocated) {
+        if (reallocated == 0) {
+            out.println("  No optimization needed - optimal layout maintained");
+        }
+    }
+
+    @Override
+    public void onAllocationSuggested(Vehicle vehicle, ParkingSlot slot) {
+        out.println("\n[MIDDLEWARE] MinHeapAllocation called for: " + vehicle);
+        if (slot == null) {
+            out.println("  No suitable slots found in demo");
+            return;
+        }
+        out.println("  Algorithm suggests: Slot #" + slot.getSlotId() +
+                    " [" + slot.getSlotType() + "]");
+        out.println("  Distance: " + slot.getDistanceFromEntrance() + "m (nearest)");
+    }
+    
+    @Override
+    public void onRateCardApplied(RateCard rateCard) {
+        out.println("\n[PRICING] Rate card v" + rateCard.getVersion() + " applied" +
+                    " (REGULAR " + Money.format(rateCard.getSlotRatePaise(SlotType.REGULAR)) +
+                    ", EV " + Money.format(rateCard.getSlotRatePaise(SlotType.EV_CHARGING)) +
+                    ", VIP " + Money.format(rateCard.getSlotRatePaise(SlotType.VIP)) + " /hour)");
+    }
+
+    @Override
+    public void onRateCardRejected(Path file, Exception error) {
+        out.println("\n[PRICING] Rate card " + file + " rejected, keeping current card: " + error.getMessage());
+    }
+    
+    @Override
+    public void onJournalReplayed(long records, int parked, int waiting) {
+        out.println("\n[JOURNAL] Replayed " + records + " records: " + parked +
+                    " vehicles parked, " + waiting + " waiting");
+    }
+
+    private void printParkingHeader(Vehicle vehicle) {
+        out.println("\n[PARKING] Vehicle: " + vehicle.getLicensePlate() +
+                    " Type: " + vehicle.getVehicleType() +
+                    (vehicle.isVIP() ? " [VIP]" : "") +
+                    (vehicle.isElectric() ? " [EV]" : ""));
+    }
+}
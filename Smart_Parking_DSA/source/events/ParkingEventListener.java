@@ -0,0 +1,51 @@
+package events;
+
+import algorithms.pricing.RateCard;
+import java.nio.file.Path;
+import models.ParkingSlot;
+import models.Ticket;
+import models.Vehicle;
+
+// Receives lot events from the gate threads. Every method defaults to a no-op
+// and takes the objects the lot already holds, so with NONE installed the park
+// and exit paths never build a message. Implementations must be thread-safe.
+public interface ParkingEventListener {
+    ParkingEventListener NONE = new ParkingEventListener() {};
+
+    default void onParked(Vehicle vehicle, ParkingSlot slot, Ticket ticket) {}
+
+    default void onQueued(Vehicle vehicle, int position) {}
+
+    default void onRejected(String licensePlate, RejectReason reason, int slotId) {}
+
+    default void onExited(Ticket ticket, ParkingSlot slot, long pricePaise) {}
+
+    default void onQueueProcessing(Vehicle vehicle) {}
+
+    default void onLeftQueue(Vehicle vehicle) {}
+
+    default void onBatchParked(int parked, int total, int queued) {}
+
+    default void onBatchExited(int exited, int total) {}
+
+    default void onOptimizationStarted() {}
+
+    default void onBetterSlotFound(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {}
+
+    default void onReallocated(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {}
+
+    // An exit freed a slot closer than the one vehicle is parked in;
+    // ParkingLot.acceptMove applies it.
+    default void onMoveProposed(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {}
+
+    default void onOptimizationFinished(int reallocated) {}
+
+    default void onAllocationSuggested(Vehicle vehicle, ParkingSlot slot) {}
+
+    default void onRateCardApplied(RateCard rateCard) {}
+
+    // A watched rate card file failed to load; the current card stays.
+    default void onRateCardRejected(Path file, Exception error) {}
+
+    default void onJournalReplayed(long records, int parked, int waiting) {}
+}
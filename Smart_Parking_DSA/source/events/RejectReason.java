@@ -0,0 +1,11 @@
+package events;
+
+public enum RejectReason {
+    ALREADY_PARKED,
+    NOT_FOUND,
+    NO_ACTIVE_TICKET,
+    UNKNOWN_SLOT,
+    SLOT_UNAVAILABLE,
+    QUEUE_FULL,
+    ALREADY_QUEUED
+}
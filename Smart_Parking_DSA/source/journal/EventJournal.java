@@ -0,0 +1,554 @@
+package journal;
+
+import models.Vehicle;
+import models.VehicleType;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Append-only write-ahead log of a lot's state changes: parks, exits, moves
+// and the waiting queue. Gate threads encode a record into an in-memory
+// buffer under a short lock; one background thread writes whatever has
+// built up and fsyncs it. commit() waits for the fsync covering everything
+// appended so far, so gates committing while a sync is in flight all share
+// the next one and the fsync cost is spread over the batch.
+//
+// File layout: a 20-byte header (magic, format version, slot count, base
+// position), then records of [int body length][body][int CRC32 of body],
+// where a body is a type byte followed by its fields. A crash can leave a
+// torn record at the end; reading stops at the first record that is short or
+// fails its CRC, and opening the journal for append cuts the file back to
+// that point.
+//
+// Positions are logical byte offsets that keep counting across
+// checkpoints: the base position is where the first record in the file
+// sits in that count. A snapshot records the position it covers, and
+// recovery replays only what comes after it.
+public class EventJournal implements AutoCloseable {
+    public static final byte PARK = 1;
+    public static final byte EXIT = 2;
+    public static final byte REALLOCATE = 3;
+    public static final byte QUEUE = 4;
+    public static final byte LEFT_QUEUE = 5;
+
+    private static final int MAGIC = 0x53504A31;  // "SPJ1"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final int MAX_BODY_BYTES = 1 << 16;
+
+    // Replay callbacks, one per record type, in journal order.
+    public interface RecordHandler {
+        default void onPark(long ticketId, String licensePlate, VehicleType vehicleType, int vehicleFlags,
+                            int slotId, long entryMillis) {}
+
+        default void onExit(String licensePlate, long exitMillis, long pricePaise, int occupiedAtExit) {}
+
+        default void onReallocate(String licensePlate, int fromSlotId, int toSlotId) {}
+
+        default void onQueue(String licensePlate, VehicleType vehicleType, int vehicleFlags, long enqueuedMillis) {}
+
+        default void onLeftQueue(String licensePlate) {}
+    }
+
+    private final Path file;
+    private final int totalSlots;
+    private final FileChannel channel;
+    private final boolean waitForSync;
+    private final ReentrantLock lock;
+    private final Condition appended;
+    private final Condition synced;
+    private final CRC32 crc;
+    private final Thread flusher;
+    // Filled by gates; swapped with the spare by the flusher before each write.
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    // Takes the records a closed or failed journal turns away.
+    private ByteBuffer rejected;
+    private long basePosition;
+    private long appendedOffset;
+    private long durableOffset;
+    private long records;
+    private long syncs;
+    private int recordStart;
+    private IOException failure;
+    private boolean closed;
+
+    // Opens file for append, creating it if needed. With waitForSync, commit()
+    // returns only once the caller's records are on disk; without it records
+    // still reach the disk within one fsync but commit() does not wait.
+    public EventJournal(Path file, int totalSlots, boolean waitForSync) throws IOException {
+        this(file, totalSlots, 0, waitForSync);
+    }
+
+    // For a lot restored from a snapshot taken at startPosition: records the
+    // file holds before that position are dropped, and a new file starts
+    // counting there.
+    public EventJournal(Path file, int totalSlots, long startPosition, boolean waitForSync) throws IOException {
+        this.file = file;
+        this.totalSlots = totalSlots;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            long end;
+            if (channel.size() == 0) {
+                writeHeader(startPosition);
+                this.basePosition = startPosition;
+                end = HEADER_BYTES;
+            } else {
+                end = replay(file, totalSlots, startPosition, new RecordHandler() {});
+                this.basePosition = readHeader(file).basePosition;
+                if (basePosition + end - HEADER_BYTES < startPosition) {
+                    end = HEADER_BYTES;
+                    channel.truncate(end);
+                    writeHeader(startPosition);
+                    this.basePosition = startPosition;
+                } else {
+                    channel.truncate(end);
+                }
+            }
+            channel.position(end);
+            this.appendedOffset = end;
+            this.durableOffset = end;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.waitForSync = waitForSync;
+        this.lock = new ReentrantLock();
+        this.appended = lock.newCondition();
+        this.synced = lock.newCondition();
+        this.crc = new CRC32();
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        this.spare = ByteBuffer.allocate(64 * 1024);
+        this.rejected = ByteBuffer.allocate(256);
+        this.flusher = new Thread(this::flushLoop, "parking-journal");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public void park(long ticketId, Vehicle vehicle, int slotId, long entryMillis) {
+        byte[] plate = plateBytes(vehicle.getLicensePlate());
+        lock.lock();
+        try {
+            ByteBuffer out = begin(PARK, 8 + 8 + 4 + 2 + plate.length);
+            out.putLong(ticketId).putLong(entryMillis).putInt(slotId)
+               .put((byte) vehicle.getFlags()).put((byte) vehicle.getVehicleType().ordinal());
+            finish(putPlate(out, plate));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void exit(String licensePlate, long exitMillis, long pricePaise, int occupiedAtExit) {
+        byte[] plate = plateBytes(licensePlate);
+        lock.lock();
+        try {
+            ByteBuffer out = begin(EXIT, 8 + 8 + 4 + plate.length);
+            out.putLong(exitMillis).putLong(pricePaise).putInt(occupiedAtExit);
+            finish(putPlate(out, plate));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void reallocate(String licensePlate, int fromSlotId, int toSlotId) {
+        byte[] plate = plateBytes(licensePlate);
+        lock.lock();
+        try {
+            ByteBuffer out = begin(REALLOCATE, 4 + 4 + plate.length);
+            out.putInt(fromSlotId).putInt(toSlotId);
+            finish(putPlate(out, plate));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void queue(Vehicle vehicle, long enqueuedMillis) {
+        byte[] plate = plateBytes(vehicle.getLicensePlate());
+        lock.lock();
+        try {
+            ByteBuffer out = begin(QUEUE, 8 + 2 + plate.length);
+            out.putLong(enqueuedMillis)
+               .put((byte) vehicle.getFlags()).put((byte) vehicle.getVehicleType().ordinal());
+            finish(putPlate(out, plate));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void leftQueue(String licensePlate) {
+        byte[] plate = plateBytes(licensePlate);
+        lock.lock();
+        try {
+            finish(putPlate(begin(LEFT_QUEUE, plate.length), plate));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Blocks until every record appended before the call is on disk (only
+    // when opened with waitForSync). Throws if the journal is closed or can no
+    // longer be written: the lot's state is then ahead of what a restart
+    // would recover.
+    public void commit() {
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("Journal " + file + " is closed");
+            long target = appendedOffset;
+            while (durableOffset < target && failure == null) {
+                if (!waitForSync) return;
+                synced.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Journal " + file + " is no longer being written", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Logical position just past the last record appended.
+    public long position() {
+        lock.lock();
+        try {
+            return basePosition + appendedOffset - HEADER_BYTES;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Blocks until every record appended so far is on disk, whether or not
+    // the journal was opened with waitForSync. A snapshot is only written
+    // once the records it covers are durable, so a restart never finds the
+    // journal ending before the snapshot's position.
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            awaitDurable();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops every record in the file once a snapshot at position() holds
+    // the state they describe; later records carry on from that position.
+    // Call with the lot quiet, as for the snapshot itself.
+    public void checkpoint() throws IOException {
+        lock.lock();
+        try {
+            awaitDurable();
+            long position = basePosition + appendedOffset - HEADER_BYTES;
+            channel.truncate(HEADER_BYTES);
+            writeHeader(position);
+            channel.position(HEADER_BYTES);
+            basePosition = position;
+            appendedOffset = HEADER_BYTES;
+            durableOffset = HEADER_BYTES;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitDurable() throws IOException {
+        if (closed) throw new IllegalStateException("Journal " + file + " is closed");
+        while (durableOffset < appendedOffset && failure == null) {
+            synced.awaitUninterruptibly();
+        }
+        if (failure != null) throw failure;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getRecordCount() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Number of fsyncs so far; records / syncs is the achieved group size.
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes out and syncs every record appended before the call, then
+    // stops the flusher. Records appended after that are turned away and
+    // their commit() throws.
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            long target = appendedOffset;
+            while (durableOffset < target && failure == null) {
+                synced.awaitUninterruptibly();
+            }
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) throw failure;
+    }
+
+    // Reads every intact record of file in order and returns the offset just
+    // past the last one. A torn or corrupt tail ends the replay quietly.
+    public static long replay(Path file, int totalSlots, RecordHandler handler) throws IOException {
+        return replay(file, totalSlots, 0, handler);
+    }
+
+    // As above, but hands over only the records at or after fromPosition,
+    // those a snapshot taken at fromPosition does not already hold. A journal
+    // that starts after fromPosition has lost records the snapshot lacks.
+    public static long replay(Path file, int totalSlots, long fromPosition, RecordHandler handler)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            Header header = readHeader(in, file);
+            if (header.totalSlots != totalSlots) {
+                throw new IOException("Journal " + file + " is for a lot of " + header.totalSlots
+                    + " slots, not " + totalSlots);
+            }
+            if (header.basePosition > fromPosition) {
+                throw new IOException("Journal " + file + " starts at position " + header.basePosition
+                    + ", after the snapshot at " + fromPosition);
+            }
+            CRC32 crc = new CRC32();
+            long offset = HEADER_BYTES;
+            byte[] body = new byte[256];
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    if (length < 1 || length > MAX_BODY_BYTES) return offset;
+                    if (body.length < length) body = new byte[Math.max(length, body.length * 2)];
+                    in.readFully(body, 0, length);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    return offset;
+                }
+                crc.reset();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != checksum) return offset;
+
+                if (header.basePosition + offset - HEADER_BYTES >= fromPosition) {
+                    dispatch(ByteBuffer.wrap(body, 0, length), handler, file, offset);
+                }
+                offset += 4 + length + 4;
+            }
+        }
+    }
+
+    // Slot count recorded in an existing journal's header.
+    public static int slotCount(Path file) throws IOException {
+        return readHeader(file).totalSlots;
+    }
+
+    private static final class Header {
+        final int totalSlots;
+        final long basePosition;
+
+        Header(int totalSlots, long basePosition) {
+            this.totalSlots = totalSlots;
+            this.basePosition = basePosition;
+        }
+    }
+
+    private static Header readHeader(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readHeader(in, file);
+        }
+    }
+
+    private static Header readHeader(DataInputStream in, Path file) throws IOException {
+        try {
+            if (in.readInt() != MAGIC) throw new IOException("Not a parking journal: " + file);
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported journal format " + version + " in " + file);
+            }
+            int totalSlots = in.readInt();
+            return new Header(totalSlots, in.readLong());
+        } catch (EOFException e) {
+            throw new IOException("Journal header is truncated: " + file, e);
+        }
+    }
+
+    private void writeHeader(long basePosition) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+            .putInt(MAGIC).putInt(FORMAT_VERSION).putInt(totalSlots).putLong(basePosition);
+        header.flip();
+        long at = 0;
+        while (header.hasRemaining()) at += channel.write(header, at);
+        channel.force(true);
+    }
+
+    private static void dispatch(ByteBuffer in, RecordHandler handler, Path file, long offset) throws IOException {
+        byte type = in.get();
+        switch (type) {
+            case PARK: {
+                long ticketId = in.getLong();
+                long entryMillis = in.getLong();
+                int slotId = in.getInt();
+                int flags = in.get();
+                VehicleType vehicleType = vehicleType(in.get());
+                handler.onPark(ticketId, getPlate(in), vehicleType, flags, slotId, entryMillis);
+                break;
+            }
+            case EXIT: {
+                long exitMillis = in.getLong();
+                long pricePaise = in.getLong();
+                int occupiedAtExit = in.getInt();
+                handler.onExit(getPlate(in), exitMillis, pricePaise, occupiedAtExit);
+                break;
+            }
+            case REALLOCATE: {
+                int fromSlotId = in.getInt();
+                int toSlotId = in.getInt();
+                handler.onReallocate(getPlate(in), fromSlotId, toSlotId);
+                break;
+            }
+            case QUEUE: {
+                long enqueuedMillis = in.getLong();
+                int flags = in.get();
+                VehicleType vehicleType = vehicleType(in.get());
+                handler.onQueue(getPlate(in), vehicleType, flags, enqueuedMillis);
+                break;
+            }
+            case LEFT_QUEUE:
+                handler.onLeftQueue(getPlate(in));
+                break;
+            default:
+                throw new IOException("Unknown record type " + type + " at offset " + offset + " of " + file);
+        }
+    }
+
+    static VehicleType vehicleType(byte ordinal) {
+        VehicleType[] types = VehicleType.values();
+        return ordinal >= 0 && ordinal < types.length ? types[ordinal] : VehicleType.OTHER;
+    }
+
+    private static byte[] plateBytes(String licensePlate) {
+        byte[] plate = licensePlate.getBytes(StandardCharsets.UTF_8);
+        if (plate.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("License plate too long to journal: " + plate.length + " bytes");
+        }
+        return plate;
+    }
+
+    private static ByteBuffer putPlate(ByteBuffer out, byte[] plate) {
+        return out.putShort((short) plate.length).put(plate);
+    }
+
+    private static String getPlate(ByteBuffer in) {
+        byte[] plate = new byte[in.getShort()];
+        in.get(plate);
+        return new String(plate, StandardCharsets.UTF_8);
+    }
+
+    // Reserves room for a record whose fields take fieldBytes, plus the
+    // plate's length prefix, and starts it with its type. Under lock.
+    //
+    // Records are appended from the middle of a park or exit, where an
+    // exception would leave the lot half-updated, so a closed or failed
+    // journal takes records without complaint and commit() reports it. Such
+    // records go to the rejected buffer; records already in pending are
+    // left for the flusher.
+    private ByteBuffer begin(byte type, int fieldBytes) {
+        int recordBytes = 4 + 1 + fieldBytes + 2 + 4;
+        if (closed || failure != null) {
+            if (rejected.capacity() < recordBytes) rejected = ByteBuffer.allocate(recordBytes);
+            rejected.clear();
+            recordStart = 0;
+            return rejected.putInt(0).put(type);
+        }
+        if (pending.remaining() < recordBytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + recordBytes));
+            pending.flip();
+            pending = grown.put(pending);
+        }
+        recordStart = pending.position();
+        return pending.putInt(0).put(type);
+    }
+
+    // Fills in the body length, appends its CRC and wakes the flusher. Under lock.
+    private void finish(ByteBuffer out) {
+        int bodyStart = recordStart + 4;
+        int length = out.position() - bodyStart;
+        out.putInt(recordStart, length);
+        crc.reset();
+        crc.update(out.array(), bodyStart, length);
+        out.putInt((int) crc.getValue());
+        if (out == rejected) return;
+        appendedOffset += 4 + length + 4;
+        records++;
+        appended.signal();
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchEnd;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) return;
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                batchEnd = appendedOffset;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) channel.write(batch);
+                channel.force(false);
+                batch.clear();
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    synced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durableOffset = batchEnd;
+                syncs++;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package journal;
+
+import algorithms.queue.WaitingQueue;
+import models.LotCounters;
+import models.ParkingSlot;
+import models.SlotStore;
+import models.Ticket;
+import models.Vehicle;
+import models.VehicleType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+// A lot's full state in one memory-mapped file: the slot table as columns,
+// the occupancy bits, one fixed-width row per active ticket with a plate
+// hash index over them, the waiting queue in order, and the counters. A
+// restart maps the file, copies the slot columns straight into a SlotStore
+// and answers plate lookups from the mapped rows, so nothing is parsed or
+// allocated per vehicle until that vehicle is touched.
+//
+// What a restart does read in full is memory-speed work over flat arrays:
+// open() runs one CRC32C over the mapping, and loadSlots() bulk-copies the
+// slot columns, since the free-slot heaps need every slot before the first
+// park. Neither allocates per slot or per ticket.
+//
+// Layout, every section 8-byte aligned after a 64-byte header:
+//   slot ids int[n], distances int[n], types byte[n], occupant flags byte[n],
+//   occupancy bits long[(n + 63) / 64], ticket row by slot int[n] (-1 none),
+//   ticket rows [32 bytes] x t, plate index int[buckets] (row + 1, 0 empty),
+//   queue rows [16 bytes] x q, plate bytes (UTF-8, referenced by the rows).
+// The header ends with a CRC32C of everything after it; the file is written
+// aside and renamed into place, so a reader sees a whole snapshot or none.
+public final class LotSnapshot {
+    private static final int MAGIC = 0x53505331;  // "SPS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int TICKET_ROW_BYTES = 32;
+    private static final int QUEUE_ROW_BYTES = 16;
+    private static final int NO_ROW = -1;
+
+    // Header fields.
+    private static final int AT_SLOTS = 8;
+    private static final int AT_QUEUE_CAPACITY = 12;
+    private static final int AT_TICKETS = 16;
+    private static final int AT_WAITING = 20;
+    private static final int AT_BUCKETS = 24;
+    private static final int AT_PLATE_BYTES = 28;
+    private static final int AT_JOURNAL_POSITION = 32;
+    private static final int AT_LAST_TICKET = 40;
+    private static final int AT_REVENUE = 48;
+    private static final int AT_SERVED = 56;
+    private static final int AT_CRC = 60;
+
+    // Ticket row fields.
+    private static final int ROW_TICKET_ID = 0;
+    private static final int ROW_ENTRY = 8;
+    private static final int ROW_PLATE_AT = 16;
+    private static final int ROW_PLATE_HASH = 20;
+    private static final int ROW_SLOT = 24;
+    private static final int ROW_PLATE_LENGTH = 28;
+    private static final int ROW_FLAGS = 30;
+    private static final int ROW_TYPE = 31;
+
+    // Queue row fields.
+    private static final int WAIT_ENQUEUED = 0;
+    private static final int WAIT_PLATE_AT = 8;
+    private static final int WAIT_PLATE_LENGTH = 12;
+    private static final int WAIT_FLAGS = 14;
+    private static final int WAIT_TYPE = 15;
+
+    private final Path file;
+    private final ByteBuffer map;
+    private final Layout layout;
+    private final int totalSlots;
+    private final int ticketCount;
+    private final int waitingCount;
+    private final int bucketMask;
+
+    // Section offsets for a snapshot of the given counts. end is a long so
+    // that an oversized lot is caught before anything is mapped.
+    private static final class Layout {
+        final int slotIdsAt;
+        final int distancesAt;
+        final int typesAt;
+        final int flagsAt;
+        final int bitsAt;
+        final int rowBySlotAt;
+        final int ticketsAt;
+        final int indexAt;
+        final int queueAt;
+        final int platesAt;
+        final long end;
+
+        Layout(int slots, int tickets, int buckets, int waiting, long plateBytes) {
+            long at = HEADER_BYTES;
+            slotIdsAt = (int) at;
+            distancesAt = (int) (at = align(at + 4L * slots));
+            typesAt = (int) (at = align(at + 4L * slots));
+            flagsAt = (int) (at += slots);
+            bitsAt = (int) (at = align(at + slots));
+            rowBySlotAt = (int) (at += 8L * words(slots));
+            ticketsAt = (int) (at = align(at + 4L * slots));
+            indexAt = (int) (at += (long) TICKET_ROW_BYTES * tickets);
+            queueAt = (int) (at = align(at + 4L * buckets));
+            platesAt = (int) (at += (long) QUEUE_ROW_BYTES * waiting);
+            end = at + plateBytes;
+        }
+    }
+
+    private LotSnapshot(Path file, ByteBuffer map) throws IOException {
+        this.file = file;
+        this.map = map;
+        if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+            throw new IOException("Not a parking lot snapshot: " + file);
+        }
+        if (map.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format " + map.getInt(4) + " in " + file);
+        }
+        this.totalSlots = map.getInt(AT_SLOTS);
+        this.ticketCount = map.getInt(AT_TICKETS);
+        this.waitingCount = map.getInt(AT_WAITING);
+        int buckets = map.getInt(AT_BUCKETS);
+        this.bucketMask = buckets - 1;
+        this.layout = new Layout(totalSlots, ticketCount, buckets, waitingCount, map.getInt(AT_PLATE_BYTES));
+        if (layout.end != map.capacity()) {
+            throw new IOException("Snapshot " + file + " is " + map.capacity() + " bytes, its header says "
+                + layout.end);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(map.duplicate().position(HEADER_BYTES));
+        if ((int) crc.getValue() != map.getInt(AT_CRC)) {
+            throw new IOException("Snapshot " + file + " fails its checksum");
+        }
+    }
+
+    // Maps a snapshot read-only and checks it whole. The mapping stays valid
+    // after the channel is closed and lives until this object is dropped.
+    public static LotSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is too large to map: " + channel.size() + " bytes");
+            }
+            return new LotSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Writes the given lot state through a read-write mapping of a file
+    // beside file, forces it to disk and renames it over file. The caller
+    // keeps the lot quiet while this runs; occupiedSlots names each active
+    // ticket's current slot, which the ticket itself does not follow.
+    public static void write(Path file, SlotStore slots, Map<String, ParkingSlot> occupiedSlots,
+                             Map<String, Ticket> activeTickets, WaitingQueue waitingQueue, long lastTicketId,
+                             LotCounters counters, long journalPosition) throws IOException {
+        int n = slots.size();
+        List<Ticket> tickets = new ArrayList<>(activeTickets.size());
+        List<ParkingSlot> ticketSlots = new ArrayList<>(activeTickets.size());
+        for (Map.Entry<String, ParkingSlot> entry : occupiedSlots.entrySet()) {
+            Ticket ticket = activeTickets.get(entry.getKey());
+            if (ticket == null) continue;
+            tickets.add(ticket);
+            ticketSlots.add(entry.getValue());
+        }
+        List<WaitingQueue.Waiter> waiting = waitingQueue.waiters();
+
+        byte[][] ticketPlates = new byte[tickets.size()][];
+        byte[][] waitingPlates = new byte[waiting.size()][];
+        long plateBytes = 0;
+        for (int i = 0; i < ticketPlates.length; i++) {
+            ticketPlates[i] = plateBytes(tickets.get(i).getVehicle().getLicensePlate());
+            plateBytes += ticketPlates[i].length;
+        }
+        for (int i = 0; i < waitingPlates.length; i++) {
+            waitingPlates[i] = plateBytes(waiting.get(i).getVehicle().getLicensePlate());
+            plateBytes += waitingPlates[i].length;
+        }
+        // At most half full, so a probe for an absent plate ends quickly.
+        int buckets = Integer.highestOneBit(Math.max(1, tickets.size() * 2 - 1)) << 1;
+        Layout layout = new Layout(n, tickets.size(), buckets, waiting.size(), plateBytes);
+        if (layout.end > Integer.MAX_VALUE) {
+            throw new IOException("Lot state is too large for one snapshot: " + layout.end + " bytes");
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.end);
+            out.putInt(0, MAGIC).putInt(4, FORMAT_VERSION)
+               .putInt(AT_SLOTS, n).putInt(AT_QUEUE_CAPACITY, waitingQueue.getCapacity())
+               .putInt(AT_TICKETS, tickets.size()).putInt(AT_WAITING, waiting.size())
+               .putInt(AT_BUCKETS, buckets).putInt(AT_PLATE_BYTES, (int) plateBytes)
+               .putLong(AT_JOURNAL_POSITION, journalPosition).putLong(AT_LAST_TICKET, lastTicketId)
+               .putLong(AT_REVENUE, counters.revenuePaise()).putInt(AT_SERVED, counters.vehiclesServed());
+
+            long[] bits = new long[words(n)];
+            for (int i = 0; i < n; i++) {
+                out.putInt(layout.slotIdsAt + 4 * i, slots.getSlotId(i));
+                out.putInt(layout.distancesAt + 4 * i, slots.getDistance(i));
+                out.put(layout.typesAt + i, (byte) slots.getTypeOrdinal(i));
+                out.put(layout.flagsAt + i, (byte) slots.getOccupantFlags(i));
+                out.putInt(layout.rowBySlotAt + 4 * i, NO_ROW);
+                if (slots.isOccupied(i)) bits[i >>> 6] |= 1L << i;
+            }
+            for (int w = 0; w < bits.length; w++) {
+                out.putLong(layout.bitsAt + 8 * w, bits[w]);
+            }
+
+            int plateAt = layout.platesAt;
+            for (int row = 0; row < tickets.size(); row++) {
+                Ticket ticket = tickets.get(row);
+                Vehicle vehicle = ticket.getVehicle();
+                int slot = ticketSlots.get(row).getIndex();
+                int hash = vehicle.getLicensePlate().hashCode();
+                int at = layout.ticketsAt + TICKET_ROW_BYTES * row;
+                out.putLong(at + ROW_TICKET_ID, ticket.getId())
+                   .putLong(at + ROW_ENTRY, ticket.getEntryMillis())
+                   .putInt(at + ROW_PLATE_AT, plateAt - layout.platesAt)
+                   .putInt(at + ROW_PLATE_HASH, hash)
+                   .putInt(at + ROW_SLOT, slot)
+                   .putShort(at + ROW_PLATE_LENGTH, (short) ticketPlates[row].length)
+                   .put(at + ROW_FLAGS, (byte) vehicle.getFlags())
+                   .put(at + ROW_TYPE, (byte) vehicle.getVehicleType().ordinal());
+                out.put(plateAt, ticketPlates[row]);
+                plateAt += ticketPlates[row].length;
+                out.putInt(layout.rowBySlotAt + 4 * slot, row);
+
+                int bucket = spread(hash) & (buckets - 1);
+                while (out.getInt(layout.indexAt + 4 * bucket) != 0) {
+                    bucket = (bucket + 1) & (buckets - 1);
+                }
+                out.putInt(layout.indexAt + 4 * bucket, row + 1);
+            }
+            for (int i = 0; i < waiting.size(); i++) {
+                Vehicle vehicle = waiting.get(i).getVehicle();
+                int at = layout.queueAt + QUEUE_ROW_BYTES * i;
+                out.putLong(at + WAIT_ENQUEUED, waiting.get(i).getEnqueuedAtMillis())
+                   .putInt(at + WAIT_PLATE_AT, plateAt - layout.platesAt)
+                   .putShort(at + WAIT_PLATE_LENGTH, (short) waitingPlates[i].length)
+                   .put(at + WAIT_FLAGS, (byte) vehicle.getFlags())
+                   .put(at + WAIT_TYPE, (byte) vehicle.getVehicleType().ordinal());
+                out.put(plateAt, waitingPlates[i]);
+                plateAt += waitingPlates[i].length;
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(out.duplicate().position(HEADER_BYTES));
+            out.putInt(AT_CRC, (int) crc.getValue());
+            out.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Bulk-copies the slot columns and occupancy bits into an empty store.
+    public void loadSlots(SlotStore store) {
+        int[] slotIds = new int[totalSlots];
+        int[] distances = new int[totalSlots];
+        byte[] types = new byte[totalSlots];
+        byte[] occupantFlags = new byte[totalSlots];
+        long[] bits = new long[words(totalSlots)];
+        map.duplicate().position(layout.slotIdsAt).asIntBuffer().get(slotIds);
+        map.duplicate().position(layout.distancesAt).asIntBuffer().get(distances);
+        map.get(layout.typesAt, types);
+        map.get(layout.flagsAt, occupantFlags);
+        map.duplicate().position(layout.bitsAt).asLongBuffer().get(bits);
+        store.load(slotIds, types, distances, occupantFlags, bits);
+    }
+
+    // Row of the active ticket for a plate, or -1. One hash probe into the
+    // mapped index; the plate bytes are compared only on a hash match.
+    public int findTicket(String licensePlate) {
+        if (ticketCount == 0) return NO_ROW;
+        int hash = licensePlate.hashCode();
+        byte[] plate = null;
+        for (int bucket = spread(hash) & bucketMask; ; bucket = (bucket + 1) & bucketMask) {
+            int row = map.getInt(layout.indexAt + 4 * bucket) - 1;
+            if (row < 0) return NO_ROW;
+            int at = layout.ticketsAt + TICKET_ROW_BYTES * row;
+            if (map.getInt(at + ROW_PLATE_HASH) != hash) continue;
+            if (plate == null) plate = licensePlate.getBytes(StandardCharsets.UTF_8);
+            if (plateEquals(at + ROW_PLATE_AT, at + ROW_PLATE_LENGTH, plate)) return row;
+        }
+    }
+
+    // Row of the ticket parked in a slot, or -1.
+    public int ticketRowOfSlot(int slotIndex) {
+        return map.getInt(layout.rowBySlotAt + 4 * slotIndex);
+    }
+
+    public long getTicketId(int row) {
+        return map.getLong(layout.ticketsAt + TICKET_ROW_BYTES * row + ROW_TICKET_ID);
+    }
+
+    public long getEntryMillis(int row) {
+        return map.getLong(layout.ticketsAt + TICKET_ROW_BYTES * row + ROW_ENTRY);
+    }
+
+    public int getSlotIndex(int row) {
+        return map.getInt(layout.ticketsAt + TICKET_ROW_BYTES * row + ROW_SLOT);
+    }
+
+    // The parked vehicle as it entered, built fresh on each call.
+    public Vehicle getVehicle(int row) {
+        int at = layout.ticketsAt + TICKET_ROW_BYTES * row;
+        Vehicle vehicle = vehicle(readPlate(at + ROW_PLATE_AT, at + ROW_PLATE_LENGTH),
+            map.get(at + ROW_TYPE), map.get(at + ROW_FLAGS));
+        vehicle.setEntryTime(getEntryMillis(row));
+        return vehicle;
+    }
+
+    public Vehicle getWaitingVehicle(int position) {
+        int at = layout.queueAt + QUEUE_ROW_BYTES * position;
+        return vehicle(readPlate(at + WAIT_PLATE_AT, at + WAIT_PLATE_LENGTH),
+            map.get(at + WAIT_TYPE), map.get(at + WAIT_FLAGS));
+    }
+
+    public long getWaitingSince(int position) {
+        return map.getLong(layout.queueAt + QUEUE_ROW_BYTES * position + WAIT_ENQUEUED);
+    }
+
+    public Path getFile() { return file; }
+    public int getTotalSlots() { return totalSlots; }
+    public int getQueueCapacity() { return map.getInt(AT_QUEUE_CAPACITY); }
+    public int getTicketCount() { return ticketCount; }
+    public int getWaitingCount() { return waitingCount; }
+    public long getJournalPosition() { return map.getLong(AT_JOURNAL_POSITION); }
+    public long getLastTicketId() { return map.getLong(AT_LAST_TICKET); }
+    public long getRevenuePaise() { return map.getLong(AT_REVENUE); }
+    public int getVehiclesServed() { return map.getInt(AT_SERVED); }
+
+    private boolean plateEquals(int offsetAt, int lengthAt, byte[] plate) {
+        if (map.getShort(lengthAt) != plate.length) return false;
+        int from = layout.platesAt + map.getInt(offsetAt);
+        for (int i = 0; i < plate.length; i++) {
+            if (map.get(from + i) != plate[i]) return false;
+        }
+        return true;
+    }
+
+    private String readPlate(int offsetAt, int lengthAt) {
+        byte[] plate = new byte[map.getShort(lengthAt)];
+        map.get(layout.platesAt + map.getInt(offsetAt), plate);
+        return new String(plate, StandardCharsets.UTF_8);
+    }
+
+    private static Vehicle vehicle(String licensePlate, byte vehicleType, int vehicleFlags) {
+        VehicleType type = EventJournal.vehicleType(vehicleType);
+        return new Vehicle(licensePlate, type,
+            (vehicleFlags & Vehicle.FLAG_VIP) != 0, (vehicleFlags & Vehicle.FLAG_ELECTRIC) != 0);
+    }
+
+    private static byte[] plateBytes(String licensePlate) {
+        byte[] plate = licensePlate.getBytes(StandardCharsets.UTF_8);
+        if (plate.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("License plate too long to snapshot: " + plate.length + " bytes");
+        }
+        return plate;
+    }
+
+    // Folds the high half of String.hashCode into the low bits the index
+    // mask keeps.
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int words(int slots) {
+        return (slots + 63) >>> 6;
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
@@ -0,0 +1,145 @@
+package models;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Striped counters for the hot park/exit paths. Writers never block each
+// other; revenue is kept in whole paise so sums never drift.
+//
+// Each update is bracketed by two striped sequence counters, started and
+// finished. snapshot() reads finished, then started, and only when they
+// agree (no update in flight) reads the figures, then started again; if no
+// update began meanwhile, the figures are one consistent state. Readers
+// never hold writers back: after READ_ATTEMPTS failed tries under constant
+// traffic the snapshot is built from plain per-counter sums and marked not
+// consistent. The single figure getters read without that dance and may
+// land inside an update.
+public class LotCounters {
+    private static final int READ_ATTEMPTS = 256;
+
+    private final LongAdder[] occupiedByType;
+    private final LongAdder vehiclesServed;
+    private final LongAdder revenuePaise;
+    private final LongAdder writesStarted;
+    private final LongAdder writesFinished;
+
+    public LotCounters() {
+        this.occupiedByType = new LongAdder[SlotType.count()];
+        for (int type = 0; type < occupiedByType.length; type++) {
+            occupiedByType[type] = new LongAdder();
+        }
+        this.vehiclesServed = new LongAdder();
+        this.revenuePaise = new LongAdder();
+        this.writesStarted = new LongAdder();
+        this.writesFinished = new LongAdder();
+    }
+
+    public void recordPark(SlotType slotType) {
+        beginWrite();
+        try {
+            occupiedByType[slotType.ordinal()].increment();
+        } finally {
+            writesFinished.increment();
+        }
+    }
+
+    public void recordExit(SlotType slotType, long pricePaise) {
+        beginWrite();
+        try {
+            occupiedByType[slotType.ordinal()].decrement();
+            vehiclesServed.increment();
+            revenuePaise.add(pricePaise);
+        } finally {
+            writesFinished.increment();
+        }
+    }
+
+    // Decrements first, so an unsynchronized occupied() never counts the
+    // moving car twice.
+    public void recordMove(SlotType from, SlotType to) {
+        if (from == to) return;
+        beginWrite();
+        try {
+            occupiedByType[from.ordinal()].decrement();
+            occupiedByType[to.ordinal()].increment();
+        } finally {
+            writesFinished.increment();
+        }
+    }
+
+    // Seeds the counters of a lot restored from a snapshot, before it takes
+    // traffic.
+    public void restore(int[] occupiedByType, int vehiclesServed, long revenuePaise) {
+        beginWrite();
+        try {
+            for (int type = 0; type < occupiedByType.length; type++) {
+                this.occupiedByType[type].add(occupiedByType[type]);
+            }
+            this.vehiclesServed.add(vehiclesServed);
+            this.revenuePaise.add(revenuePaise);
+        } finally {
+            writesFinished.increment();
+        }
+    }
+
+    private void beginWrite() {
+        writesStarted.increment();
+    }
+
+    public int occupied() {
+        long total = 0;
+        for (LongAdder adder : occupiedByType) {
+            total += adder.sum();
+        }
+        return (int) total;
+    }
+
+    public int occupied(SlotType slotType) {
+        return (int) occupiedByType[slotType.ordinal()].sum();
+    }
+
+    public int vehiclesServed() {
+        return (int) vehiclesServed.sum();
+    }
+
+    public long revenuePaise() {
+        return revenuePaise.sum();
+    }
+
+    // All counter figures as of one moment between updates, or, if every
+    // try overlapped an update, each figure as of its own read, with
+    // isConsistent() false. The waiting count comes from the queue and is
+    // passed in.
+    public LotStatsSnapshot snapshot(int totalSlots, int waitingVehicles) {
+        int[] byType = new int[occupiedByType.length];
+        long[] totals = new long[2];
+        boolean consistent = tryRead(byType, totals);
+        for (int attempt = 1; !consistent && attempt < READ_ATTEMPTS; attempt++) {
+            Thread.onSpinWait();
+            consistent = tryRead(byType, totals);
+        }
+        if (!consistent) {
+            readFigures(byType, totals);
+        }
+        return new LotStatsSnapshot(totalSlots, byType, (int) totals[0], totals[1], waitingVehicles, consistent);
+    }
+
+    // Fills byType and {served, revenue}; false if an update overlapped.
+    // The sequence sums only grow, so finished == started means no update
+    // was in flight when started was read, and an unchanged started
+    // afterwards means none began while the figures were read.
+    private boolean tryRead(int[] byType, long[] totals) {
+        long finished = writesFinished.sum();
+        long started = writesStarted.sum();
+        if (started != finished) return false;
+        readFigures(byType, totals);
+        return writesStarted.sum() == started;
+    }
+
+    private void readFigures(int[] byType, long[] totals) {
+        for (int type = 0; type < byType.length; type++) {
+            byType[type] = (int) occupiedByType[type].sum();
+        }
+        totals[0] = vehiclesServed.sum();
+        totals[1] = revenuePaise.sum();
+    }
+}
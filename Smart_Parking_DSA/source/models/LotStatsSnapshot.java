@@ -0,0 +1,82 @@
+package models;
+
+import java.util.Arrays;
+
+// Immutable view of the lot counters. When isConsistent(), LotCounters
+// read every figure at one moment between updates; otherwise traffic never
+// let up long enough and each figure was read on its own, so served and
+// revenue, or two slot types, may straddle an exit or a move. The total
+// occupancy is derived from the per-type figures either way.
+public class LotStatsSnapshot {
+    private final int totalSlots;
+    private final int[] occupiedByType;
+    private final int occupied;
+    private final int vehiclesServed;
+    private final long revenuePaise;
+    private final int waitingVehicles;
+    private final boolean consistent;
+
+    public LotStatsSnapshot(int totalSlots, int[] occupiedByType, int vehiclesServed,
+                            long revenuePaise, int waitingVehicles) {
+        this(totalSlots, occupiedByType, vehiclesServed, revenuePaise, waitingVehicles, true);
+    }
+
+    public LotStatsSnapshot(int totalSlots, int[] occupiedByType, int vehiclesServed,
+                            long revenuePaise, int waitingVehicles, boolean consistent) {
+        this.totalSlots = totalSlots;
+        this.occupiedByType = occupiedByType.clone();
+        this.vehiclesServed = vehiclesServed;
+        this.revenuePaise = revenuePaise;
+        this.waitingVehicles = waitingVehicles;
+        this.consistent = consistent;
+
+        int sum = 0;
+        for (int count : occupiedByType) {
+            sum += count;
+        }
+        this.occupied = sum;
+    }
+
+    public int getTotalSlots() {
+        return totalSlots;
+    }
+
+    public int getOccupied() {
+        return occupied;
+    }
+
+    public int getOccupied(SlotType slotType) {
+        return occupiedByType[slotType.ordinal()];
+    }
+
+    public double getOccupancyRate() {
+        return totalSlots == 0 ? 0.0 : (double) occupied / totalSlots;
+    }
+
+    public int getVehiclesServed() {
+        return vehiclesServed;
+    }
+
+    public long getRevenuePaise() {
+        return revenuePaise;
+    }
+
+    public double getRevenue() {
+        return revenuePaise / 100.0;
+    }
+
+    public int getWaitingVehicles() {
+        return waitingVehicles;
+    }
+
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LotStats[occupied=%d/%d %s, served=%d, revenue=%s, waiting=%d%s]",
+            occupied, totalSlots, Arrays.toString(occupiedByType), vehiclesServed, Money.format(revenuePaise),
+            waitingVehicles, consistent ? "" : ", not atomic");
+    }
+}
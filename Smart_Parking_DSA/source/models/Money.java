@@ -0,0 +1,37 @@
+package models;
+
+import java.math.BigDecimal;
+
+// Amounts of money are longs counting paise. Rupee text and doubles appear
+// only at the edges: parsing rate cards and printing.
+public final class Money {
+    public static final long PAISE_PER_RUPEE = 100;
+
+    private Money() {
+    }
+
+    // Nearest paisa to a rupee amount.
+    public static long ofRupees(double rupees) {
+        return Math.round(rupees * PAISE_PER_RUPEE);
+    }
+
+    // Parses "50", "49.5" or "49.99" exactly; finer fractions are rejected.
+    public static long parse(String rupees) {
+        try {
+            return new BigDecimal(rupees.trim()).movePointRight(2).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Not an amount in whole paise: " + rupees);
+        }
+    }
+
+    public static double toRupees(long paise) {
+        return paise / (double) PAISE_PER_RUPEE;
+    }
+
+    // "Rs1234.05", built from the integer parts so no rounding can creep in.
+    public static String format(long paise) {
+        long whole = Math.abs(paise / PAISE_PER_RUPEE);
+        long fraction = Math.abs(paise % PAISE_PER_RUPEE);
+        return (paise < 0 ? "-Rs" : "Rs") + whole + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
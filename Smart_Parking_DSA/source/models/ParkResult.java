@@ -0,0 +1,70 @@
+package models;
+
+// Outcome of ParkingLot.parkVehicle. A full lot with a full waiting queue is
+// reported as REJECTED_FULL so the gate can turn the car away instead of the
+// queue growing without limit.
+public final class ParkResult {
+    private static final ParkResult REJECTED_FULL = new ParkResult(ParkStatus.REJECTED_FULL, null, -1);
+    private static final ParkResult ALREADY_PARKED = new ParkResult(ParkStatus.ALREADY_PARKED, null, -1);
+    private static final ParkResult ALREADY_QUEUED = new ParkResult(ParkStatus.ALREADY_QUEUED, null, -1);
+
+    private final ParkStatus status;
+    private final Ticket ticket;
+    private final int queuePosition;
+
+    private ParkResult(ParkStatus status, Ticket ticket, int queuePosition) {
+        this.status = status;
+        this.ticket = ticket;
+        this.queuePosition = queuePosition;
+    }
+
+    public static ParkResult parked(Ticket ticket) {
+        return new ParkResult(ParkStatus.PARKED, ticket, -1);
+    }
+
+    public static ParkResult queued(int position) {
+        return new ParkResult(ParkStatus.QUEUED, null, position);
+    }
+
+    public static ParkResult rejectedFull() {
+        return REJECTED_FULL;
+    }
+
+    public static ParkResult alreadyParked() {
+        return ALREADY_PARKED;
+    }
+
+    public static ParkResult alreadyQueued() {
+        return ALREADY_QUEUED;
+    }
+
+    public ParkStatus getStatus() {
+        return status;
+    }
+
+    public boolean isParked() {
+        return status == ParkStatus.PARKED;
+    }
+
+    // Null unless the vehicle was parked.
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    // 1-based position in the waiting queue when QUEUED, otherwise -1.
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+
+    @Override
+    public String toString() {
+        switch (status) {
+            case PARKED:
+                return "PARKED " + ticket.getTicketId();
+            case QUEUED:
+                return "QUEUED #" + queuePosition;
+            default:
+                return status.name();
+        }
+    }
+}
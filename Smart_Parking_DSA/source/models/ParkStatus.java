@@ -0,0 +1,9 @@
+package models;
+
+public enum ParkStatus {
+    PARKED,
+    QUEUED,
+    REJECTED_FULL,
+    ALREADY_PARKED,
+    ALREADY_QUEUED
+}
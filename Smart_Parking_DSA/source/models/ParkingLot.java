@@ -1,60 +1,255 @@
 package models;
 
+import algorithms.allocation.SegregatedSlotHeaps;
+import algorithms.pricing.PricingTable;
+import algorithms.pricing.RateCard;
+import algorithms.pricing.RateCardWatcher;
+import algorithms.queue.WaitTimeHistogram;
+import algorithms.queue.WaitingQueue;
+import analytics.TicketAnalytics;
+import analytics.TicketStats;
+import archive.TicketArchive;
+import clock.CachedTickClock;
+import clock.EpochClock;
+import events.ParkingEventListener;
+import events.RejectReason;
+import journal.EventJournal;
+import journal.LotSnapshot;
 import java.util.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
+// Safe for concurrent use by many entry/exit gates. Slot heaps are locked per
+// slot type; a plate is claimed through activeTickets.putIfAbsent on entry and
+// through occupiedSlots.remove on exit, so each car parks and leaves once.
 public class ParkingLot {
-    private PriorityQueue<ParkingSlot> availableSlots;
-    private HashMap<String, ParkingSlot> occupiedSlots;
-    private HashMap<String, Ticket> activeTickets;
-    private Queue<Vehicle> waitingQueue;
-    private String lotId;
-    private int totalSlots;
-    private int occupiedCount;
-    private int vipSlots;
-    private int evSlots;
-    private double totalRevenue;
-    private int totalVehiclesServed;
-    private static final double BASE_RATE = 50.0;
-    private static final double VIP_RATE = 100.0;
-    private static final double EV_RATE = 80.0;
+    // Failed moves one optimizeParking pass passes over before it stops.
+    private static final int MAX_SKIPPED_MOVES = 16;
     
+    private final SlotStore slotStore;
+    private final SegregatedSlotHeaps availableSlots;
+    private final ConcurrentHashMap<String, ParkingSlot> occupiedSlots;
+    private final ConcurrentHashMap<String, Ticket> activeTickets;
+    private final WaitingQueue waitingQueue;
+    private final int lotNumber;
+    private final String lotId;
+    private final int totalSlots;
+    private final int vipSlots;
+    private final int evSlots;
+    private final LotCounters counters;
+    private final TicketIdGenerator ticketIds;
+    // Copy-on-write: a new rate card is compiled aside and swapped in whole,
+    // and each exit prices against the one table it read.
+    private final AtomicReference<PricingTable> pricingTable;
+    private final EpochClock clock;
+    private volatile ParkingEventListener listener;
+    // Null until openJournal. Parks, exits and moves are appended before the
+    // change becomes visible to other gates; the waiting queue journals its
+    // own changes under its lock.
+    private volatile EventJournal journal;
+    // Journal position the lot's state was restored at; records before it are
+    // already reflected and are not replayed again.
+    private long journalPosition;
+    // Set while a restored lot still has snapshot tickets not yet turned
+    // into objects; null once all are loaded.
+    private volatile SnapshotTickets snapshotTickets;
+    // Null until openArchive. Paid tickets are appended as they exit;
+    // journal replay rebuilds state, not history, and appends nothing.
+    private volatile TicketArchive archive;
+    
+    // The waiting queue defaults to one place per slot.
     public ParkingLot(int totalSlots) {
-        this.lotId = "LOT-" + (System.currentTimeMillis() % 1000);
+        this(totalSlots, Math.max(16, totalSlots));
+    }
+    
+    public ParkingLot(int totalSlots, int queueCapacity) {
+        this(totalSlots, queueCapacity, CachedTickClock.shared());
+    }
+    
+    // Every timestamp the lot records (entries, exits, queue waits, peak
+    // hours) is read from this clock. These constructors make lot number 1;
+    // lots that run side by side, as in a ParkingNetwork, must each be given
+    // their own number so their ticket ids stay apart.
+    public ParkingLot(int totalSlots, int queueCapacity, EpochClock clock) {
+        this(1, totalSlots, queueCapacity, clock);
+    }
+    
+    // A lot with a fixed number: its id is LOT-<lotNumber> and every ticket
+    // id carries the number, so lots with different numbers never issue the
+    // same ticket id.
+    public ParkingLot(int lotNumber, int totalSlots, int queueCapacity, EpochClock clock) {
+        this(totalSlots, queueCapacity, clock, lotNumber, null);
+    }
+    
+    private ParkingLot(int totalSlots, int queueCapacity, EpochClock clock, int lotNumber, LotSnapshot snapshot) {
+        this.clock = clock;
+        this.lotNumber = lotNumber;
+        this.lotId = "LOT-" + lotNumber;
+        this.ticketIds = new TicketIdGenerator(lotNumber);
         this.totalSlots = totalSlots;
-        this.occupiedCount = 0;
-        this.totalRevenue = 0.0;
-        this.totalVehiclesServed = 0;
+        this.counters = new LotCounters();
+        this.listener = ParkingEventListener.NONE;
         this.vipSlots = Math.max(1, (int)(totalSlots * 0.1));
         this.evSlots = Math.max(1, (int)(totalSlots * 0.2));
         
-        this.availableSlots = new PriorityQueue<>(
-            new Comparator<ParkingSlot>() {
-                @Override
-                public int compare(ParkingSlot s1, ParkingSlot s2) {
-                    int distanceCompare = Integer.compare(
-                        s1.getDistanceFromEntrance(), 
-                        s2.getDistanceFromEntrance()
-                    );
-                    if (distanceCompare == 0) {
-                        return getSlotPriority(s2) - getSlotPriority(s1);
-                    }
-                    return distanceCompare;
-                }
-                
-                private int getSlotPriority(ParkingSlot slot) {
-                    if (slot.getSlotType().equals("VIP")) return 3;
-                    if (slot.getSlotType().equals("EV_CHARGING")) return 2;
-                    return 1;
-                }
-            }
-        );
+        this.slotStore = new SlotStore(totalSlots);
+        this.pricingTable = new AtomicReference<>(new PricingTable(RateCard.defaults(), totalSlots));
+        publishSlotRates(RateCard.defaults());
+        this.availableSlots = new SegregatedSlotHeaps(slotStore);
         
-        this.occupiedSlots = new HashMap<>();
-        this.activeTickets = new HashMap<>();
-        this.waitingQueue = new LinkedList<>();
+        this.occupiedSlots = new ConcurrentHashMap<>();
+        this.activeTickets = new ConcurrentHashMap<>();
+        this.waitingQueue = new WaitingQueue(queueCapacity, clock);
         
-        initializeSlots();
-        System.out.println("Parking Lot '" + lotId + "' initialized with " + totalSlots + " slots");
+        if (snapshot == null) {
+            initializeSlots();
+        } else {
+            restoreFrom(snapshot);
+        }
+    }
+    
+    public static ParkingLot restore(Path file) throws IOException {
+        return restore(file, CachedTickClock.shared());
+    }
+    
+    // Brings back a lot saved by writeSnapshot. The slot table is copied in
+    // bulk from the mapped file and the heaps are built in one pass, so the
+    // lot takes traffic at once; each parked vehicle is turned into objects
+    // from its mapped ticket row the first time it is looked up, and a
+    // background thread loads the rest. Open the journal afterwards to
+    // replay what happened after the snapshot.
+    public static ParkingLot restore(Path file, EpochClock clock) throws IOException {
+        LotSnapshot snapshot = LotSnapshot.open(file);
+        return new ParkingLot(snapshot.getTotalSlots(), snapshot.getQueueCapacity(), clock,
+            TicketIdGenerator.lotNumberOf(snapshot.getLastTicketId()), snapshot);
+    }
+    
+    private void restoreFrom(LotSnapshot snapshot) {
+        snapshot.loadSlots(slotStore);
+        availableSlots.addAll();
+        
+        int[] occupiedByType = new int[SlotType.count()];
+        for (SlotType slotType : SlotType.values()) {
+            occupiedByType[slotType.ordinal()] = availableSlots.occupiedSize(slotType);
+        }
+        counters.restore(occupiedByType, snapshot.getVehiclesServed(), snapshot.getRevenuePaise());
+        ticketIds.advancePast(snapshot.getLastTicketId());
+        for (int i = 0; i < snapshot.getWaitingCount(); i++) {
+            waitingQueue.add(snapshot.getWaitingVehicle(i), snapshot.getWaitingSince(i));
+        }
+        journalPosition = snapshot.getJournalPosition();
+        
+        if (snapshot.getTicketCount() > 0) {
+            SnapshotTickets tickets = new SnapshotTickets(snapshot);
+            snapshotTickets = tickets;
+            Thread loader = new Thread(tickets::loadAll, "snapshot-loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+    }
+    
+    // Writes the lot's full state to file, for restore(). The lot must be
+    // quiet while this runs (at shutdown, or with the gates paused). With a
+    // journal open, the snapshot records the journal position it covers and
+    // the journal is then cut back to empty.
+    public void writeSnapshot(Path file) throws IOException {
+        loadSnapshot();
+        
+        EventJournal current = journal;
+        if (current != null) {
+            current.sync();
+            journalPosition = current.position();
+        }
+        LotSnapshot.write(file, slotStore, occupiedSlots, activeTickets, waitingQueue,
+            ticketIds.lastIssued(), counters, journalPosition);
+        if (current != null) current.checkpoint();
+    }
+    
+    // Loads, on the calling thread, whatever parked vehicles of a restored
+    // lot the background loader has not reached yet.
+    public void loadSnapshot() {
+        SnapshotTickets pending = snapshotTickets;
+        if (pending != null) pending.loadAll();
+    }
+    
+    // The parked vehicles of a restored lot, materialized on demand. Rows are
+    // loaded under this object's lock, at most once each: by a gate touching
+    // the plate or slot, or by the background loader.
+    private final class SnapshotTickets {
+        private static final int LOAD_BATCH = 1024;
+        private final LotSnapshot snapshot;
+        private final BitSet loaded;
+        private int remaining;
+        
+        SnapshotTickets(LotSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.loaded = new BitSet(snapshot.getTicketCount());
+            this.remaining = snapshot.getTicketCount();
+        }
+        
+        void loadPlate(String licensePlate) {
+            int row = snapshot.findTicket(licensePlate);
+            if (row >= 0) load(row, row + 1);
+        }
+        
+        void loadSlot(int slotIndex) {
+            int row = snapshot.ticketRowOfSlot(slotIndex);
+            if (row >= 0) load(row, row + 1);
+        }
+        
+        void loadAll() {
+            for (int from = 0; from < snapshot.getTicketCount() && snapshotTickets == this; from += LOAD_BATCH) {
+                load(from, Math.min(from + LOAD_BATCH, snapshot.getTicketCount()));
+            }
+        }
+        
+        // The slot was claimed and filed in the occupied heaps when the slot
+        // table was loaded; only the vehicle binding and the maps are new.
+        private synchronized void load(int from, int to) {
+            for (int row = loaded.nextClearBit(from); row < to; row = loaded.nextClearBit(row + 1)) {
+                loaded.set(row);
+                Vehicle vehicle = snapshot.getVehicle(row);
+                int index = snapshot.getSlotIndex(row);
+                ParkingSlot slot = slotStore.view(index);
+                slotStore.bindVehicle(index, vehicle);
+                activeTickets.put(vehicle.getLicensePlate(),
+                    new Ticket(snapshot.getTicketId(row), vehicle, slot, clock, snapshot.getEntryMillis(row)));
+                occupiedSlots.put(vehicle.getLicensePlate(), slot);
+                if (--remaining == 0) snapshotTickets = null;
+            }
+        }
+    }
+    
+    // Makes sure a plate still held only in the snapshot is in the lot's
+    // maps before they are read or changed for it.
+    private void loadFromSnapshot(String licensePlate) {
+        SnapshotTickets pending = snapshotTickets;
+        if (pending != null) pending.loadPlate(licensePlate);
+    }
+    
+    // A slot's parked vehicle, loading it from the snapshot if need be.
+    private Vehicle parkedVehicle(ParkingSlot slot) {
+        Vehicle vehicle = slot.getParkedVehicle();
+        if (vehicle != null) return vehicle;
+        SnapshotTickets pending = snapshotTickets;
+        if (pending == null) return null;
+        pending.loadSlot(slot.getIndex());
+        return slot.getParkedVehicle();
+    }
+    
+    public void setEventListener(ParkingEventListener listener) {
+        this.listener = listener == null ? ParkingEventListener.NONE : listener;
+    }
+    
+    public ParkingEventListener getEventListener() {
+        return listener;
+    }
+    
+    public EpochClock getClock() {
+        return clock;
     }
     
     private void initializeSlots() {
@@ -63,205 +258,643 @@ public class ParkingLot {
         
         for (int i = 0; i < vipSlots; i++) {
             int distance = 5 + rand.nextInt(20);
-            ParkingSlot slot = new ParkingSlot(slotNumber++, "VIP", distance, VIP_RATE);
-            availableSlots.add(slot);
+            availableSlots.add(slotStore.addSlot(slotNumber++, SlotType.VIP, distance));
         }
         
         for (int i = 0; i < evSlots; i++) {
             int distance = 15 + rand.nextInt(30);
-            ParkingSlot slot = new ParkingSlot(slotNumber++, "EV_CHARGING", distance, EV_RATE);
-            availableSlots.add(slot);
+            availableSlots.add(slotStore.addSlot(slotNumber++, SlotType.EV_CHARGING, distance));
         }
         
         while (slotNumber <= totalSlots) {
             int distance = 25 + rand.nextInt(50);
-            ParkingSlot slot = new ParkingSlot(slotNumber++, "REGULAR", distance, BASE_RATE);
-            availableSlots.add(slot);
+            availableSlots.add(slotStore.addSlot(slotNumber++, SlotType.REGULAR, distance));
         }
     }
     
-    public Ticket parkVehicle(Vehicle vehicle) {
-        System.out.println("\n[PARKING] Vehicle: " + vehicle.getLicensePlate() + 
-                         " Type: " + vehicle.getVehicleType() +
-                         (vehicle.isVIP() ? " [VIP]" : "") +
-                         (vehicle.isElectric() ? " [EV]" : ""));
-        
+    public ParkResult parkVehicle(Vehicle vehicle) {
+        return parkVehicle(vehicle, true);
+    }
+    
+    // With queueIfFull false a full lot answers REJECTED_FULL at once and
+    // reports no rejection, leaving the caller to try another lot; a car
+    // already waiting here gets ALREADY_QUEUED instead, so it is not sent
+    // on while it holds a place in line.
+    public ParkResult parkVehicle(Vehicle vehicle, boolean queueIfFull) {
+        loadFromSnapshot(vehicle.getLicensePlate());
         if (occupiedSlots.containsKey(vehicle.getLicensePlate())) {
-            System.out.println("  ERROR: Vehicle already parked!");
-            return null;
+            listener.onRejected(vehicle.getLicensePlate(), RejectReason.ALREADY_PARKED, -1);
+            return ParkResult.alreadyParked();
         }
         
-        ParkingSlot allocatedSlot = findSuitableSlot(vehicle);
+        ParkingSlot allocatedSlot = claimSuitableSlot(vehicle);
         
         if (allocatedSlot == null) {
-            waitingQueue.add(vehicle);
-            System.out.println("  WAITING: Parking full! Added to queue. Position: " + waitingQueue.size());
-            return null;
+            if (queueIfFull) return enqueue(vehicle);
+            return waitingQueue.contains(vehicle.getLicensePlate())
+                ? ParkResult.alreadyQueued() : ParkResult.rejectedFull();
         }
         
-        allocatedSlot.occupy(vehicle);
-        occupiedSlots.put(vehicle.getLicensePlate(), allocatedSlot);
-        availableSlots.remove(allocatedSlot);
-        occupiedCount++;
-        vehicle.setEntryTime();
+        Ticket ticket = completeParking(vehicle, allocatedSlot);
+        if (ticket == null) return ParkResult.alreadyParked();
+        commitJournal();
+        return ParkResult.parked(ticket);
+    }
+    
+    private ParkResult enqueue(Vehicle vehicle) {
+        int position = waitingQueue.add(vehicle);
+        if (position == WaitingQueue.FULL) {
+            listener.onRejected(vehicle.getLicensePlate(), RejectReason.QUEUE_FULL, -1);
+            return ParkResult.rejectedFull();
+        }
+        if (position == WaitingQueue.ALREADY_WAITING) {
+            listener.onRejected(vehicle.getLicensePlate(), RejectReason.ALREADY_QUEUED, -1);
+            return ParkResult.alreadyQueued();
+        }
+        listener.onQueued(vehicle, position);
+        commitJournal();
+        return ParkResult.queued(position);
+    }
+    
+    // A driver who gives up waiting. O(1) wherever the plate stands in line.
+    public boolean leaveQueue(String licensePlate) {
+        Vehicle vehicle = waitingQueue.remove(licensePlate);
+        if (vehicle == null) return false;
+        listener.onLeftQueue(vehicle);
+        commitJournal();
+        return true;
+    }
+    
+    // Parks a vehicle in a specific bay (valet, gate override). The CAS on the
+    // slot decides the race with the allocator; a gate that popped this slot
+    // from the heap and lost simply moves on to its next candidate.
+    public Ticket parkVehicleAt(Vehicle vehicle, int slotId) {
+        int index = slotStore.indexOfSlotId(slotId);
+        if (index < 0) {
+            listener.onRejected(vehicle.getLicensePlate(), RejectReason.UNKNOWN_SLOT, slotId);
+            return null;
+        }
         
-        Ticket ticket = new Ticket(vehicle, allocatedSlot);
-        activeTickets.put(vehicle.getLicensePlate(), ticket);
+        loadFromSnapshot(vehicle.getLicensePlate());
+        if (occupiedSlots.containsKey(vehicle.getLicensePlate())) {
+            listener.onRejected(vehicle.getLicensePlate(), RejectReason.ALREADY_PARKED, slotId);
+            return null;
+        }
         
-        System.out.println("  SUCCESS: Allocated Slot #" + allocatedSlot.getSlotId() +
-                         " [" + allocatedSlot.getSlotType() + "]" +
-                         " Distance: " + allocatedSlot.getDistanceFromEntrance() + "m");
-        System.out.println("  Ticket ID: " + ticket.getTicketId());
+        ParkingSlot slot = slotStore.view(index);
+        if (!slot.occupy(vehicle)) {
+            listener.onRejected(vehicle.getLicensePlate(), RejectReason.SLOT_UNAVAILABLE, slotId);
+            return null;
+        }
+        availableSlots.remove(slot);
         
+        Ticket ticket = completeParking(vehicle, slot);
+        if (ticket != null) commitJournal();
         return ticket;
     }
     
-    private ParkingSlot findSuitableSlot(Vehicle vehicle) {
-        List<ParkingSlot> checkedSlots = new ArrayList<>();
-        ParkingSlot foundSlot = null;
+    // Parks a burst of plate reads in one pass. Vehicles are bucketed by
+    // eligibility class (their flag word) and each class takes all of its slots
+    // from the heaps under a single lock acquisition. results[i] is what
+    // parkVehicle would have answered for vehicles.get(i): parked, queued
+    // (announced with onQueued), already parked or waiting, or rejected
+    // because the queue is full.
+    public ParkResult[] parkVehicles(List<Vehicle> vehicles) {
+        int n = vehicles.size();
+        ParkResult[] results = new ParkResult[n];
+        int classes = 1 << Vehicle.FLAG_BITS;
         
-        while (!availableSlots.isEmpty()) {
-            ParkingSlot slot = availableSlots.poll();
-            checkedSlots.add(slot);
+        int[] classStart = new int[classes + 1];
+        for (Vehicle vehicle : vehicles) {
+            loadFromSnapshot(vehicle.getLicensePlate());
+            classStart[vehicle.getFlags() + 1]++;
+        }
+        for (int c = 0; c < classes; c++) {
+            classStart[c + 1] += classStart[c];
+        }
+        int[] order = new int[n];
+        int[] next = Arrays.copyOf(classStart, classes);
+        for (int i = 0; i < n; i++) {
+            order[next[vehicles.get(i).getFlags()]++] = i;
+        }
+        
+        int[] slots = new int[n];
+        int parked = 0;
+        int queued = 0;
+        
+        for (int c = 0; c < classes; c++) {
+            int from = classStart[c];
+            int count = classStart[c + 1] - from;
+            if (count == 0) continue;
             
-            if (slot.isAvailableFor(vehicle)) {
-                foundSlot = slot;
-                break;
+            int taken = availableSlots.pollBestFor(c, count, slots, from);
+            for (int k = 0; k < count; k++) {
+                Vehicle vehicle = vehicles.get(order[from + k]);
+                ParkingSlot slot = null;
+                
+                if (k < taken) {
+                    slot = slotStore.view(slots[from + k]);
+                    if (!slot.occupy(vehicle)) {
+                        slot = claimSuitableSlot(vehicle);
+                    }
+                }
+                if (slot == null) {
+                    ParkResult result = queueFromBatch(vehicle);
+                    results[order[from + k]] = result;
+                    if (result.getStatus() == ParkStatus.QUEUED) queued++;
+                    continue;
+                }
+                
+                Ticket ticket = registerParking(vehicle, slot);
+                if (ticket == null) {
+                    results[order[from + k]] = ParkResult.alreadyParked();
+                    continue;
+                }
+                results[order[from + k]] = ParkResult.parked(ticket);
+                parked++;
             }
         }
         
-        availableSlots.addAll(checkedSlots);
-        return foundSlot;
+        listener.onBatchParked(parked, n, queued);
+        commitJournal();
+        return results;
     }
     
-    public double exitVehicle(String licensePlate) {
-        System.out.println("\n[EXITING] Vehicle: " + licensePlate);
-        
-        if (!occupiedSlots.containsKey(licensePlate)) {
-            System.out.println("  ERROR: Vehicle not found in parking lot!");
-            return 0.0;
-        }
-        
-        Ticket ticket = activeTickets.get(licensePlate);
+    // enqueue without the per-car rejections and journal commit; the batch
+    // reports its turn-aways in onBatchParked and commits once at the end.
+    private ParkResult queueFromBatch(Vehicle vehicle) {
+        if (occupiedSlots.containsKey(vehicle.getLicensePlate())) return ParkResult.alreadyParked();
+        int position = waitingQueue.add(vehicle);
+        if (position == WaitingQueue.FULL) return ParkResult.rejectedFull();
+        if (position == WaitingQueue.ALREADY_WAITING) return ParkResult.alreadyQueued();
+        listener.onQueued(vehicle, position);
+        return ParkResult.queued(position);
+    }
+    
+    private Ticket completeParking(Vehicle vehicle, ParkingSlot allocatedSlot) {
+        Ticket ticket = registerParking(vehicle, allocatedSlot);
         if (ticket == null) {
-            System.out.println("  ERROR: No active ticket found!");
-            return 0.0;
+            listener.onRejected(vehicle.getLicensePlate(), RejectReason.ALREADY_PARKED, -1);
+            return null;
         }
         
-        ParkingSlot slot = occupiedSlots.get(licensePlate);
-        double price = calculatePrice(ticket, slot);
-        ticket.completePayment(price);
-        totalRevenue += price;
-        totalVehiclesServed++;
+        listener.onParked(vehicle, allocatedSlot, ticket);
+        return ticket;
+    }
+    
+    // Publishes a claimed slot. Returns null, and hands the slot back, if
+    // another gate has parked the same plate in the meantime.
+    private Ticket registerParking(Vehicle vehicle, ParkingSlot allocatedSlot) {
+        loadFromSnapshot(vehicle.getLicensePlate());
+        long now = clock.millis();
+        Ticket ticket = new Ticket(ticketIds.next(), vehicle, allocatedSlot, clock, now);
         
-        slot.vacate();
-        occupiedSlots.remove(licensePlate);
-        availableSlots.add(slot);
-        occupiedCount--;
-        activeTickets.remove(licensePlate);
+        if (activeTickets.putIfAbsent(vehicle.getLicensePlate(), ticket) != null) {
+            allocatedSlot.vacate();
+            availableSlots.add(allocatedSlot);
+            return null;
+        }
+        // Only the winner stamps the car: a losing gate holding the same
+        // Vehicle must not move the entry time of the stay already running.
+        vehicle.setEntryTime(now);
+        EventJournal journal = this.journal;
+        if (journal != null) journal.park(ticket.getId(), vehicle, allocatedSlot.getSlotId(), now);
+        occupiedSlots.put(vehicle.getLicensePlate(), allocatedSlot);
+        availableSlots.markOccupied(allocatedSlot);
+        counters.recordPark(allocatedSlot.getSlotType());
+        return ticket;
+    }
+    
+    private ParkingSlot claimSuitableSlot(Vehicle vehicle) {
+        while (true) {
+            ParkingSlot candidate = availableSlots.pollBestFor(vehicle);
+            if (candidate == null) return null;
+            if (candidate.occupy(vehicle)) return candidate;
+            // Lost the CAS to a direct claim; that thread now owns the slot.
+        }
+    }
+    
+    // Returns the charge in paise, 0 if the plate was not parked here.
+    public long exitVehicle(String licensePlate) {
+        loadFromSnapshot(licensePlate);
+        // Removing the slot mapping is the exit claim: only one gate wins it.
+        ParkingSlot slot = occupiedSlots.remove(licensePlate);
+        if (slot == null) {
+            listener.onRejected(licensePlate, RejectReason.NOT_FOUND, -1);
+            return 0L;
+        }
         
-        System.out.println("  SUCCESS: Vehicle exited");
-        System.out.println("  - Slot Freed: #" + slot.getSlotId() + " [" + slot.getSlotType() + "]");
-        System.out.println("  - Parking Duration: " + String.format("%.2f", ticket.getParkingDurationHours()) + " hours");
-        System.out.println("  - Base Rate: Rs" + slot.getBasePrice() + "/hour");
-        System.out.println("  - Total Charge: Rs" + String.format("%.2f", price));
+        Ticket ticket = releaseSlot(licensePlate, slot);
+        if (ticket == null) {
+            listener.onRejected(licensePlate, RejectReason.NO_ACTIVE_TICKET, slot.getSlotId());
+            return 0L;
+        }
+        long pricePaise = ticket.getPricePaise();
+        listener.onExited(ticket, slot, pricePaise);
         
-        processWaitingQueue();
-        return price;
+        offerToWaiting(slot, true);
+        proposeMoveInto(slot);
+        commitJournal();
+        return pricePaise;
     }
     
-    private double calculatePrice(Ticket ticket, ParkingSlot slot) {
-        double hours = ticket.getParkingDurationHours();
-        if (hours < 1.0) hours = 1.0;
-        double basePrice = hours * slot.getBasePrice();
-        double occupancyRate = getOccupancyRate();
-        double multiplier = 1.0;
+    // Batch counterpart of exitVehicle. prices[i] is the charge in paise for
+    // licensePlates.get(i), or 0 if that plate was not parked here. Freed
+    // slots are offered to the waiting queue, and then proposed to farther
+    // parked vehicles, once after the whole batch.
+    public long[] exitVehicles(List<String> licensePlates) {
+        long[] prices = new long[licensePlates.size()];
+        ParkingSlot[] freed = new ParkingSlot[prices.length];
+        int exited = 0;
         
-        if (occupancyRate > 0.8) multiplier = 1.5;
-        else if (occupancyRate > 0.6) multiplier = 1.2;
+        for (int i = 0; i < prices.length; i++) {
+            String licensePlate = licensePlates.get(i);
+            loadFromSnapshot(licensePlate);
+            ParkingSlot slot = occupiedSlots.remove(licensePlate);
+            if (slot == null) continue;
+            
+            Ticket ticket = releaseSlot(licensePlate, slot);
+            if (ticket == null) continue;
+            prices[i] = ticket.getPricePaise();
+            freed[exited++] = slot;
+        }
         
-        if (ticket.getVehicle().isVIP()) multiplier *= 0.8;
+        listener.onBatchExited(exited, prices.length);
+        for (int i = 0; i < exited; i++) {
+            offerToWaiting(freed[i], false);
+        }
+        for (int i = 0; i < exited; i++) {
+            proposeMoveInto(freed[i]);
+        }
+        commitJournal();
+        return prices;
+    }
+    
+    // Prices and closes the ticket and returns the slot to the heaps. The caller
+    // must already have won the exit claim by removing the occupiedSlots entry.
+    // The ticket stays in activeTickets until the exit is journaled, so the
+    // same plate cannot park again ahead of its own exit record.
+    private Ticket releaseSlot(String licensePlate, ParkingSlot slot) {
+        Ticket ticket = activeTickets.get(licensePlate);
+        if (ticket == null) return null;
         
-        return Math.round(basePrice * multiplier * 100.0) / 100.0;
+        // One clock read and one occupancy read feed both the price and the
+        // ticket, so the charge can be recomputed from the ticket. Occupancy
+        // still counts the exiting vehicle.
+        long exitMillis = clock.millis();
+        int occupied = counters.occupied();
+        long minutes = (exitMillis - ticket.getEntryMillis()) / 60_000L;
+        long pricePaise = pricingTable.get().pricePaise(ticket.getEntryHour(), occupied,
+            ticket.getVehicle().getFlags(), slot.getSlotType().ordinal(), minutes);
+        ticket.completePayment(pricePaise, exitMillis, occupied);
+        EventJournal journal = this.journal;
+        if (journal != null) journal.exit(licensePlate, exitMillis, pricePaise, occupied);
+        TicketArchive archive = this.archive;
+        if (archive != null) archive.append(ticket, slot);
+        activeTickets.remove(licensePlate, ticket);
+        slot.vacate();
+        counters.recordExit(slot.getSlotType(), pricePaise);
+        availableSlots.add(slot);
+        return ticket;
     }
     
-    private void processWaitingQueue() {
-        if (!waitingQueue.isEmpty() && !availableSlots.isEmpty()) {
-            Vehicle nextVehicle = waitingQueue.poll();
-            System.out.println("\n[QUEUE] Processing waiting vehicle: " + nextVehicle.getLicensePlate());
-            parkVehicle(nextVehicle);
+    // Compiles the card and swaps it in if it is newer than the card in use.
+    // Exits already past their table read finish on the old card; none of
+    // them wait for the swap.
+    public boolean applyRateCard(RateCard rateCard) {
+        PricingTable compiled = new PricingTable(rateCard, totalSlots);
+        while (true) {
+            PricingTable current = pricingTable.get();
+            if (rateCard.getVersion() <= current.getRateCard().getVersion()) return false;
+            if (pricingTable.compareAndSet(current, compiled)) break;
         }
+        publishSlotRates(rateCard);
+        listener.onRateCardApplied(rateCard);
+        return true;
     }
     
-    public ParkingSlot findVehicle(String licensePlate) {
-        return occupiedSlots.get(licensePlate);
+    // Loads the card in the file now, then again whenever the file changes.
+    // Reloads that fail reach the listener as onRateCardRejected. Close the
+    // returned watcher to stop following the file.
+    public RateCardWatcher watchRateCard(Path file) throws IOException {
+        applyRateCard(RateCard.load(file));
+        return new RateCardWatcher(file, this::applyRateCard,
+            error -> listener.onRateCardRejected(file, error));
     }
     
-    public void optimizeParking() {
-        System.out.println("\n[OPTIMIZATION] Checking for better slot allocations...");
-        List<Vehicle> toReallocate = new ArrayList<>();
-        
-        for (Map.Entry<String, ParkingSlot> entry : occupiedSlots.entrySet()) {
-            String licensePlate = entry.getKey();
-            ParkingSlot currentSlot = entry.getValue();
-            Vehicle vehicle = currentSlot.getParkedVehicle();
-            ParkingSlot betterSlot = findBetterSlot(currentSlot, vehicle);
+    public RateCard getRateCard() {
+        return pricingTable.get().getRateCard();
+    }
+    
+    public EventJournal openJournal(Path file) throws IOException {
+        return openJournal(file, true);
+    }
+    
+    // Rebuilds the lot from the journal in file, if there is one, then
+    // journals every change from here on. Call it on a fresh lot before it
+    // takes traffic. With waitForSync each park, exit or batch returns only
+    // once its records are on disk; gates committing together share a sync.
+    public EventJournal openJournal(Path file, boolean waitForSync) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("Lot " + lotId + " is already journaling to " + journal.getFile());
+        }
+        if (Files.exists(file) && Files.size(file) > 0) {
+            JournalReplay replay = new JournalReplay();
+            EventJournal.replay(file, totalSlots, journalPosition, replay);
+            listener.onJournalReplayed(replay.applied, counters.occupied(), waitingQueue.size());
+        }
+        journal = new EventJournal(file, totalSlots, journalPosition, waitForSync);
+        waitingQueue.setJournal(journal);
+        return journal;
+    }
+    
+    // Stops journaling; what was appended is synced before this returns.
+    public void closeJournal() throws IOException {
+        EventJournal current = journal;
+        if (current == null) return;
+        journal = null;
+        waitingQueue.setJournal(null);
+        current.close();
+    }
+    
+    // Keeps every paid ticket from here on in the archive under directory.
+    public TicketArchive openArchive(Path directory) throws IOException {
+        if (archive != null) {
+            throw new IllegalStateException("Lot " + lotId + " is already archiving to " + archive.getDirectory());
+        }
+        archive = new TicketArchive(directory);
+        return archive;
+    }
+    
+    // Stops archiving; buffered tickets are written before this returns.
+    public void closeArchive() throws IOException {
+        TicketArchive current = archive;
+        if (current == null) return;
+        archive = null;
+        current.close();
+    }
+    
+    // Revenue, dwell and occupancy over the archived tickets that exited in
+    // [fromMillis, toMillis), including exits not yet written out.
+    public TicketStats getTicketStats(long fromMillis, long toMillis) throws IOException {
+        TicketArchive current = archive;
+        if (current == null) {
+            throw new IllegalStateException("Lot " + lotId + " is not archiving tickets");
+        }
+        current.flush();
+        return TicketAnalytics.scan(current.getDirectory(), fromMillis, toMillis);
+    }
+    
+    private void commitJournal() {
+        EventJournal current = journal;
+        if (current != null) current.commit();
+    }
+    
+    // Applies journal records straight to the lot's tables: no allocation
+    // choices, no pricing, no events. A record that no longer applies, such
+    // as the move of a car whose exit another gate journaled first, is
+    // skipped; the state it would change is already gone.
+    private final class JournalReplay implements EventJournal.RecordHandler {
+        long applied;
+        
+        @Override
+        public void onPark(long ticketId, String licensePlate, VehicleType vehicleType, int vehicleFlags,
+                           int slotId, long entryMillis) {
+            loadFromSnapshot(licensePlate);
+            int index = slotStore.indexOfSlotId(slotId);
+            if (index < 0 || activeTickets.containsKey(licensePlate)) return;
             
-            if (betterSlot != null) {
-                toReallocate.add(vehicle);
-                System.out.println("  Found better slot for " + licensePlate + 
-                                 ": Slot #" + currentSlot.getSlotId() + 
-                                 " -> Slot #" + betterSlot.getSlotId());
-            }
+            Vehicle vehicle = replayVehicle(licensePlate, vehicleType, vehicleFlags);
+            ParkingSlot slot = slotStore.view(index);
+            if (!slot.occupy(vehicle)) return;
+            vehicle.setEntryTime(entryMillis);
+            activeTickets.put(licensePlate, new Ticket(ticketId, vehicle, slot, clock, entryMillis));
+            occupiedSlots.put(licensePlate, slot);
+            availableSlots.markOccupied(slot);
+            counters.recordPark(slot.getSlotType());
+            ticketIds.advancePast(ticketId);
+            applied++;
+        }
+        
+        @Override
+        public void onExit(String licensePlate, long exitMillis, long pricePaise, int occupiedAtExit) {
+            loadFromSnapshot(licensePlate);
+            ParkingSlot slot = occupiedSlots.remove(licensePlate);
+            if (slot == null) return;
+            Ticket ticket = activeTickets.remove(licensePlate);
+            if (ticket != null) ticket.completePayment(pricePaise, exitMillis, occupiedAtExit);
+            slot.vacate();
+            counters.recordExit(slot.getSlotType(), pricePaise);
+            availableSlots.add(slot);
+            applied++;
+        }
+        
+        @Override
+        public void onReallocate(String licensePlate, int fromSlotId, int toSlotId) {
+            loadFromSnapshot(licensePlate);
+            ParkingSlot from = occupiedSlots.get(licensePlate);
+            int index = slotStore.indexOfSlotId(toSlotId);
+            if (from == null || from.getSlotId() != fromSlotId || index < 0) return;
+            
+            Vehicle vehicle = from.getParkedVehicle();
+            ParkingSlot to = slotStore.view(index);
+            if (vehicle == null || !to.occupy(vehicle)) return;
+            occupiedSlots.put(licensePlate, to);
+            availableSlots.markOccupied(to);
+            counters.recordMove(from.getSlotType(), to.getSlotType());
+            from.vacate();
+            availableSlots.add(from);
+            applied++;
         }
         
-        for (Vehicle vehicle : toReallocate) {
-            reallocateVehicle(vehicle);
+        @Override
+        public void onQueue(String licensePlate, VehicleType vehicleType, int vehicleFlags, long enqueuedMillis) {
+            Vehicle vehicle = replayVehicle(licensePlate, vehicleType, vehicleFlags);
+            if (waitingQueue.add(vehicle, enqueuedMillis) > 0) applied++;
         }
         
-        if (toReallocate.isEmpty()) {
-            System.out.println("  No optimization needed - optimal layout maintained");
+        @Override
+        public void onLeftQueue(String licensePlate) {
+            if (waitingQueue.remove(licensePlate) != null) applied++;
+        }
+        
+        private Vehicle replayVehicle(String licensePlate, VehicleType vehicleType, int vehicleFlags) {
+            return new Vehicle(licensePlate, vehicleType,
+                (vehicleFlags & Vehicle.FLAG_VIP) != 0, (vehicleFlags & Vehicle.FLAG_ELECTRIC) != 0);
         }
     }
     
-    private ParkingSlot findBetterSlot(ParkingSlot currentSlot, Vehicle vehicle) {
-        List<ParkingSlot> tempList = new ArrayList<>();
-        ParkingSlot betterSlot = null;
-        
-        while (!availableSlots.isEmpty()) {
-            ParkingSlot slot = availableSlots.poll();
-            tempList.add(slot);
+    // Display rates shown on slots; billing reads only the compiled table.
+    private void publishSlotRates(RateCard rateCard) {
+        for (SlotType slotType : SlotType.values()) {
+            slotStore.setTypeRate(slotType, rateCard.getSlotRatePaise(slotType));
+        }
+    }
+    
+    // Hands a freed slot to the oldest waiting vehicle that may use its type.
+    // The waiter takes the nearest slot it is eligible for, which is this one
+    // or a closer one; if another gate got there first it keeps its place.
+    private void offerToWaiting(ParkingSlot freedSlot, boolean announce) {
+        while (true) {
+            WaitingQueue.Waiter waiter = waitingQueue.pollFor(freedSlot.getSlotType());
+            if (waiter == null) return;
             
-            if (slot.isAvailableFor(vehicle) && 
-                slot.getDistanceFromEntrance() < currentSlot.getDistanceFromEntrance()) {
-                betterSlot = slot;
+            Vehicle vehicle = waiter.getVehicle();
+            if (announce) listener.onQueueProcessing(vehicle);
+            ParkingSlot slot = claimSuitableSlot(vehicle);
+            if (slot == null) {
+                waitingQueue.restore(waiter);
+                return;
+            }
+            
+            Ticket ticket = announce ? completeParking(vehicle, slot) : registerParking(vehicle, slot);
+            if (ticket != null) {
+                waitingQueue.recordParked(waiter);
+                return;
+            }
+            // The plate was parked by another gate while it waited; the slot
+            // went back to the heap, so offer it to the next waiter.
+            waitingQueue.discard(waiter);
+        }
+    }
+    
+    public ParkingSlot findVehicle(String licensePlate) {
+        loadFromSnapshot(licensePlate);
+        return occupiedSlots.get(licensePlate);
+    }
+    
+    // Applies every move that shortens some vehicle's distance, including
+    // those proposed on exit and not accepted. Each move costs O(log n);
+    // parked vehicles are never scanned.
+    public void optimizeParking() {
+        listener.onOptimizationStarted();
+        listener.onOptimizationFinished(relocate(Integer.MAX_VALUE));
+        commitJournal();
+    }
+    
+    // Moves the farthest movable vehicle, repeatedly, until no parked vehicle
+    // has a closer eligible slot free or maxMoves is reached. Every move
+    // strictly shortens some vehicle's distance, so the loop terminates. A
+    // candidate whose move loses a race to a gate is passed over for the
+    // rest of the pass; after MAX_SKIPPED_MOVES of those the pass gives up.
+    private int relocate(int maxMoves) {
+        int moved = 0;
+        Set<ParkingSlot> skipped = new HashSet<>();
+        while (moved < maxMoves) {
+            ParkingSlot candidate = availableSlots.peekRelocationCandidate(skipped);
+            if (candidate == null) break;
+            Vehicle vehicle = parkedVehicle(candidate);
+            if (vehicle != null && reallocateVehicle(vehicle)) {
+                moved++;
+            } else if (skipped.size() < MAX_SKIPPED_MOVES) {
+                skipped.add(candidate);
+            } else {
                 break;
             }
         }
-        
-        availableSlots.addAll(tempList);
-        return betterSlot;
+        return moved;
+    }
+    
+    // Proposes a slot that has just been freed, and not taken by the waiting
+    // queue, to the farthest parked vehicle that may use it. Nothing moves
+    // until the proposal is accepted or optimizeParking runs.
+    private void proposeMoveInto(ParkingSlot freedSlot) {
+        ParkingSlot candidate = availableSlots.peekFarthestMovableInto(freedSlot);
+        if (candidate == null) return;
+        Vehicle vehicle = parkedVehicle(candidate);
+        if (vehicle != null) {
+            listener.onMoveProposed(vehicle, candidate, freedSlot);
+        }
+    }
+    
+    // Accepts a move raised by onMoveProposed: the vehicle moves to the best
+    // strictly closer slot it may use, which is the proposed one unless a
+    // gate took it meanwhile. False if the vehicle has left or no closer
+    // slot is free.
+    public boolean acceptMove(String licensePlate) {
+        loadFromSnapshot(licensePlate);
+        ParkingSlot slot = occupiedSlots.get(licensePlate);
+        Vehicle vehicle = slot == null ? null : slot.getParkedVehicle();
+        if (vehicle == null || !reallocateVehicle(vehicle)) return false;
+        commitJournal();
+        return true;
     }
     
-    private void reallocateVehicle(Vehicle vehicle) {
+    private boolean reallocateVehicle(Vehicle vehicle) {
         ParkingSlot currentSlot = occupiedSlots.get(vehicle.getLicensePlate());
-        ParkingSlot betterSlot = findBetterSlot(currentSlot, vehicle);
+        // The plate may have left and come back, as a vehicle with other
+        // flags, since the caller read it from its slot.
+        if (currentSlot == null || currentSlot.getParkedVehicle() != vehicle) return false;
+        
+        ParkingSlot betterSlot = availableSlots.pollBestFor(vehicle, currentSlot.getDistanceFromEntrance());
+        while (betterSlot != null && !betterSlot.occupy(vehicle)) {
+            betterSlot = availableSlots.pollBestFor(vehicle, currentSlot.getDistanceFromEntrance());
+        }
         
         if (betterSlot != null) {
+            listener.onBetterSlotFound(vehicle, currentSlot, betterSlot);
+            if (!moveSlot(vehicle.getLicensePlate(), currentSlot, betterSlot)) {
+                // The vehicle left (or moved) while we were claiming the new slot.
+                betterSlot.vacate();
+                availableSlots.add(betterSlot);
+                return false;
+            }
+            availableSlots.markOccupied(betterSlot);
+            counters.recordMove(currentSlot.getSlotType(), betterSlot.getSlotType());
             currentSlot.vacate();
-            betterSlot.occupy(vehicle);
-            occupiedSlots.put(vehicle.getLicensePlate(), betterSlot);
-            availableSlots.remove(betterSlot);
             availableSlots.add(currentSlot);
             
-            System.out.println("  Reallocated " + vehicle.getLicensePlate() + 
-                             " from Slot #" + currentSlot.getSlotId() + 
-                             " to Slot #" + betterSlot.getSlotId());
+            listener.onReallocated(vehicle, currentSlot, betterSlot);
+            offerToWaiting(currentSlot, true);
+            return true;
         }
+        return false;
+    }
+    
+    // occupiedSlots.replace, with the move journaled under the map's lock on
+    // the plate, so two moves of one car, or a move and the car's exit, are
+    // journaled in the order they took effect.
+    private boolean moveSlot(String licensePlate, ParkingSlot from, ParkingSlot to) {
+        EventJournal journal = this.journal;
+        if (journal == null) return occupiedSlots.replace(licensePlate, from, to);
+        boolean[] moved = new boolean[1];
+        occupiedSlots.computeIfPresent(licensePlate, (plate, current) -> {
+            if (!current.equals(from)) return current;
+            journal.reallocate(plate, from.getSlotId(), to.getSlotId());
+            moved[0] = true;
+            return to;
+        });
+        return moved[0];
+    }
+    
+    public ParkingSlot findFarthestParked(SlotType slotType) {
+        return availableSlots.peekFarthestOccupied(slotType);
+    }
+    
+    // Farthest-first views over the occupied-slot index; none of these scan
+    // occupiedSlots.
+    public List<ParkingSlot> findFarthestParked(int count) {
+        return availableSlots.farthestOccupied(null, count);
+    }
+    
+    public List<ParkingSlot> findFarthestParked(SlotType slotType, int count) {
+        return availableSlots.farthestOccupied(slotType, count);
+    }
+    
+    public List<ParkingSlot> findParkedWithin(int minDistance, int maxDistance) {
+        return availableSlots.occupiedWithin(null, minDistance, maxDistance);
+    }
+    
+    public List<ParkingSlot> findParkedWithin(SlotType slotType, int minDistance, int maxDistance) {
+        return availableSlots.occupiedWithin(slotType, minDistance, maxDistance);
+    }
+    
+    public void updateSlotDistance(ParkingSlot slot, int distanceFromEntrance) {
+        availableSlots.updateDistance(slot, distanceFromEntrance);
     }
     
     public double getOccupancyRate() {
-        return (double) occupiedCount / totalSlots;
+        return (double) counters.occupied() / totalSlots;
     }
     
     public void displayStatus() {
@@ -270,12 +903,18 @@ public class ParkingLot {
         System.out.println("=".repeat(50));
         
         System.out.println("Capacity: " + totalSlots + " slots");
-        System.out.println("Occupied: " + occupiedCount + " slots (" + 
-                         String.format("%.1f", getOccupancyRate() * 100) + "%)");
+        LotStatsSnapshot stats = getStatsSnapshot();
+        System.out.println("Occupied: " + stats.getOccupied() + " slots (" + 
+                         String.format("%.1f", stats.getOccupancyRate() * 100) + "%)");
         System.out.println("Available: " + availableSlots.size() + " slots");
-        System.out.println("Waiting Queue: " + waitingQueue.size() + " vehicles");
-        System.out.println("Total Revenue: Rs" + String.format("%.2f", totalRevenue));
-        System.out.println("Vehicles Served: " + totalVehiclesServed);
+        System.out.println("Waiting Queue: " + stats.getWaitingVehicles() + " vehicles");
+        WaitTimeHistogram waitTimes = getWaitTimes();
+        if (waitTimes.getCount() > 0) {
+            System.out.println("Queue Wait: p50 " + waitTimes.percentile(50) + "ms, p90 " +
+                             waitTimes.percentile(90) + "ms, p99 " + waitTimes.percentile(99) + "ms");
+        }
+        System.out.println("Total Revenue: " + Money.format(stats.getRevenuePaise()));
+        System.out.println("Vehicles Served: " + stats.getVehiclesServed());
         
         System.out.println("\nSlot Distribution:");
         System.out.println("  - VIP Slots: " + vipSlots);
@@ -286,10 +925,9 @@ public class ParkingLot {
         if (availableSlots.isEmpty()) {
             System.out.println("  No available slots");
         } else {
-            List<ParkingSlot> nearestSlots = new ArrayList<>(availableSlots);
-            nearestSlots.sort(Comparator.comparingInt(ParkingSlot::getDistanceFromEntrance));
+            List<ParkingSlot> nearestSlots = availableSlots.nearestFree(5);
             
-            for (int i = 0; i < Math.min(5, nearestSlots.size()); i++) {
+            for (int i = 0; i < nearestSlots.size(); i++) {
                 ParkingSlot slot = nearestSlots.get(i);
                 System.out.println("  " + (i+1) + ". Slot #" + slot.getSlotId() + 
                                  " [" + slot.getSlotType() + "] - " + 
@@ -298,12 +936,27 @@ public class ParkingLot {
             }
         }
         
+        System.out.println("\nFarthest Parked Vehicles (Top 5):");
+        List<ParkingSlot> farthestSlots = findFarthestParked(5);
+        if (farthestSlots.isEmpty()) {
+            System.out.println("  None");
+        }
+        for (int i = 0; i < farthestSlots.size(); i++) {
+            ParkingSlot slot = farthestSlots.get(i);
+            Vehicle vehicle = parkedVehicle(slot);
+            System.out.println("  " + (i+1) + ". Slot #" + slot.getSlotId() + 
+                             " [" + slot.getSlotType() + "] - " + 
+                             slot.getDistanceFromEntrance() + "m" +
+                             (vehicle != null ? " - " + vehicle.getLicensePlate() : ""));
+        }
+        
         System.out.println("\nOccupied Vehicles:");
         if (occupiedSlots.isEmpty()) {
             System.out.println("  None");
         } else {
             for (ParkingSlot slot : occupiedSlots.values()) {
                 Vehicle vehicle = slot.getParkedVehicle();
+                if (vehicle == null) continue;
                 System.out.println("  Slot #" + slot.getSlotId() + 
                                  " [" + slot.getSlotType() + "]: " + 
                                  vehicle.getLicensePlate() + 
@@ -322,18 +975,23 @@ public class ParkingLot {
         System.out.println("=".repeat(50));
         
         System.out.println("\nData Structures Used:");
-        System.out.println("1. PriorityQueue (Min-Heap) - For nearest slot allocation");
+        System.out.println("1. PriorityQueue (Min-Heap) per slot type - For nearest slot allocation");
         System.out.println("2. HashMap - For O(1) vehicle/slot lookup");
-        System.out.println("3. Queue - For FIFO waiting list management");
+        System.out.println("3. Queue per eligibility class - For FIFO waiting list management");
+        System.out.println("4. Max-Heap of occupied slots per slot type - For relocation");
         
         System.out.println("\nTime Complexity:");
         System.out.println("• parkVehicle(): O(log n) - Heap insertion/removal");
-        System.out.println("• exitVehicle(): O(log n) - Heap update");
+        System.out.println("• exitVehicle(): O(log n) - Heap update plus one move proposal");
+        System.out.println("• reallocateVehicle(): O(log n) - Indexed heap removal");
+        System.out.println("• optimizeParking(): O(k log n) - k moves, no scan of parked vehicles");
         System.out.println("• findVehicle(): O(1) - HashMap lookup");
-        System.out.println("• findSuitableSlot(): O(k log n) - where k is checked slots");
+        System.out.println("• waiting queue match on exit: O(1) - compares eligible FIFO heads");
+        System.out.println("• findSuitableSlot(): O(1) - compares the heads of eligible heaps");
         
         System.out.println("\nSpace Complexity:");
         System.out.println("• Overall: O(n) for n slots");
+        System.out.println("• Slot table: parallel primitive arrays, no object per slot");
         System.out.println("• Per operation: O(1) additional space");
         
         System.out.println("\nOptimizations:");
@@ -345,17 +1003,28 @@ public class ParkingLot {
     }
     
     public String getLotId() { return lotId; }
+    public int getLotNumber() { return lotNumber; }
+    public boolean isWaiting(String licensePlate) { return waitingQueue.contains(licensePlate); }
     public int getTotalSlots() { return totalSlots; }
-    public int getOccupiedCount() { return occupiedCount; }
+    public int getOccupiedCount() { return counters.occupied(); }
+    public int getOccupiedCount(SlotType slotType) { return counters.occupied(slotType); }
     public int getAvailableSlotsCount() { return availableSlots.size(); }
     public int getWaitingQueueSize() { return waitingQueue.size(); }
-    public double getTotalRevenue() { return totalRevenue; }
-    public int getTotalVehiclesServed() { return totalVehiclesServed; }
+    public int getWaitingQueueCapacity() { return waitingQueue.getCapacity(); }
+    public WaitTimeHistogram getWaitTimes() { return waitingQueue.getWaitTimes(); }
+    public double getTotalRevenue() { return counters.revenuePaise() / 100.0; }
+    public long getTotalRevenuePaise() { return counters.revenuePaise(); }
+    public int getTotalVehiclesServed() { return counters.vehiclesServed(); }
+    
+    public LotStatsSnapshot getStatsSnapshot() {
+        return counters.snapshot(totalSlots, waitingQueue.size());
+    }
+    
+    public PricingTable getPricingTable() {
+        return pricingTable.get();
+    }
     
     public double getCurrentPricingMultiplier() {
-        double occupancy = getOccupancyRate();
-        if (occupancy > 0.8) return 1.5;
-        if (occupancy > 0.6) return 1.2;
-        return 1.0;
+        return getRateCard().occupancyMultiplier(getOccupancyRate());
     }
 }
\ No newline at end of file
@@ -1,72 +1,104 @@
 package models;
 
 public class ParkingSlot {
-    private int slotId;
-    private String slotType;
-    private int distanceFromEntrance;
-    private boolean isOccupied;
-    private Vehicle parkedVehicle;
-    private double basePrice;
-    
-    public ParkingSlot(int slotId, String slotType, int distanceFromEntrance, double basePrice) {
-        this.slotId = slotId;
-        this.slotType = slotType;
-        this.distanceFromEntrance = distanceFromEntrance;
-        this.basePrice = basePrice;
-        this.isOccupied = false;
-        this.parkedVehicle = null;
+    private final SlotStore store;
+    private final int index;
+
+    public ParkingSlot(int slotId, SlotType slotType, int distanceFromEntrance, double basePrice) {
+        this.store = new SlotStore(1);
+        this.store.setTypeRate(slotType, Money.ofRupees(basePrice));
+        this.index = store.addSlot(slotId, slotType, distanceFromEntrance);
     }
-    
+
+    ParkingSlot(SlotStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
     public boolean isAvailableFor(Vehicle vehicle) {
-        if (isOccupied) return false;
-        if (slotType.equals("EV_CHARGING") && !vehicle.isElectric()) return false;
-        if (slotType.equals("VIP") && !vehicle.isVIP()) return false;
-        return true;
+        return !isOccupied() && getSlotType().accepts(vehicle.getFlags());
     }
-    
+
+    // Claims the slot with a single compare-and-set; false if another thread
+    // got there first or the vehicle may not use this slot type.
     public boolean occupy(Vehicle vehicle) {
-        if (!isOccupied && isAvailableFor(vehicle)) {
-            this.parkedVehicle = vehicle;
-            this.isOccupied = true;
-            return true;
-        }
-        return false;
+        if (!getSlotType().accepts(vehicle.getFlags())) return false;
+        return store.occupy(index, vehicle);
     }
-    
+
+    public boolean tryClaim() {
+        return store.tryClaim(index);
+    }
+
+    public boolean release() {
+        return store.release(index);
+    }
+
     public void vacate() {
-        this.parkedVehicle = null;
-        this.isOccupied = false;
+        store.vacate(index);
     }
-    
+
     public int getSlotId() {
-        return slotId;
+        return store.getSlotId(index);
     }
-    
-    public String getSlotType() {
-        return slotType;
+
+    public SlotType getSlotType() {
+        return store.getSlotType(index);
     }
-    
+
     public int getDistanceFromEntrance() {
-        return distanceFromEntrance;
+        return store.getDistance(index);
     }
-    
+
     public boolean isOccupied() {
-        return isOccupied;
+        return store.isOccupied(index);
     }
-    
+
     public Vehicle getParkedVehicle() {
-        return parkedVehicle;
+        return store.getVehicle(index);
+    }
+
+    // Hourly rate in paise; getBasePrice is the same in rupees, for display.
+    public long getBasePricePaise() {
+        return store.getBasePricePaise(index);
     }
     
     public double getBasePrice() {
-        return basePrice;
+        return Money.toRupees(store.getBasePricePaise(index));
     }
-    
+
+    // Position inside the allocator's heap, -1 when the slot is not queued.
+    public int getHeapIndex() {
+        return store.getHeapIndex(index);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public SlotStore getStore() {
+        return store;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ParkingSlot)) return false;
+        ParkingSlot other = (ParkingSlot) o;
+        return store == other.store && index == other.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(store) + index;
+    }
+
     @Override
     public String toString() {
-        String status = isOccupied ? "[OCCUPIED]" : "[AVAILABLE]";
-        String vehicleInfo = isOccupied ? " (" + parkedVehicle.getLicensePlate() + ")" : "";
-        return String.format("%s Slot#%02d [%s] %dm Rs%.0f/hr%s", 
-            status, slotId, slotType, distanceFromEntrance, basePrice, vehicleInfo);
+        Vehicle vehicle = getParkedVehicle();
+        String status = vehicle != null ? "[OCCUPIED]" : "[AVAILABLE]";
+        String vehicleInfo = vehicle != null ? " (" + vehicle.getLicensePlate() + ")" : "";
+        return String.format("%s Slot#%02d [%s] %dm Rs%.0f/hr%s",
+            status, getSlotId(), getSlotType(), getDistanceFromEntrance(), getBasePrice(), vehicleInfo);
     }
-}
\ No newline at end of file
+}
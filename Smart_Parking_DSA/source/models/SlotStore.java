@@ -0,0 +1,251 @@
+package models;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Struct-of-arrays slot table. Slot state lives in parallel primitive arrays
+// indexed by slot position; ParkingSlot objects are thin views over one index.
+// Heap positions and distances are guarded by the allocator's per-type locks.
+// Occupancy is a per-slot state word claimed with compare-and-set; the vehicle
+// table is guarded by this store's monitor and only touched by the claim owner.
+public class SlotStore {
+    public static final int NO_VEHICLE = -1;
+    private static final int FREE = 0;
+    private static final int CLAIMED = 1;
+
+    private int[] slotIds;
+    private byte[] types;
+    private int[] distances;
+    private int[] heapIndexes;
+    private int[] vehicleRefs;
+    private byte[] occupantFlags;
+    private AtomicIntegerArray states;
+    private long[] typeRatesPaise;
+    private int size;
+
+    private Vehicle[] vehicleTable;
+    private int[] freeVehicleRefs;
+    private int freeVehicleCount;
+    private int vehicleTableSize;
+
+    public SlotStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.slotIds = new int[capacity];
+        this.types = new byte[capacity];
+        this.distances = new int[capacity];
+        this.heapIndexes = new int[capacity];
+        this.vehicleRefs = new int[capacity];
+        this.occupantFlags = new byte[capacity];
+        this.states = new AtomicIntegerArray(capacity);
+        this.typeRatesPaise = new long[SlotType.count()];
+        this.size = 0;
+
+        this.vehicleTable = new Vehicle[16];
+        this.freeVehicleRefs = new int[16];
+        this.freeVehicleCount = 0;
+        this.vehicleTableSize = 0;
+    }
+
+    public int addSlot(int slotId, SlotType slotType, int distanceFromEntrance) {
+        if (size == slotIds.length) {
+            grow(size * 2);
+        }
+        int index = size++;
+        slotIds[index] = slotId;
+        types[index] = (byte) slotType.ordinal();
+        distances[index] = distanceFromEntrance;
+        heapIndexes[index] = -1;
+        vehicleRefs[index] = NO_VEHICLE;
+        return index;
+    }
+
+    // Fills an empty store in one step from columns of one entry per slot,
+    // taking ownership of the arrays; bit i of occupiedBits marks slot i
+    // claimed. Vehicles are bound later by whoever materializes the
+    // occupants. Heap positions start unset, as after addSlot.
+    public void load(int[] slotIds, byte[] types, int[] distances, byte[] occupantFlags, long[] occupiedBits) {
+        if (size != 0) {
+            throw new IllegalStateException("Slot store already holds " + size + " slots");
+        }
+        int count = slotIds.length;
+        if (types.length != count || distances.length != count || occupantFlags.length != count
+                || occupiedBits.length < (count + 63) >>> 6) {
+            throw new IllegalArgumentException("Slot columns differ in length");
+        }
+        this.slotIds = slotIds;
+        this.types = types;
+        this.distances = distances;
+        this.occupantFlags = occupantFlags;
+        this.heapIndexes = new int[count];
+        this.vehicleRefs = new int[count];
+        Arrays.fill(heapIndexes, -1);
+        Arrays.fill(vehicleRefs, NO_VEHICLE);
+        this.states = new AtomicIntegerArray(count);
+        for (int i = 0; i < count; i++) {
+            if ((occupiedBits[i >>> 6] & (1L << i)) != 0) states.set(i, CLAIMED);
+        }
+        this.size = count;
+    }
+
+    public void setTypeRate(SlotType slotType, long ratePaise) {
+        typeRatesPaise[slotType.ordinal()] = ratePaise;
+    }
+
+    public ParkingSlot view(int index) {
+        checkIndex(index);
+        return new ParkingSlot(this, index);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getSlotId(int index) {
+        return slotIds[index];
+    }
+
+    public int getTypeOrdinal(int index) {
+        return types[index];
+    }
+
+    public SlotType getSlotType(int index) {
+        return SlotType.fromOrdinal(types[index]);
+    }
+
+    public int getDistance(int index) {
+        return distances[index];
+    }
+
+    public void setDistance(int index, int distanceFromEntrance) {
+        distances[index] = distanceFromEntrance;
+    }
+
+    public long getBasePricePaise(int index) {
+        return typeRatesPaise[types[index]];
+    }
+
+    public int getHeapIndex(int index) {
+        return heapIndexes[index];
+    }
+
+    public void setHeapIndex(int index, int heapIndex) {
+        heapIndexes[index] = heapIndex;
+    }
+
+    // Flag word of the vehicle the occupied-slot index filed this slot under;
+    // guarded, like heap positions, by the allocator's per-type locks.
+    public int getOccupantFlags(int index) {
+        return occupantFlags[index];
+    }
+
+    public void setOccupantFlags(int index, int vehicleFlags) {
+        occupantFlags[index] = (byte) vehicleFlags;
+    }
+
+    public boolean isOccupied(int index) {
+        return states.get(index) != FREE;
+    }
+
+    // Single CAS from FREE to CLAIMED; exactly one caller wins a free slot.
+    public boolean tryClaim(int index) {
+        return states.compareAndSet(index, FREE, CLAIMED);
+    }
+
+    public boolean release(int index) {
+        return states.compareAndSet(index, CLAIMED, FREE);
+    }
+
+    public boolean occupy(int index, Vehicle vehicle) {
+        if (!tryClaim(index)) return false;
+        bindVehicle(index, vehicle);
+        return true;
+    }
+
+    public void vacate(int index) {
+        if (!isOccupied(index)) return;
+        unbindVehicle(index);
+        release(index);
+    }
+
+    public synchronized Vehicle getVehicle(int index) {
+        int ref = vehicleRefs[index];
+        return ref == NO_VEHICLE ? null : vehicleTable[ref];
+    }
+
+    // Only the thread that won tryClaim(index) may bind or unbind its vehicle.
+    public synchronized void bindVehicle(int index, Vehicle vehicle) {
+        int ref = vehicleRefs[index];
+        if (ref != NO_VEHICLE) {
+            releaseVehicle(ref);
+        }
+        vehicleRefs[index] = registerVehicle(vehicle);
+    }
+
+    public synchronized void unbindVehicle(int index) {
+        int ref = vehicleRefs[index];
+        if (ref != NO_VEHICLE) {
+            releaseVehicle(ref);
+        }
+        vehicleRefs[index] = NO_VEHICLE;
+    }
+
+    public int occupiedCount() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (states.get(i) != FREE) count++;
+        }
+        return count;
+    }
+
+    // Slots are numbered 1..n in creation order, so the id is normally index + 1.
+    public int indexOfSlotId(int slotId) {
+        int guess = slotId - 1;
+        if (guess >= 0 && guess < size && slotIds[guess] == slotId) return guess;
+        for (int i = 0; i < size; i++) {
+            if (slotIds[i] == slotId) return i;
+        }
+        return -1;
+    }
+
+    private int registerVehicle(Vehicle vehicle) {
+        int ref;
+        if (freeVehicleCount > 0) {
+            ref = freeVehicleRefs[--freeVehicleCount];
+        } else {
+            if (vehicleTableSize == vehicleTable.length) {
+                vehicleTable = Arrays.copyOf(vehicleTable, vehicleTableSize * 2);
+            }
+            ref = vehicleTableSize++;
+        }
+        vehicleTable[ref] = vehicle;
+        return ref;
+    }
+
+    private void releaseVehicle(int ref) {
+        vehicleTable[ref] = null;
+        if (freeVehicleCount == freeVehicleRefs.length) {
+            freeVehicleRefs = Arrays.copyOf(freeVehicleRefs, freeVehicleCount * 2);
+        }
+        freeVehicleRefs[freeVehicleCount++] = ref;
+    }
+
+    private void grow(int capacity) {
+        slotIds = Arrays.copyOf(slotIds, capacity);
+        types = Arrays.copyOf(types, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        heapIndexes = Arrays.copyOf(heapIndexes, capacity);
+        vehicleRefs = Arrays.copyOf(vehicleRefs, capacity);
+        occupantFlags = Arrays.copyOf(occupantFlags, capacity);
+        AtomicIntegerArray grown = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < size; i++) {
+            grown.set(i, states.get(i));
+        }
+        states = grown;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Slot index " + index + " out of range [0, " + size + ")");
+        }
+    }
+}
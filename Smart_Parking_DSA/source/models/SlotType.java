@@ -0,0 +1,43 @@
+package models;
+
+// Declaration order doubles as allocation priority on equal distance:
+// VIP > EV_CHARGING > REGULAR.
+public enum SlotType {
+    REGULAR,
+    EV_CHARGING,
+    VIP;
+
+    private static final SlotType[] VALUES = values();
+
+    // ELIGIBLE_MASK[vehicle flags] -> bitmask of slot types that vehicle may use.
+    private static final int[] ELIGIBLE_MASK = new int[1 << Vehicle.FLAG_BITS];
+
+    static {
+        for (int flags = 0; flags < ELIGIBLE_MASK.length; flags++) {
+            int mask = REGULAR.bit();
+            if ((flags & Vehicle.FLAG_ELECTRIC) != 0) mask |= EV_CHARGING.bit();
+            if ((flags & Vehicle.FLAG_VIP) != 0) mask |= VIP.bit();
+            ELIGIBLE_MASK[flags] = mask;
+        }
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean accepts(int vehicleFlags) {
+        return (ELIGIBLE_MASK[vehicleFlags] & bit()) != 0;
+    }
+
+    public static int eligibleMask(int vehicleFlags) {
+        return ELIGIBLE_MASK[vehicleFlags];
+    }
+
+    public static SlotType fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+}
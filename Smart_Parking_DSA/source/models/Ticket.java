@@ -1,43 +1,73 @@
 package models;
 
+import clock.EpochClock;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
+// Entry and exit are kept as epoch millis read from the lot's clock; the
+// LocalDateTime getters convert only for display.
 public class Ticket {
-    private String ticketId;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long NOT_EXITED = -1L;
+    
+    private final long ticketId;
     private Vehicle vehicle;
     private ParkingSlot slot;
-    private LocalDateTime entryTime;
-    private LocalDateTime exitTime;
-    private double priceCharged;
+    private final EpochClock clock;
+    private final long entryMillis;
+    private long exitMillis;
+    private long pricePaise;
+    private int occupiedAtExit;
     private boolean isPaid;
     
-    public Ticket(Vehicle vehicle, ParkingSlot slot) {
-        this.ticketId = "TKT" + UUID.randomUUID().toString().substring(0, 8);
+    public Ticket(long ticketId, Vehicle vehicle, ParkingSlot slot, EpochClock clock) {
+        this(ticketId, vehicle, slot, clock, clock.millis());
+    }
+    
+    public Ticket(long ticketId, Vehicle vehicle, ParkingSlot slot, EpochClock clock, long entryMillis) {
+        this.ticketId = ticketId;
         this.vehicle = vehicle;
         this.slot = slot;
-        this.entryTime = LocalDateTime.now();
-        this.exitTime = null;
-        this.priceCharged = 0.0;
+        this.clock = clock;
+        this.entryMillis = entryMillis;
+        this.exitMillis = NOT_EXITED;
+        this.pricePaise = 0L;
+        this.occupiedAtExit = -1;
         this.isPaid = false;
     }
     
+    // Whole minutes parked; runs to now until the ticket is paid.
+    public long getParkingDurationMinutes() {
+        long endMillis = (exitMillis != NOT_EXITED) ? exitMillis : clock.millis();
+        return (endMillis - entryMillis) / MILLIS_PER_MINUTE;
+    }
+    
     public double getParkingDurationHours() {
-        LocalDateTime endTime = (exitTime != null) ? exitTime : LocalDateTime.now();
-        long minutes = java.time.Duration.between(entryTime, endTime).toMinutes();
-        return minutes / 60.0;
+        return getParkingDurationMinutes() / 60.0;
+    }
+    
+    public void completePayment(long pricePaise) {
+        completePayment(pricePaise, clock.millis(), -1);
     }
     
-    public void completePayment(double price) {
-        this.exitTime = LocalDateTime.now();
-        this.priceCharged = price;
+    // Records the exit the price was computed for, so the charge can be
+    // recomputed from the ticket alone when auditing.
+    public void completePayment(long pricePaise, long exitMillis, int occupiedSlots) {
+        this.exitMillis = exitMillis;
+        this.pricePaise = pricePaise;
+        this.occupiedAtExit = occupiedSlots;
         this.isPaid = true;
     }
     
-    public String getTicketId() {
+    public long getId() {
         return ticketId;
     }
     
+    // Display form; built on demand, never stored.
+    public String getTicketId() {
+        return TicketIdGenerator.format(ticketId);
+    }
+    
     public Vehicle getVehicle() {
         return vehicle;
     }
@@ -46,29 +76,55 @@ public class Ticket {
         return slot;
     }
     
+    public long getEntryMillis() {
+        return entryMillis;
+    }
+    
+    // -1 until the ticket is paid.
+    public long getExitMillis() {
+        return exitMillis;
+    }
+    
+    public int getEntryHour() {
+        return clock.hourOfDay(entryMillis);
+    }
+    
     public LocalDateTime getEntryTime() {
-        return entryTime;
+        return toLocal(entryMillis);
     }
     
     public LocalDateTime getExitTime() {
-        return exitTime;
+        return exitMillis == NOT_EXITED ? null : toLocal(exitMillis);
+    }
+    
+    private LocalDateTime toLocal(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), clock.getZone());
+    }
+    
+    // Lot occupancy the exit was priced at, -1 if unknown.
+    public int getOccupiedAtExit() {
+        return occupiedAtExit;
+    }
+    
+    public long getPricePaise() {
+        return pricePaise;
     }
     
     public double getPriceCharged() {
-        return priceCharged;
+        return Money.toRupees(pricePaise);
     }
     
     public boolean isPaid() {
         return isPaid;
     }
     
-    public void setPriceCharged(double price) {
-        this.priceCharged = price;
+    public void setPricePaise(long pricePaise) {
+        this.pricePaise = pricePaise;
     }
     
     @Override
     public String toString() {
-        return String.format("Ticket %s: %s at Slot %d - Rs%.2f", 
-            ticketId, vehicle.getLicensePlate(), slot.getSlotId(), priceCharged);
+        return String.format("Ticket %s: %s at Slot %d - %s", 
+            getTicketId(), vehicle.getLicensePlate(), slot.getSlotId(), Money.format(pricePaise));
     }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package models;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ticket ids are (lot number << SEQUENCE_BITS) | sequence: unique across lots
+// with different numbers, strictly increasing within a lot, and handed out by
+// one atomic increment with no allocation. Text is only built for display.
+public class TicketIdGenerator {
+    private static final int SEQUENCE_BITS = 40;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int MAX_LOT_NUMBER = (1 << (63 - SEQUENCE_BITS)) - 1;
+
+    private final long prefix;
+    private final AtomicLong sequence;
+
+    public TicketIdGenerator(int lotNumber) {
+        if (lotNumber < 0 || lotNumber > MAX_LOT_NUMBER) {
+            throw new IllegalArgumentException("Lot number out of range [0, " + MAX_LOT_NUMBER + "]: " + lotNumber);
+        }
+        this.prefix = (long) lotNumber << SEQUENCE_BITS;
+        this.sequence = new AtomicLong();
+    }
+
+    public long next() {
+        long next = sequence.incrementAndGet();
+        if (next > SEQUENCE_MASK) {
+            throw new IllegalStateException("Ticket sequence exhausted for lot " + (prefix >>> SEQUENCE_BITS));
+        }
+        return prefix | next;
+    }
+
+    // The most recent id handed out, or the lot's prefix with sequence zero
+    // before the first.
+    public long lastIssued() {
+        return prefix | sequence.get();
+    }
+
+    // Moves the sequence past an id this lot issued before a restart, so
+    // recovered and new tickets never share an id.
+    public void advancePast(long ticketId) {
+        if ((ticketId & ~SEQUENCE_MASK) != prefix) return;
+        sequence.accumulateAndGet(sequenceOf(ticketId), Math::max);
+    }
+
+    public static int lotNumberOf(long ticketId) {
+        return (int) (ticketId >>> SEQUENCE_BITS);
+    }
+
+    public static long sequenceOf(long ticketId) {
+        return ticketId & SEQUENCE_MASK;
+    }
+
+    // TKT<lot>-<sequence>, the sequence zero-padded to eight digits.
+    public static String format(long ticketId) {
+        String sequence = Long.toString(sequenceOf(ticketId));
+        StringBuilder text = new StringBuilder(24).append("TKT").append(lotNumberOf(ticketId)).append('-');
+        for (int i = sequence.length(); i < 8; i++) {
+            text.append('0');
+        }
+        return text.append(sequence).toString();
+    }
+}
@@ -1,41 +1,50 @@
 // File: source/models/Vehicle.java
 package models;
 
-import java.time.LocalDateTime;
-
 public class Vehicle {
+    public static final int FLAG_VIP = 1;
+    public static final int FLAG_ELECTRIC = 2;
+    public static final int FLAG_BITS = 2;
+    
     private String licensePlate;
-    private String vehicleType;
+    private VehicleType vehicleType;
     private boolean isVIP;
     private boolean isElectric;
-    private LocalDateTime entryTime;
+    private int flags;
+    private long entryMillis;
     
-    public Vehicle(String licensePlate, String vehicleType, boolean isVIP, boolean isElectric) {
+    public Vehicle(String licensePlate, VehicleType vehicleType, boolean isVIP, boolean isElectric) {
         this.licensePlate = licensePlate;
         this.vehicleType = vehicleType;
         this.isVIP = isVIP;
         this.isElectric = isElectric;
-        this.entryTime = null;
+        this.flags = (isVIP ? FLAG_VIP : 0) | (isElectric ? FLAG_ELECTRIC : 0);
+        this.entryMillis = 0L;
+    }
+    
+    public Vehicle(String licensePlate, String vehicleType, boolean isVIP, boolean isElectric) {
+        this(licensePlate, VehicleType.fromString(vehicleType), isVIP, isElectric);
     }
     
-    public void setEntryTime() {
-        this.entryTime = LocalDateTime.now();
+    public void setEntryTime(long epochMillis) {
+        this.entryMillis = epochMillis;
     }
     
-    public LocalDateTime getEntryTime() {
-        return entryTime;
+    // Epoch millis of the last entry, 0 if the vehicle has never parked.
+    public long getEntryMillis() {
+        return entryMillis;
     }
     
-    public long getParkingDurationMinutes() {
-        if (entryTime == null) return 0;
-        return java.time.Duration.between(entryTime, LocalDateTime.now()).toMinutes();
+    public long getParkingDurationMinutes(long nowMillis) {
+        if (entryMillis == 0L) return 0;
+        return (nowMillis - entryMillis) / 60_000L;
     }
     
     public String getLicensePlate() {
         return licensePlate;
     }
     
-    public String getVehicleType() {
+    public VehicleType getVehicleType() {
         return vehicleType;
     }
     
@@ -47,6 +56,11 @@ public class Vehicle {
         return isElectric;
     }
     
+    // FLAG_VIP | FLAG_ELECTRIC, used as the row of the slot eligibility matrix.
+    public int getFlags() {
+        return flags;
+    }
+    
     @Override
     public String toString() {
         return licensePlate + " [" + vehicleType + "]" + 
@@ -0,0 +1,18 @@
+package models;
+
+public enum VehicleType {
+    CAR,
+    SUV,
+    BIKE,
+    OTHER;
+
+    public static VehicleType fromString(String type) {
+        if (type == null) return OTHER;
+        for (VehicleType value : values()) {
+            if (value.name().equalsIgnoreCase(type.trim())) {
+                return value;
+            }
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,193 @@
+package network;
+
+import models.ParkResult;
+import models.ParkStatus;
+import models.ParkingLot;
+import models.Vehicle;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// A city's lots run side by side, each a ParkingLot shard with its own
+// stable number. A car is parked at the lot it asked for; when that lot is
+// full it overflows into the nearest lot with a free slot, and only when
+// every lot is full does it join the waiting queue of the lot it asked for.
+//
+// There is no network-wide lock. Each lot keeps its own locks and counters,
+// the overflow order of every lot is worked out once at construction, and
+// the one shared table, plate to lot, is a ConcurrentHashMap that is touched
+// once per park and once per exit, so gates at different lots only meet on
+// a hash bin. Plates must park, exit and leave queues through the network
+// for that table to stay true.
+//
+// A queued car waits at the lot it asked for and is promoted only when a
+// slot frees there. A slot freed at any other lot goes to that lot's own
+// queue or the next car to arrive, even while cars wait elsewhere: the
+// queues are per lot, and moving a waiting car between lots would need a
+// lock across both.
+public class ParkingNetwork {
+    private final ParkingLot[] lots;
+    private final Map<Integer, Integer> indexByLotNumber;
+    // For each lot, the other lots nearest first.
+    private final int[][] overflowOrder;
+    private final ConcurrentHashMap<String, Integer> lotOfPlate;
+    private final LongAdder overflowed;
+
+    // Lot i stands at (xKm[i], yKm[i]) on a city grid; distance is straight
+    // line. Lot numbers must be distinct.
+    public ParkingNetwork(List<ParkingLot> lots, double[] xKm, double[] yKm) {
+        if (lots.isEmpty()) {
+            throw new IllegalArgumentException("A network needs at least one lot");
+        }
+        if (xKm.length != lots.size() || yKm.length != lots.size()) {
+            throw new IllegalArgumentException("Expected " + lots.size() + " lot positions, got " +
+                xKm.length + " x and " + yKm.length + " y");
+        }
+        int n = lots.size();
+        this.lots = lots.toArray(new ParkingLot[0]);
+        this.indexByLotNumber = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Integer previous = indexByLotNumber.put(this.lots[i].getLotNumber(), i);
+            if (previous != null) {
+                throw new IllegalArgumentException("Duplicate lot number " + this.lots[i].getLotNumber());
+            }
+        }
+
+        this.overflowOrder = new int[n][];
+        for (int i = 0; i < n; i++) {
+            final int from = i;
+            overflowOrder[i] = new int[n - 1];
+            Integer[] others = new Integer[n - 1];
+            for (int j = 0, k = 0; j < n; j++) {
+                if (j != i) others[k++] = j;
+            }
+            Arrays.sort(others, Comparator.comparingDouble(
+                (Integer j) -> Math.hypot(xKm[j] - xKm[from], yKm[j] - yKm[from])).thenComparingInt(j -> j));
+            for (int k = 0; k < others.length; k++) {
+                overflowOrder[i][k] = others[k];
+            }
+        }
+
+        this.lotOfPlate = new ConcurrentHashMap<>();
+        this.overflowed = new LongAdder();
+    }
+
+    // Parks at the preferred lot, else the nearest lot with room, else queues
+    // at the preferred lot. A plate already parked or waiting anywhere in the
+    // network is turned away.
+    public ParkResult parkVehicle(int preferredLotNumber, Vehicle vehicle) {
+        int preferred = indexOf(preferredLotNumber);
+        String plate = vehicle.getLicensePlate();
+        Integer holder = lotOfPlate.putIfAbsent(plate, preferred);
+        if (holder != null) {
+            return lots[holder].isWaiting(plate) ? ParkResult.alreadyQueued() : ParkResult.alreadyParked();
+        }
+
+        ParkResult result = lots[preferred].parkVehicle(vehicle, false);
+        if (result.getStatus() != ParkStatus.REJECTED_FULL) return settle(plate, preferred, result);
+        for (int next : overflowOrder[preferred]) {
+            result = lots[next].parkVehicle(vehicle, false);
+            if (result.getStatus() != ParkStatus.REJECTED_FULL) {
+                lotOfPlate.put(plate, next);
+                if (result.isParked()) overflowed.increment();
+                return settle(plate, next, result);
+            }
+        }
+
+        result = lots[preferred].parkVehicle(vehicle);
+        if (result.getStatus() == ParkStatus.REJECTED_FULL) lotOfPlate.remove(plate, preferred);
+        return settle(plate, preferred, result);
+    }
+
+    // An ALREADY_PARKED or ALREADY_QUEUED answer means the plate reached the
+    // lot some other way than this call. The entry this gate made stays only
+    // if the lot still holds the plate; otherwise it is taken out again.
+    private ParkResult settle(String plate, int index, ParkResult result) {
+        ParkStatus status = result.getStatus();
+        if (status != ParkStatus.ALREADY_PARKED && status != ParkStatus.ALREADY_QUEUED) return result;
+        ParkingLot lot = lots[index];
+        if (lot.findVehicle(plate) == null && !lot.isWaiting(plate)) lotOfPlate.remove(plate, index);
+        return result;
+    }
+
+    // Charge in paise, 0 if the plate is not parked in the network.
+    public long exitVehicle(String licensePlate) {
+        Integer index = lotOfPlate.get(licensePlate);
+        if (index == null) return 0L;
+        ParkingLot lot = lots[index];
+        // Not parked there: still waiting, or mid-park on another gate, which
+        // may yet move it to an overflow lot. Either way the entry stays.
+        if (lot.findVehicle(licensePlate) == null) return 0L;
+        long pricePaise = lot.exitVehicle(licensePlate);
+        if (lot.findVehicle(licensePlate) == null) lotOfPlate.remove(licensePlate, index);
+        return pricePaise;
+    }
+
+    public boolean leaveQueue(String licensePlate) {
+        Integer index = lotOfPlate.get(licensePlate);
+        if (index == null || !lots[index].leaveQueue(licensePlate)) return false;
+        lotOfPlate.remove(licensePlate, index);
+        return true;
+    }
+
+    // The lot the plate is parked or waiting at, or null.
+    public ParkingLot findLot(String licensePlate) {
+        Integer index = lotOfPlate.get(licensePlate);
+        return index == null ? null : lots[index];
+    }
+
+    public ParkingLot getLot(int lotNumber) {
+        return lots[indexOf(lotNumber)];
+    }
+
+    public List<ParkingLot> getLots() {
+        return Collections.unmodifiableList(Arrays.asList(lots));
+    }
+
+    // Lot numbers nearest first, not counting the lot itself.
+    public int[] getOverflowOrder(int lotNumber) {
+        int[] order = overflowOrder[indexOf(lotNumber)];
+        int[] numbers = new int[order.length];
+        for (int k = 0; k < order.length; k++) {
+            numbers[k] = lots[order[k]].getLotNumber();
+        }
+        return numbers;
+    }
+
+    // Cars parked somewhere other than the lot they asked for.
+    public long getOverflowCount() {
+        return overflowed.sum();
+    }
+
+    public int getTotalSlots() {
+        int total = 0;
+        for (ParkingLot lot : lots) total += lot.getTotalSlots();
+        return total;
+    }
+
+    public int getOccupiedCount() {
+        int total = 0;
+        for (ParkingLot lot : lots) total += lot.getOccupiedCount();
+        return total;
+    }
+
+    public int getWaitingQueueSize() {
+        int total = 0;
+        for (ParkingLot lot : lots) total += lot.getWaitingQueueSize();
+        return total;
+    }
+
+    public long getTotalRevenuePaise() {
+        long total = 0;
+        for (ParkingLot lot : lots) total += lot.getTotalRevenuePaise();
+        return total;
+    }
+
+    private int indexOf(int lotNumber) {
+        Integer index = indexByLotNumber.get(lotNumber);
+        if (index == null) {
+            throw new IllegalArgumentException("No lot " + lotNumber + " in this network");
+        }
+        return index;
+    }
+}
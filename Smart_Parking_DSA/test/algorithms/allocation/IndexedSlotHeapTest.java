@@ -0,0 +1,143 @@
+package algorithms.allocation;
+
+import models.SlotStore;
+import models.SlotType;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Random add, poll, remove, update, addAll and forEachUpTo against a
+// java.util.PriorityQueue over the same store, nearest-first and
+// farthest-first. Distances repeat, so the two may break ties differently;
+// what must agree is the top distance, membership, and the set of slots a
+// bounded walk reports. The heap's own order and position column are
+// checked after every step.
+class IndexedSlotHeapTest {
+    private static final int SLOTS = 400;
+    private static final int STEPS = 20_000;
+    private static final int MAX_DISTANCE = 60;
+
+    @Test
+    void nearestFirstMatchesPriorityQueue() {
+        runAgainstReference(false, 2);
+    }
+
+    @Test
+    void farthestFirstMatchesPriorityQueue() {
+        runAgainstReference(true, 3);
+    }
+
+    private static void runAgainstReference(boolean farthestFirst, long seed) {
+        Random rand = new Random(seed);
+        SlotStore store = new SlotStore(SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            store.addSlot(i + 1, SlotType.REGULAR, rand.nextInt(MAX_DISTANCE));
+        }
+        Comparator<Integer> byDistance = Comparator.comparingInt(store::getDistance);
+        IndexedSlotHeap heap = new IndexedSlotHeap(store, 4, farthestFirst);
+        PriorityQueue<Integer> reference = new PriorityQueue<>(farthestFirst ? byDistance.reversed() : byDistance);
+
+        for (int step = 0; step < STEPS; step++) {
+            int slot = rand.nextInt(SLOTS);
+            switch (rand.nextInt(6)) {
+                case 0:
+                    if (!reference.contains(slot)) {
+                        heap.add(slot);
+                        reference.add(slot);
+                    } else {
+                        assertThrows(IllegalStateException.class, () -> heap.add(slot));
+                    }
+                    break;
+                case 1: {
+                    int polled = heap.poll();
+                    Integer expected = reference.poll();
+                    if (expected == null) {
+                        assertEquals(-1, polled);
+                    } else {
+                        assertEquals(store.getDistance(expected), store.getDistance(polled));
+                        // Ties may come out in either order; keep the reference in step.
+                        if (polled != expected) {
+                            assertTrue(reference.remove(polled));
+                            reference.add(expected);
+                        }
+                    }
+                    break;
+                }
+                case 2:
+                    assertEquals(reference.remove(slot), heap.remove(slot));
+                    break;
+                case 3: {
+                    boolean member = reference.remove(slot);
+                    store.setDistance(slot, rand.nextInt(MAX_DISTANCE));
+                    heap.update(slot);
+                    if (member) reference.add(slot);
+                    break;
+                }
+                case 4: {
+                    int[] batch = new int[1 + rand.nextInt(40)];
+                    int count = 0;
+                    for (int i = 0; i < batch.length; i++) {
+                        int candidate = rand.nextInt(SLOTS);
+                        if (!reference.contains(candidate) && !contains(batch, count, candidate)) {
+                            batch[count++] = candidate;
+                        }
+                    }
+                    int from = count > 1 ? 1 : 0;
+                    heap.addAll(batch, from, count);
+                    for (int i = from; i < count; i++) reference.add(batch[i]);
+                    break;
+                }
+                default: {
+                    int bound = rand.nextInt(MAX_DISTANCE);
+                    Set<Integer> visited = new HashSet<>();
+                    heap.forEachUpTo(bound, s -> assertTrue(visited.add(s), "slot visited twice"));
+                    Set<Integer> expected = new HashSet<>();
+                    for (int s : reference) {
+                        int distance = store.getDistance(s);
+                        if (farthestFirst ? distance >= bound : distance <= bound) expected.add(s);
+                    }
+                    assertEquals(expected, visited, "bound " + bound);
+                    break;
+                }
+            }
+            assertSameContents(store, heap, reference, farthestFirst);
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        while (!heap.isEmpty()) drained.add(store.getDistance(heap.poll()));
+        List<Integer> expected = new ArrayList<>();
+        while (!reference.isEmpty()) expected.add(store.getDistance(reference.poll()));
+        assertEquals(expected, drained);
+    }
+
+    private static void assertSameContents(SlotStore store, IndexedSlotHeap heap,
+                                           PriorityQueue<Integer> reference, boolean farthestFirst) {
+        assertEquals(reference.size(), heap.size());
+        if (!reference.isEmpty()) {
+            assertEquals(store.getDistance(reference.peek()), store.getDistance(heap.peek()));
+        }
+        for (int position = 0; position < heap.size(); position++) {
+            int slot = heap.slotAt(position);
+            assertEquals(position, store.getHeapIndex(slot), "position column");
+            if (position > 0) {
+                int parent = store.getDistance(heap.slotAt((position - 1) >>> 1));
+                int child = store.getDistance(slot);
+                assertTrue(farthestFirst ? parent >= child : parent <= child, "heap order at " + position);
+            }
+        }
+        boolean[] members = new boolean[SLOTS];
+        for (int slot : reference) members[slot] = true;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            assertEquals(members[slot], heap.contains(slot), "slot " + slot);
+            if (!members[slot]) assertEquals(-1, store.getHeapIndex(slot));
+        }
+    }
+
+    private static boolean contains(int[] slots, int count, int slot) {
+        for (int i = 0; i < count; i++) {
+            if (slots[i] == slot) return true;
+        }
+        return false;
+    }
+}
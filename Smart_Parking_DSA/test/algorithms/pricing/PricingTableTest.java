@@ -0,0 +1,170 @@
+package algorithms.pricing;
+
+import models.SlotType;
+import models.Vehicle;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sweeps the default rate card over every slot type, entry hour, vehicle
+// flag combination and occupancy band edge, for each stay up to past the
+// caps, and checks the table against the charge worked out independently:
+// in decimal, half up, and with the old rupee formula in doubles wherever
+// the stay does not sit exactly on half a paisa.
+class PricingTableTest {
+    private static final int SLOTS = 100;
+    // Either side of each band cut-off (0.3, 0.6, 0.8) and both ends.
+    private static final int[] OCCUPIED = {0, 29, 30, 31, 60, 61, 80, 81, 100};
+    private static final long[] RUPEES_PER_HOUR = {50, 80, 100};
+    private static final BigDecimal SIXTY = BigDecimal.valueOf(60);
+    private static final BigDecimal THIRTY = BigDecimal.valueOf(30);
+
+    @Test
+    void tableMatchesTheDecimalAndOldDoubleFormulas() {
+        PricingTable table = new PricingTable(RateCard.defaults(), SLOTS);
+        int ties = 0;
+        int capped = 0;
+
+        for (SlotType slotType : SlotType.values()) {
+            for (int hour = 0; hour < PricingTable.HOURS; hour++) {
+                for (int occupied : OCCUPIED) {
+                    for (int flags = 0; flags < 1 << Vehicle.FLAG_BITS; flags++) {
+                        for (long minutes = 0; minutes <= 700; minutes++) {
+                            long actual = table.pricePaise(hour, occupied, flags, slotType.ordinal(), minutes);
+                            BigDecimal sixtieths = sixtiethsOfPaise(slotType, hour, occupied, flags, minutes);
+                            String at = slotType + " hour " + hour + " occupied " + occupied
+                                + " flags " + flags + " minutes " + minutes;
+
+                            long exact = sixtieths.divide(SIXTY, 0, RoundingMode.HALF_UP).longValueExact();
+                            assertEquals(cap(exact, flags), actual, at);
+                            if (sixtieths.remainder(SIXTY).compareTo(THIRTY) == 0) {
+                                ties++;
+                            } else {
+                                assertEquals(oldDoublePaise(slotType, hour, occupied, flags, minutes), actual, at);
+                            }
+                            if (actual == 2_000 || actual == maxPaise(flags)) capped++;
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(ties > 0, "sweep never landed on half a paisa");
+        assertTrue(capped > 0, "sweep never reached a cap");
+    }
+
+    @Test
+    void halfPaisaRoundsUp() {
+        PricingTable table = new PricingTable(RateCard.defaults(), SLOTS);
+        // Regular slot, peak hour, full lot, electric: 5000 x 1.5 x 1.4 x 0.9
+        // = 9450 paise an hour, 157.5 a minute; an odd stay ends in half a paisa.
+        assertEquals(19_845, table.pricePaise(8, 90, Vehicle.FLAG_ELECTRIC, SlotType.REGULAR.ordinal(), 126));
+        assertEquals(20_003, table.pricePaise(8, 90, Vehicle.FLAG_ELECTRIC, SlotType.REGULAR.ordinal(), 127));
+    }
+
+    // Random rows, a run of half-paisa ties and occupancy outside [0, SLOTS),
+    // sized so the parallel variant actually forks. Both bulk paths, over the
+    // whole batch and over an unaligned sub-range, must give exactly what
+    // pricing each row on its own gives. The card's odd multipliers put some
+    // ties a few ulps under the half in doubles, so the decimal fix-up runs.
+    @Test
+    void bulkPricingMatchesPricingEachRow() {
+        RateCard rateCard = new RateCard(1L, new long[] {45_00, 70_00, 90_00}, "7-11", 1.15,
+            new double[] {0.3, 0.6, 0.8}, new double[] {0.7, 1.0, 1.35, 1.65}, 0.85, 0.95,
+            10_00, 1_000_00, 1_500_00);
+        PricingTable table = new PricingTable(rateCard, SLOTS);
+        int tieFlags = Vehicle.FLAG_VIP | Vehicle.FLAG_ELECTRIC;
+        // 720 x 4500 x 0.7 x 0.85 x 0.95 / 60 = 30523.5 exactly; the double is 30523.499999999996.
+        assertEquals(30_524, table.pricePaise(0, 0, tieFlags, SlotType.REGULAR.ordinal(), 720));
+        int[] tieMinutes = {720, 1_360, 1_520};
+        int rows = (1 << 17) + 1_234;
+        int[] minutes = new int[rows];
+        byte[] entryHours = new byte[rows];
+        byte[] slotTypes = new byte[rows];
+        byte[] vehicleFlags = new byte[rows];
+        int[] occupiedSlots = new int[rows];
+        Random rand = new Random(20);
+        for (int row = 0; row < rows; row++) {
+            if (row % 5 == 0) {
+                minutes[row] = tieMinutes[rand.nextInt(tieMinutes.length)];
+                entryHours[row] = (byte) rand.nextInt(7);
+                slotTypes[row] = (byte) SlotType.REGULAR.ordinal();
+                vehicleFlags[row] = (byte) tieFlags;
+                occupiedSlots[row] = rand.nextInt(30);
+            } else {
+                minutes[row] = rand.nextInt(1_500);
+                entryHours[row] = (byte) rand.nextInt(PricingTable.HOURS);
+                slotTypes[row] = (byte) rand.nextInt(SlotType.count());
+                vehicleFlags[row] = (byte) rand.nextInt(1 << Vehicle.FLAG_BITS);
+                occupiedSlots[row] = rand.nextInt(SLOTS + 21) - 10;
+            }
+        }
+
+        long[] expected = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            expected[row] = table.pricePaise(entryHours[row], occupiedSlots[row], vehicleFlags[row],
+                slotTypes[row], minutes[row]);
+        }
+
+        long[] bulk = new long[rows];
+        table.pricePaise(minutes, entryHours, slotTypes, vehicleFlags, occupiedSlots, bulk, 0, rows);
+        assertArrayEquals(expected, bulk);
+
+        long[] parallel = new long[rows];
+        table.pricePaiseParallel(minutes, entryHours, slotTypes, vehicleFlags, occupiedSlots, parallel, 0, rows);
+        assertArrayEquals(expected, parallel);
+
+        int from = 777;
+        int to = rows - 333;
+        long[] range = new long[rows];
+        table.pricePaiseParallel(minutes, entryHours, slotTypes, vehicleFlags, occupiedSlots, range, from, to);
+        for (int row = 0; row < rows; row++) {
+            assertEquals(row >= from && row < to ? expected[row] : 0, range[row], "row " + row);
+        }
+    }
+
+    // minutes x rate x multipliers with every factor at its printed value:
+    // sixty times the charge, kept whole so a tie shows as exactly 30 over.
+    private static BigDecimal sixtiethsOfPaise(SlotType slotType, int hour, int occupied, int flags, long minutes) {
+        boolean peak = (hour >= 8 && hour < 10) || (hour >= 17 && hour < 20);
+        BigDecimal paise = BigDecimal.valueOf(Math.max(minutes, 60))
+            .multiply(BigDecimal.valueOf(RUPEES_PER_HOUR[slotType.ordinal()] * 100))
+            .multiply(new BigDecimal(peak ? "1.5" : "1.0"))
+            .multiply(new BigDecimal(occupancyMultiplier(occupied)));
+        if ((flags & Vehicle.FLAG_VIP) != 0) paise = paise.multiply(new BigDecimal("0.8"));
+        if ((flags & Vehicle.FLAG_ELECTRIC) != 0) paise = paise.multiply(new BigDecimal("0.9"));
+        return paise;
+    }
+
+    // DynamicPricing before the table, in rupees, converted to paise.
+    private static long oldDoublePaise(SlotType slotType, int hour, int occupied, int flags, long minutes) {
+        double hours = Math.max(minutes / 60.0, 1.0);
+        boolean peak = (hour >= 8 && hour < 10) || (hour >= 17 && hour < 20);
+        double vehicle = 1.0;
+        if ((flags & Vehicle.FLAG_VIP) != 0) vehicle *= 0.8;
+        if ((flags & Vehicle.FLAG_ELECTRIC) != 0) vehicle *= 0.9;
+        double price = hours * RUPEES_PER_HOUR[slotType.ordinal()] * (peak ? 1.5 : 1.0)
+            * Double.parseDouble(occupancyMultiplier(occupied)) * vehicle;
+        double max = (flags & Vehicle.FLAG_VIP) != 0 ? 800.0 : 500.0;
+        price = Math.min(Math.max(price, 20.0), max);
+        return Math.round(price * 100.0);
+    }
+
+    private static String occupancyMultiplier(int occupied) {
+        double rate = (double) occupied / SLOTS;
+        if (rate > 0.8) return "1.4";
+        if (rate > 0.6) return "1.2";
+        if (rate < 0.3) return "0.8";
+        return "1.0";
+    }
+
+    private static long cap(long paise, int flags) {
+        return Math.min(Math.max(paise, 2_000), maxPaise(flags));
+    }
+
+    private static long maxPaise(int flags) {
+        return (flags & Vehicle.FLAG_VIP) != 0 ? 80_000 : 50_000;
+    }
+}
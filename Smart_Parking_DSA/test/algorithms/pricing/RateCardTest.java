@@ -0,0 +1,40 @@
+package algorithms.pricing;
+
+import org.junit.jupiter.api.Test;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateCardTest {
+
+    @Test
+    void versionIsRequired() {
+        assertThrows(IllegalArgumentException.class, () -> RateCard.fromProperties(card(null, "8-10")));
+        assertThrows(IllegalArgumentException.class, () -> RateCard.fromProperties(card("0", "8-10")));
+        assertEquals(3, RateCard.fromProperties(card("3", "8-10")).getVersion());
+    }
+
+    @Test
+    void peakWindowsRunFromZeroToTwentyThreeAndWrapMidnight() {
+        RateCard rateCard = RateCard.fromProperties(card("1", "22-2, 8-10"));
+        for (int hour = 0; hour < 24; hour++) {
+            boolean peak = hour >= 22 || hour < 2 || hour == 8 || hour == 9;
+            assertEquals(peak, rateCard.isPeakHour(hour), "hour " + hour);
+        }
+        assertTrue(RateCard.fromProperties(card("1", "20-0")).isPeakHour(23));
+        assertFalse(RateCard.fromProperties(card("1", "20-0")).isPeakHour(0));
+    }
+
+    @Test
+    void hourTwentyFourAndEmptyWindowsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RateCard.fromProperties(card("1", "20-24")));
+        assertThrows(IllegalArgumentException.class, () -> RateCard.fromProperties(card("1", "8-8")));
+    }
+
+    private static Properties card(String version, String peakWindows) {
+        Properties properties = new Properties();
+        if (version != null) properties.setProperty("version", version);
+        properties.setProperty("peak.windows", peakWindows);
+        return properties;
+    }
+}
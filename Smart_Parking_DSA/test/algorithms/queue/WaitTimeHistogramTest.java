@@ -0,0 +1,91 @@
+package algorithms.queue;
+
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bucket edges seen through percentile(): with one sample at v and one far
+// above it, the median is the upper edge of v's bucket. Values below 16 are
+// their own bucket; above that each power of two splits into eight.
+class WaitTimeHistogramTest {
+
+    @Test
+    void smallValuesAreExact() {
+        for (long value = 0; value < 16; value++) {
+            assertEquals(value, upperEdgeOf(value), "value " + value);
+        }
+    }
+
+    @Test
+    void bucketEdgesSplitEachPowerOfTwoInEight() {
+        // [16, 32) in steps of 2, [32, 64) in steps of 4, [1024, 2048) in steps of 128.
+        assertEquals(17, upperEdgeOf(16));
+        assertEquals(17, upperEdgeOf(17));
+        assertEquals(19, upperEdgeOf(18));
+        assertEquals(31, upperEdgeOf(30));
+        assertEquals(31, upperEdgeOf(31));
+        assertEquals(35, upperEdgeOf(32));
+        assertEquals(63, upperEdgeOf(60));
+        assertEquals(63, upperEdgeOf(63));
+        assertEquals(71, upperEdgeOf(64));
+        assertEquals(1_151, upperEdgeOf(1_024));
+        assertEquals(1_151, upperEdgeOf(1_151));
+        assertEquals(1_279, upperEdgeOf(1_152));
+        assertEquals(2_047, upperEdgeOf(2_047));
+    }
+
+    @Test
+    void everyEdgeIsWithinAnEighthOfTheValue() {
+        Random rand = new Random(14);
+        for (int i = 0; i < 100_000; i++) {
+            long value = rand.nextLong() >>> (1 + rand.nextInt(63));
+            long edge = upperEdgeOf(value);
+            assertTrue(edge >= value, value + " -> " + edge);
+            assertTrue(edge - value <= value / 8, value + " -> " + edge);
+            // The edge belongs to the bucket it closes; one past it opens the
+            // next, at least two wide from 16 up.
+            assertEquals(edge, upperEdgeOf(edge));
+            if (edge >= 16 && edge < Long.MAX_VALUE) assertTrue(upperEdgeOf(edge + 1) > edge + 1, "edge " + edge);
+        }
+    }
+
+    @Test
+    void percentilesAreCappedAtTheLargestSampleAndEndsAreHandled() {
+        WaitTimeHistogram histogram = new WaitTimeHistogram();
+        assertEquals(0, histogram.percentile(50));
+
+        histogram.record(-5);
+        histogram.record(100);
+        assertEquals(0, histogram.percentile(50));
+        // 100 sits in [96, 103], but no sample went past 100.
+        assertEquals(100, histogram.percentile(100));
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+        assertEquals(3, histogram.getCount());
+    }
+
+    @Test
+    void copiesAndMergesCountEverySample() {
+        WaitTimeHistogram first = new WaitTimeHistogram();
+        WaitTimeHistogram second = new WaitTimeHistogram();
+        for (int i = 1; i <= 100; i++) {
+            (i % 2 == 0 ? first : second).record(i);
+        }
+        WaitTimeHistogram merged = first.copy();
+        merged.merge(second);
+        assertEquals(50, first.getCount());
+        assertEquals(100, merged.getCount());
+        assertEquals(100, merged.getMax());
+        assertEquals(50.5, merged.getMean());
+        assertEquals(51, merged.percentile(50));
+    }
+
+    private static long upperEdgeOf(long value) {
+        WaitTimeHistogram histogram = new WaitTimeHistogram();
+        histogram.record(value);
+        histogram.record(Long.MAX_VALUE);
+        return histogram.percentile(50);
+    }
+}
@@ -0,0 +1,178 @@
+package algorithms.queue;
+
+import clock.ManualClock;
+import models.SlotType;
+import models.Vehicle;
+import models.VehicleType;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A freed slot goes to the longest-waiting car that may use it, each class
+// keeps its own first-come order through removals and ring growth, and a
+// waiter put back goes ahead of everyone who queued after it. The queue never
+// holds more than its capacity, counting waiters polled but not yet settled.
+class WaitingQueueTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void freedSlotGoesToTheOldestEligibleWaiter() {
+        WaitingQueue queue = new WaitingQueue(100, new ManualClock(START));
+        for (Vehicle vehicle : List.of(ev("E-1"), car("R-1"), ev("E-2"), vip("V-1"), car("R-2"), ev("E-3"))) {
+            queue.add(vehicle);
+        }
+
+        // Regular cars behind the EVs are not held up by the EV slot they lack.
+        assertEquals("E-1", plateOf(queue.pollFor(SlotType.EV_CHARGING)));
+        assertEquals("E-2", plateOf(queue.pollFor(SlotType.EV_CHARGING)));
+        assertEquals("V-1", plateOf(queue.pollFor(SlotType.VIP)));
+        assertNull(queue.pollFor(SlotType.VIP));
+        assertEquals("R-1", plateOf(queue.pollFor(SlotType.REGULAR)));
+        assertEquals("R-2", plateOf(queue.pollFor(SlotType.REGULAR)));
+        assertEquals("E-3", plateOf(queue.pollFor(SlotType.REGULAR)));
+        assertNull(queue.pollFor(SlotType.REGULAR));
+    }
+
+    @Test
+    void eachClassStaysFirstComeFirstServedThroughRemovalsAndGrowth() {
+        WaitingQueue queue = new WaitingQueue(1_000, new ManualClock(START));
+        List<String> expectedCars = new ArrayList<>();
+        List<String> expectedEvs = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            queue.add(car("R-" + i));
+            queue.add(ev("E-" + i));
+            expectedCars.add("R-" + i);
+            expectedEvs.add("E-" + i);
+        }
+        // Leave from the head, the middle and the tail, then join again at the back.
+        for (int i = 0; i < 300; i += 3) {
+            assertNotNull(queue.remove("R-" + i));
+            expectedCars.remove("R-" + i);
+        }
+        for (int i = 300; i < 340; i++) {
+            queue.add(car("R-" + i));
+            expectedCars.add("R-" + i);
+        }
+        assertEquals(expectedCars.size(), queue.size(0));
+        assertEquals(expectedEvs.size(), queue.size(Vehicle.FLAG_ELECTRIC));
+
+        List<String> evs = new ArrayList<>();
+        WaitingQueue.Waiter waiter;
+        while ((waiter = queue.pollFor(SlotType.EV_CHARGING)) != null) {
+            evs.add(plateOf(waiter));
+            queue.discard(waiter);
+        }
+        assertEquals(expectedEvs, evs);
+
+        List<String> cars = new ArrayList<>();
+        while ((waiter = queue.pollFor(SlotType.REGULAR)) != null) {
+            cars.add(plateOf(waiter));
+            queue.discard(waiter);
+        }
+        assertEquals(expectedCars, cars);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void restoredWaiterGoesBackAheadOfLaterArrivals() {
+        WaitingQueue queue = new WaitingQueue(10, new ManualClock(START));
+        queue.add(car("R-1"));
+        queue.add(car("R-2"));
+        WaitingQueue.Waiter first = queue.pollFor(SlotType.REGULAR);
+        queue.add(car("R-3"));
+        queue.restore(first);
+
+        assertEquals(List.of("R-1", "R-2", "R-3"), plates(queue.waiters()));
+        assertEquals("R-1", plateOf(queue.pollFor(SlotType.REGULAR)));
+    }
+
+    @Test
+    void capacityIsAHardBoundAndLeavingFreesAPlace() {
+        WaitingQueue queue = new WaitingQueue(5, new ManualClock(START));
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(i, queue.add(i % 2 == 0 ? ev("P-" + i) : car("P-" + i)));
+        }
+        assertEquals(WaitingQueue.FULL, queue.add(car("P-6")));
+        assertEquals(WaitingQueue.ALREADY_WAITING, queue.add(car("P-3")));
+        assertFalse(queue.contains("P-6"));
+        assertEquals(5, queue.size());
+
+        assertEquals("P-3", queue.remove("P-3").getLicensePlate());
+        assertNull(queue.remove("P-3"));
+        assertFalse(queue.contains("P-3"));
+        assertEquals(5, queue.add(car("P-6")));
+        assertEquals(WaitingQueue.FULL, queue.add(car("P-7")));
+        assertEquals(List.of("P-1", "P-2", "P-4", "P-5", "P-6"), plates(queue.waiters()));
+
+        assertThrows(IllegalArgumentException.class, () -> new WaitingQueue(0));
+    }
+
+    @Test
+    void polledWaitersHoldTheirPlaceUntilSettled() {
+        WaitingQueue queue = new WaitingQueue(3, new ManualClock(START));
+        queue.add(car("R-1"));
+        queue.add(car("R-2"));
+        queue.add(car("R-3"));
+
+        WaitingQueue.Waiter polled = queue.pollFor(SlotType.REGULAR);
+        assertEquals(WaitingQueue.FULL, queue.add(car("R-4")));
+        queue.restore(polled);
+        assertEquals(3, queue.size());
+        assertEquals(WaitingQueue.FULL, queue.add(car("R-4")));
+
+        queue.discard(queue.pollFor(SlotType.REGULAR));
+        assertEquals(3, queue.add(car("R-4")));
+        queue.recordParked(queue.pollFor(SlotType.REGULAR));
+        assertEquals(3, queue.add(car("R-5")));
+
+        // A polled plate that queues again before it is put back is not
+        // restored a second time, and its old place is released.
+        WaitingQueue.Waiter stale = queue.pollFor(SlotType.REGULAR);
+        queue.remove("R-5");
+        assertEquals(3, queue.add(car(plateOf(stale))));
+        queue.restore(stale);
+        assertEquals(2, queue.size());
+        assertEquals(List.of("R-4", "R-3"), plates(queue.waiters()));
+    }
+
+    @Test
+    void parkedWaitersFeedTheWaitTimes() {
+        ManualClock clock = new ManualClock(START);
+        WaitingQueue queue = new WaitingQueue(10, clock);
+        queue.add(car("R-1"));
+        queue.add(car("R-2"));
+        clock.advance(4_000);
+        queue.recordParked(queue.pollFor(SlotType.REGULAR));
+        clock.advance(6_000);
+        queue.recordParked(queue.pollFor(SlotType.REGULAR));
+
+        WaitTimeHistogram waitTimes = queue.getWaitTimes();
+        assertEquals(2, waitTimes.getCount());
+        assertEquals(10_000, waitTimes.getMax());
+        assertEquals(7_000.0, waitTimes.getMean());
+        assertTrue(queue.isEmpty());
+    }
+
+    private static Vehicle car(String plate) {
+        return new Vehicle(plate, VehicleType.CAR, false, false);
+    }
+
+    private static Vehicle ev(String plate) {
+        return new Vehicle(plate, VehicleType.CAR, false, true);
+    }
+
+    private static Vehicle vip(String plate) {
+        return new Vehicle(plate, VehicleType.CAR, true, false);
+    }
+
+    private static String plateOf(WaitingQueue.Waiter waiter) {
+        return waiter == null ? null : waiter.getVehicle().getLicensePlate();
+    }
+
+    private static List<String> plates(List<WaitingQueue.Waiter> waiters) {
+        List<String> plates = new ArrayList<>();
+        for (WaitingQueue.Waiter waiter : waiters) plates.add(plateOf(waiter));
+        return plates;
+    }
+}
@@ -0,0 +1,93 @@
+package archive;
+
+import clock.ManualClock;
+import models.ParkingSlot;
+import models.SlotType;
+import models.Ticket;
+import models.Vehicle;
+import models.VehicleType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketArchiveTest {
+    private static final long DAY_START = 1_700_000_000_000L / TicketArchive.DAY_MILLIS * TicketArchive.DAY_MILLIS;
+    private static final ParkingSlot SLOT = new ParkingSlot(7, SlotType.REGULAR, 30, 20.0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void quietSegmentIsSealedWithoutFlush() throws Exception {
+        try (TicketArchive archive = new TicketArchive(directory, TicketArchive.DEFAULT_SEGMENT_ROWS, 50)) {
+            archive.append(ticket(1, DAY_START + 60_000), SLOT);
+            archive.append(ticket(2, DAY_START + 120_000), SLOT);
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (archive.getBytesWritten() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            // Still open and never flushed: the rows are on disk all the same.
+            assertEquals(2, countRows(DAY_START, DAY_START + TicketArchive.DAY_MILLIS));
+        }
+    }
+
+    @Test
+    void exitsLandInTheFileOfTheirDay() throws Exception {
+        try (TicketArchive archive = new TicketArchive(directory)) {
+            archive.append(ticket(1, DAY_START + 1_000), SLOT);
+            archive.append(ticket(2, DAY_START + TicketArchive.DAY_MILLIS + 1_000), SLOT);
+            archive.append(ticket(3, DAY_START + TicketArchive.DAY_MILLIS + 2_000), SLOT);
+            archive.flush();
+        }
+        assertTrue(Files.exists(TicketArchive.dayFile(directory, TicketArchive.epochDay(DAY_START))));
+        assertEquals(1, countRows(DAY_START, DAY_START + TicketArchive.DAY_MILLIS));
+        assertEquals(2, countRows(DAY_START + TicketArchive.DAY_MILLIS, DAY_START + 2 * TicketArchive.DAY_MILLIS));
+        assertEquals(1, countRows(DAY_START + TicketArchive.DAY_MILLIS + 1_500, DAY_START + 3 * TicketArchive.DAY_MILLIS));
+    }
+
+    @Test
+    void tornTailIsSkippedOnReadAndCutBeforeTheNextWrite() throws Exception {
+        try (TicketArchive archive = new TicketArchive(directory)) {
+            archive.append(ticket(1, DAY_START + 1_000), SLOT);
+            archive.flush();
+            archive.append(ticket(2, DAY_START + 2_000), SLOT);
+        }
+        Path file = TicketArchive.dayFile(directory, TicketArchive.epochDay(DAY_START));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertEquals(1, countRows(DAY_START, DAY_START + TicketArchive.DAY_MILLIS));
+
+        try (TicketArchive archive = new TicketArchive(directory)) {
+            archive.append(ticket(3, DAY_START + 3_000), SLOT);
+        }
+        try (ArchiveReader reader = TicketArchive.read(directory, DAY_START, DAY_START + TicketArchive.DAY_MILLIS)) {
+            assertTrue(reader.next());
+            assertEquals(1, reader.segment().getTicketId(0));
+            assertTrue(reader.next());
+            assertEquals(3, reader.segment().getTicketId(0));
+            assertFalse(reader.next());
+        }
+    }
+
+    private int countRows(long fromMillis, long toMillis) throws IOException {
+        int rows = 0;
+        try (ArchiveReader reader = TicketArchive.read(directory, fromMillis, toMillis)) {
+            while (reader.next()) rows += reader.segment().size();
+        }
+        return rows;
+    }
+
+    private static Ticket ticket(long id, long exitMillis) {
+        Vehicle vehicle = new Vehicle("KA01-" + id, VehicleType.CAR, false, false);
+        Ticket ticket = new Ticket(id, vehicle, SLOT, new ManualClock(exitMillis), exitMillis - 3_600_000);
+        ticket.completePayment(5_000, exitMillis, 10);
+        return ticket;
+    }
+}
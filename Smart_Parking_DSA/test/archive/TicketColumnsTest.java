@@ -0,0 +1,80 @@
+package archive;
+
+import models.SlotType;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// encode then decode gives back every column, whatever the sign and size
+// of the deltas the zigzag varints carry.
+class TicketColumnsTest {
+
+    @Test
+    void randomRowsRoundTrip() throws IOException {
+        Random rand = new Random(23);
+        TicketColumns rows = new TicketColumns(4);
+        long ticketId = 1_000_000_000L;
+        long entryMillis = 1_700_000_000_000L;
+        for (int row = 0; row < 5_000; row++) {
+            ticketId += rand.nextInt(2_000) - 500;
+            entryMillis += rand.nextInt(7_200_000) - 3_600_000;
+            rows.add(ticketId, entryMillis, entryMillis + rand.nextInt(86_400_000), rand.nextInt(1_000_000),
+                SlotType.values()[rand.nextInt(SlotType.count())], rand.nextInt(4),
+                rand.nextInt(1_000_000), rand.nextInt(100_000));
+        }
+        assertRoundTrip(rows);
+    }
+
+    @Test
+    void extremeValuesRoundTrip() throws IOException {
+        TicketColumns rows = new TicketColumns(1);
+        rows.add(Long.MAX_VALUE, Long.MAX_VALUE / 2, Long.MAX_VALUE / 2, Integer.MAX_VALUE,
+            SlotType.VIP, 3, Long.MAX_VALUE, Integer.MAX_VALUE);
+        rows.add(0, -Long.MAX_VALUE / 2, 0, 0, SlotType.REGULAR, 0, 0, 0);
+        rows.add(Long.MIN_VALUE + 1, 0, -1, -1, SlotType.EV_CHARGING, 2, -1, Integer.MIN_VALUE);
+        rows.add(-1, 1, 1, 1, SlotType.REGULAR, 1, Long.MIN_VALUE + 1, -1);
+        assertRoundTrip(rows);
+    }
+
+    @Test
+    void emptySegmentRoundTrips() throws IOException {
+        assertRoundTrip(new TicketColumns(1));
+    }
+
+    @Test
+    void truncatedBodyIsRejected() {
+        TicketColumns rows = new TicketColumns(1);
+        rows.add(7, 1_000, 61_000, 12, SlotType.REGULAR, 0, 5_000, 3);
+        ByteBuffer body = encode(rows);
+        body.limit(body.limit() - 2);
+        assertThrows(IOException.class, () -> new TicketColumns(1).decode(body, 1));
+    }
+
+    private static void assertRoundTrip(TicketColumns rows) throws IOException {
+        ByteBuffer body = encode(rows);
+        assertTrue(body.remaining() <= rows.maxEncodedBytes());
+        TicketColumns decoded = new TicketColumns(1);
+        decoded.decode(body, rows.size());
+        assertFalse(body.hasRemaining());
+        assertEquals(rows.size(), decoded.size());
+        for (int row = 0; row < rows.size(); row++) {
+            assertEquals(rows.getTicketId(row), decoded.getTicketId(row), "ticket id, row " + row);
+            assertEquals(rows.getEntryMillis(row), decoded.getEntryMillis(row), "entry, row " + row);
+            assertEquals(rows.getExitMillis(row), decoded.getExitMillis(row), "exit, row " + row);
+            assertEquals(rows.getSlotId(row), decoded.getSlotId(row), "slot, row " + row);
+            assertEquals(rows.getSlotType(row), decoded.getSlotType(row), "slot type, row " + row);
+            assertEquals(rows.getVehicleFlags(row), decoded.getVehicleFlags(row), "flags, row " + row);
+            assertEquals(rows.getPricePaise(row), decoded.getPricePaise(row), "price, row " + row);
+            assertEquals(rows.getOccupiedAtExit(row), decoded.getOccupiedAtExit(row), "occupancy, row " + row);
+        }
+    }
+
+    private static ByteBuffer encode(TicketColumns rows) {
+        ByteBuffer body = ByteBuffer.allocate(rows.maxEncodedBytes());
+        rows.encode(body);
+        return body.flip();
+    }
+}
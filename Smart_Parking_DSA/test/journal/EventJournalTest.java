@@ -0,0 +1,186 @@
+package journal;
+
+import models.Vehicle;
+import models.VehicleType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+    private static final int SLOTS = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayReturnsEveryRecordInOrder() throws Exception {
+        Path file = directory.resolve("lot.journal");
+        try (EventJournal journal = new EventJournal(file, SLOTS, true)) {
+            journal.park(11, new Vehicle("KA01", VehicleType.SUV, true, false), 4, 1_000);
+            journal.queue(new Vehicle("KA02", VehicleType.BIKE, false, true), 2_000);
+            journal.reallocate("KA01", 4, 2);
+            journal.exit("KA01", 9_000, 12_345, 7);
+            journal.leftQueue("KA02");
+            journal.commit();
+        }
+        assertEquals(List.of(
+            "park 11 KA01 SUV 1 4 1000",
+            "queue KA02 BIKE 2 2000",
+            "move KA01 4 2",
+            "exit KA01 9000 12345 7",
+            "left KA02"), replay(file, 0));
+    }
+
+    @Test
+    void tornTailIsDroppedAndCutOnReopen() throws Exception {
+        Path file = directory.resolve("lot.journal");
+        try (EventJournal journal = new EventJournal(file, SLOTS, true)) {
+            journal.exit("KA01", 1, 1, 1);
+            journal.exit("KA02", 2, 2, 2);
+            journal.commit();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertEquals(List.of("exit KA01 1 1 1"), replay(file, 0));
+
+        try (EventJournal journal = new EventJournal(file, SLOTS, true)) {
+            journal.exit("KA03", 3, 3, 3);
+            journal.commit();
+        }
+        assertEquals(List.of("exit KA01 1 1 1", "exit KA03 3 3 3"), replay(file, 0));
+    }
+
+    @Test
+    void recordFailingItsCrcEndsTheReplay() throws Exception {
+        Path file = directory.resolve("lot.journal");
+        long recordBytes;
+        try (EventJournal journal = new EventJournal(file, SLOTS, true)) {
+            journal.exit("KA01", 1, 1, 1);
+            journal.commit();
+            recordBytes = journal.position();
+            journal.exit("KA02", 2, 2, 2);
+            journal.exit("KA03", 3, 3, 3);
+            journal.commit();
+        }
+        // Flip a byte of the second record's body; the third is intact but
+        // cannot be trusted to follow a record that failed its check.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long at = channel.size() - 2 * recordBytes + 6;
+            channel.read(b, at);
+            b.put(0, (byte) (b.get(0) ^ 0x40)).rewind();
+            channel.write(b, at);
+        }
+        assertEquals(List.of("exit KA01 1 1 1"), replay(file, 0));
+    }
+
+    @Test
+    void replayFromASnapshotPositionSkipsWhatTheSnapshotHolds() throws Exception {
+        Path file = directory.resolve("lot.journal");
+        long snapshotAt;
+        try (EventJournal journal = new EventJournal(file, SLOTS, true)) {
+            journal.exit("KA01", 1, 1, 1);
+            journal.commit();
+            snapshotAt = journal.position();
+            journal.exit("KA02", 2, 2, 2);
+            journal.commit();
+        }
+        assertEquals(List.of("exit KA02 2 2 2"), replay(file, snapshotAt));
+
+        // After a checkpoint the file starts at the snapshot; a snapshot from
+        // before it can no longer be brought up to date.
+        long checkpointAt;
+        try (EventJournal journal = new EventJournal(file, SLOTS, snapshotAt, true)) {
+            checkpointAt = journal.position();
+            journal.checkpoint();
+            journal.exit("KA03", 3, 3, 3);
+            journal.commit();
+        }
+        assertEquals(List.of("exit KA03 3 3 3"), replay(file, checkpointAt));
+        assertThrows(IOException.class, () -> replay(file, 0));
+    }
+
+    @Test
+    void closeKeepsEveryRecordAppendedBeforeIt() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Path file = directory.resolve("race-" + round + ".journal");
+            EventJournal journal = new EventJournal(file, SLOTS, false);
+            Set<String> committed = ConcurrentHashMap.newKeySet();
+            ExecutorService gates = Executors.newFixedThreadPool(4);
+            CountDownLatch started = new CountDownLatch(4);
+            List<Future<?>> done = new ArrayList<>();
+            for (int g = 0; g < 4; g++) {
+                final int gate = g;
+                done.add(gates.submit(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 2_000; i++) {
+                        String plate = "G" + gate + "-" + i;
+                        journal.exit(plate, i, i, i);
+                        try {
+                            journal.commit();
+                        } catch (IllegalStateException closed) {
+                            return;
+                        }
+                        committed.add(plate);
+                    }
+                }));
+            }
+            started.await();
+            journal.close();
+            for (Future<?> gate : done) gate.get(1, TimeUnit.MINUTES);
+            gates.shutdown();
+
+            Set<String> replayed = new HashSet<>();
+            EventJournal.replay(file, SLOTS, new EventJournal.RecordHandler() {
+                @Override
+                public void onExit(String licensePlate, long exitMillis, long pricePaise, int occupiedAtExit) {
+                    replayed.add(licensePlate);
+                }
+            });
+            assertTrue(replayed.containsAll(committed),
+                (committed.size() - replayed.size()) + " committed records lost in round " + round);
+        }
+    }
+
+    private static List<String> replay(Path file, long fromPosition) throws IOException {
+        List<String> records = new ArrayList<>();
+        EventJournal.replay(file, SLOTS, fromPosition, new EventJournal.RecordHandler() {
+            @Override
+            public void onPark(long ticketId, String licensePlate, VehicleType vehicleType, int vehicleFlags,
+                               int slotId, long entryMillis) {
+                records.add("park " + ticketId + " " + licensePlate + " " + vehicleType + " " + vehicleFlags
+                    + " " + slotId + " " + entryMillis);
+            }
+
+            @Override
+            public void onExit(String licensePlate, long exitMillis, long pricePaise, int occupiedAtExit) {
+                records.add("exit " + licensePlate + " " + exitMillis + " " + pricePaise + " " + occupiedAtExit);
+            }
+
+            @Override
+            public void onReallocate(String licensePlate, int fromSlotId, int toSlotId) {
+                records.add("move " + licensePlate + " " + fromSlotId + " " + toSlotId);
+            }
+
+            @Override
+            public void onQueue(String licensePlate, VehicleType vehicleType, int vehicleFlags, long enqueuedMillis) {
+                records.add("queue " + licensePlate + " " + vehicleType + " " + vehicleFlags + " " + enqueuedMillis);
+            }
+
+            @Override
+            public void onLeftQueue(String licensePlate) {
+                records.add("left " + licensePlate);
+            }
+        });
+        return records;
+    }
+}
@@ -0,0 +1,120 @@
+package journal;
+
+import clock.ManualClock;
+import models.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LotSnapshotTest {
+    private static final int SLOTS = 200;
+    private static final long NOW = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    // A lot restored from its snapshot has the same cars in the same slots,
+    // the same queue and counters, and charges every car what the original
+    // lot would have.
+    @Test
+    void restoredLotMatchesTheLotItWasWrittenFrom() throws Exception {
+        ManualClock clock = new ManualClock(NOW);
+        ParkingLot lot = new ParkingLot(7, SLOTS, 40, clock);
+        Random rand = new Random(22);
+        List<String> plates = new ArrayList<>();
+        for (int i = 0; i < SLOTS + 60; i++) {
+            String plate = "KA" + i;
+            plates.add(plate);
+            clock.advance(rand.nextInt(120_000));
+            lot.parkVehicle(new Vehicle(plate, VehicleType.values()[rand.nextInt(VehicleType.values().length)],
+                rand.nextInt(6) == 0, rand.nextInt(4) == 0));
+            if (i == SLOTS) {
+                for (int k = 0; k < 30; k++) lot.exitVehicle(plates.get(rand.nextInt(SLOTS)));
+                lot.optimizeParking();
+            }
+        }
+        assertTrue(lot.getWaitingQueueSize() > 0);
+
+        Path file = directory.resolve("lot.snapshot");
+        lot.writeSnapshot(file);
+        ParkingLot restored = ParkingLot.restore(file, clock);
+
+        assertEquals(lot.getLotId(), restored.getLotId());
+        assertEquals(lot.getOccupiedCount(), restored.getOccupiedCount());
+        for (SlotType slotType : SlotType.values()) {
+            assertEquals(lot.getOccupiedCount(slotType), restored.getOccupiedCount(slotType));
+        }
+        assertEquals(lot.getAvailableSlotsCount(), restored.getAvailableSlotsCount());
+        assertEquals(lot.getWaitingQueueSize(), restored.getWaitingQueueSize());
+        assertEquals(lot.getTotalVehiclesServed(), restored.getTotalVehiclesServed());
+        assertEquals(lot.getTotalRevenuePaise(), restored.getTotalRevenuePaise());
+        for (String plate : plates) {
+            assertEquals(slotId(lot, plate), slotId(restored, plate), plate);
+            assertEquals(lot.isWaiting(plate), restored.isWaiting(plate), plate);
+        }
+
+        clock.advance(3 * 60 * 60 * 1000L);
+        for (String plate : plates) {
+            assertEquals(lot.exitVehicle(plate), restored.exitVehicle(plate), plate);
+        }
+        assertEquals(lot.getTotalRevenuePaise(), restored.getTotalRevenuePaise());
+    }
+
+    private static int slotId(ParkingLot lot, String plate) {
+        ParkingSlot slot = lot.findVehicle(plate);
+        return slot == null ? -1 : slot.getSlotId();
+    }
+
+    @Test
+    void emptyLotRoundTrips() throws Exception {
+        Path file = directory.resolve("empty.snapshot");
+        new ParkingLot(3, 10, 10, new ManualClock(NOW)).writeSnapshot(file);
+        LotSnapshot snapshot = LotSnapshot.open(file);
+        assertEquals(10, snapshot.getTotalSlots());
+        assertEquals(0, snapshot.getTicketCount());
+        assertEquals(0, snapshot.getWaitingCount());
+        assertEquals(-1, snapshot.findTicket("KA1"));
+    }
+
+    @Test
+    void corruptedSnapshotIsRejected() throws Exception {
+        Path file = writeSmallSnapshot();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long at = channel.size() - 5;
+            channel.read(b, at);
+            b.put(0, (byte) (b.get(0) ^ 1)).rewind();
+            channel.write(b, at);
+        }
+        IOException e = assertThrows(IOException.class, () -> LotSnapshot.open(file));
+        assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+    }
+
+    @Test
+    void truncatedOrForeignFileIsRejected() throws Exception {
+        Path file = writeSmallSnapshot();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 8);
+        }
+        assertThrows(IOException.class, () -> LotSnapshot.open(file));
+
+        Files.write(file, "not a snapshot at all".getBytes());
+        assertThrows(IOException.class, () -> LotSnapshot.open(file));
+    }
+
+    private Path writeSmallSnapshot() throws IOException {
+        ParkingLot lot = new ParkingLot(2, 20, 20, new ManualClock(NOW));
+        for (int i = 0; i < 12; i++) lot.parkVehicle(new Vehicle("MH" + i, VehicleType.CAR, false, false));
+        Path file = directory.resolve("small.snapshot");
+        lot.writeSnapshot(file);
+        return file;
+    }
+}
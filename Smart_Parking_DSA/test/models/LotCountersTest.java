@@ -0,0 +1,65 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Gates hammer the counters while a reader takes snapshots. Every exit pays
+// the same price and every gate holds at most one car, so a snapshot taken
+// between updates always has revenue equal to served times that price, no
+// negative type and at most one car per gate; a torn read breaks one of them.
+// Snapshots that gave up on a stable read say so and are not checked; with
+// every gate writing flat out that can be all of them, so only the snapshot
+// taken once the gates stop has to be consistent.
+class LotCountersTest {
+    private static final int GATES = 8;
+    private static final int CARS_PER_GATE = 50_000;
+    private static final long PRICE_PAISE = 2_500;
+
+    @Test
+    void snapshotsNeverTearUnderConcurrentUpdates() throws Exception {
+        LotCounters counters = new LotCounters();
+        SlotType[] types = SlotType.values();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService gates = Executors.newFixedThreadPool(GATES);
+        List<Future<?>> done = new ArrayList<>();
+
+        for (int g = 0; g < GATES; g++) {
+            final int gate = g;
+            done.add(gates.submit(() -> {
+                Random rand = new Random(gate);
+                for (int car = 0; car < CARS_PER_GATE; car++) {
+                    SlotType slotType = types[rand.nextInt(types.length)];
+                    counters.recordPark(slotType);
+                    SlotType movedTo = types[rand.nextInt(types.length)];
+                    counters.recordMove(slotType, movedTo);
+                    counters.recordExit(movedTo, PRICE_PAISE);
+                }
+            }));
+        }
+
+        while (running.get()) {
+            LotStatsSnapshot stats = counters.snapshot(GATES, 0);
+            running.set(done.stream().anyMatch(f -> !f.isDone()));
+            if (!stats.isConsistent()) continue;
+            assertEquals(stats.getVehiclesServed() * PRICE_PAISE, stats.getRevenuePaise());
+            int occupied = 0;
+            for (SlotType slotType : types) {
+                assertTrue(stats.getOccupied(slotType) >= 0, slotType + " went negative");
+                occupied += stats.getOccupied(slotType);
+            }
+            assertEquals(occupied, stats.getOccupied());
+            assertTrue(occupied <= GATES, occupied + " cars from " + GATES + " gates");
+        }
+        for (Future<?> gate : done) gate.get(1, TimeUnit.MINUTES);
+        gates.shutdown();
+
+        LotStatsSnapshot last = counters.snapshot(GATES, 0);
+        assertTrue(last.isConsistent());
+        assertEquals(GATES * CARS_PER_GATE, last.getVehiclesServed());
+        assertEquals(0, last.getOccupied());
+    }
+}
@@ -0,0 +1,78 @@
+package models;
+
+import clock.ManualClock;
+import events.ParkingEventListener;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A batch answers each car the way parkVehicle would, announces the cars it
+// queues, and leaves a car that is already parked exactly as it was.
+class ParkingLotBatchTest {
+    private static final int SLOTS = 10;
+    private static final int QUEUE = 3;
+
+    @Test
+    void batchReportsEveryOutcomeAndAnnouncesQueuedCars() {
+        ManualClock clock = new ManualClock(1_700_000_000_000L);
+        ParkingLot lot = new ParkingLot(1, SLOTS, QUEUE, clock);
+        List<String> queued = new ArrayList<>();
+        lot.setEventListener(new ParkingEventListener() {
+            @Override
+            public void onQueued(Vehicle vehicle, int position) {
+                queued.add(vehicle.getLicensePlate() + "#" + position);
+            }
+        });
+
+        Vehicle first = car("FIRST-1");
+        ParkResult[] opening = lot.parkVehicles(List.of(first, car("SECOND-1"), first));
+        assertEquals(ParkStatus.PARKED, opening[0].getStatus());
+        assertEquals(ParkStatus.PARKED, opening[1].getStatus());
+        assertEquals(ParkStatus.ALREADY_PARKED, opening[2].getStatus());
+        assertEquals(2, lot.getOccupiedCount());
+
+        // Fill the lot one car at a time until the first car has to wait.
+        int filled = 0;
+        ParkResult result;
+        while ((result = lot.parkVehicle(car("FILL-" + filled))).isParked()) filled++;
+        assertEquals(ParkStatus.QUEUED, result.getStatus());
+        String waiting = "FILL-" + filled;
+        queued.clear();
+
+        ParkResult[] results = lot.parkVehicles(List.of(
+            car("FIRST-1"), car(waiting), car("LATE-1"), car("LATE-2"), car("LATE-3")));
+        assertEquals(ParkStatus.ALREADY_PARKED, results[0].getStatus());
+        assertEquals(ParkStatus.ALREADY_QUEUED, results[1].getStatus());
+        assertEquals(ParkStatus.QUEUED, results[2].getStatus());
+        assertEquals(2, results[2].getQueuePosition());
+        assertEquals(ParkStatus.QUEUED, results[3].getStatus());
+        assertEquals(3, results[3].getQueuePosition());
+        assertEquals(ParkStatus.REJECTED_FULL, results[4].getStatus());
+        assertEquals(List.of("LATE-1#2", "LATE-2#3"), queued);
+        assertTrue(lot.isWaiting("LATE-1"));
+        assertFalse(lot.isWaiting("LATE-3"));
+    }
+
+    @Test
+    void losingTheTicketRaceLeavesTheEntryTimeAlone() {
+        ManualClock clock = new ManualClock(1_700_000_000_000L);
+        ParkingLot lot = new ParkingLot(1, SLOTS, QUEUE, clock);
+        Vehicle vehicle = car("TWICE-1");
+        Ticket ticket = lot.parkVehicle(vehicle).getTicket();
+        long entered = vehicle.getEntryMillis();
+
+        clock.advance(45 * 60_000L);
+        // The batch claims a free slot before it finds the plate already
+        // holds a ticket, then hands the slot back.
+        ParkResult[] results = lot.parkVehicles(List.of(vehicle));
+        assertEquals(ParkStatus.ALREADY_PARKED, results[0].getStatus());
+        assertEquals(entered, vehicle.getEntryMillis());
+        assertEquals(ticket.getEntryMillis(), vehicle.getEntryMillis());
+        assertEquals(1, lot.getOccupiedCount());
+    }
+
+    private static Vehicle car(String plate) {
+        return new Vehicle(plate, VehicleType.CAR, false, false);
+    }
+}
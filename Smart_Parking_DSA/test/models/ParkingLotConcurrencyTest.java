@@ -0,0 +1,95 @@
+package models;
+
+import clock.CachedTickClock;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Twelve gates park, exit, claim slots directly, accept moves and run the
+// optimizer against one lot at the same time. Each gate owns its own plates,
+// so only that gate can exit them: whenever a gate sees its car parked, the
+// slot it is in must hold that very car, or the slot was handed out twice.
+// At the end every parked car has a slot of its own and the counters agree
+// with the cars.
+class ParkingLotConcurrencyTest {
+    private static final int GATES = 12;
+    private static final int PLATES_PER_GATE = 60;
+    private static final int OPS_PER_GATE = 20_000;
+    private static final int SLOTS = 400;
+
+    @Test
+    void gatesNeverShareASlotAndCountersStayConsistent() throws Exception {
+        ParkingLot lot = new ParkingLot(1, SLOTS, SLOTS, CachedTickClock.shared());
+        LongAdder exits = new LongAdder();
+        LongAdder revenuePaise = new LongAdder();
+        CyclicBarrier start = new CyclicBarrier(GATES);
+        ExecutorService gates = Executors.newFixedThreadPool(GATES);
+        List<Future<?>> done = new ArrayList<>();
+
+        for (int g = 0; g < GATES; g++) {
+            final int gate = g;
+            done.add(gates.submit(() -> {
+                Random rand = new Random(gate);
+                Vehicle[] cars = new Vehicle[PLATES_PER_GATE];
+                for (int i = 0; i < cars.length; i++) {
+                    cars[i] = new Vehicle("G" + gate + "-" + i, VehicleType.CAR,
+                        rand.nextInt(5) == 0, rand.nextInt(3) == 0);
+                }
+                start.await();
+                for (int op = 0; op < OPS_PER_GATE; op++) {
+                    Vehicle car = cars[rand.nextInt(cars.length)];
+                    String plate = car.getLicensePlate();
+                    ParkingSlot slot = lot.findVehicle(plate);
+                    if (slot != null) {
+                        // The optimizer may move the car between the two reads;
+                        // moves only go closer, so it never comes back to slot.
+                        Vehicle occupant = slot.getParkedVehicle();
+                        if (slot.equals(lot.findVehicle(plate))) {
+                            assertSame(car, occupant, "slot #" + slot.getSlotId() + " handed out twice");
+                        }
+                        if (rand.nextBoolean()) {
+                            revenuePaise.add(lot.exitVehicle(plate));
+                            exits.increment();
+                        } else if (rand.nextInt(4) == 0) {
+                            lot.acceptMove(plate);
+                        }
+                    } else if (lot.isWaiting(plate)) {
+                        if (rand.nextInt(4) == 0) lot.leaveQueue(plate);
+                    } else if (rand.nextInt(4) == 0) {
+                        lot.parkVehicleAt(car, 1 + rand.nextInt(SLOTS));
+                    } else {
+                        lot.parkVehicle(car);
+                    }
+                    if (op % 5_000 == gate) lot.optimizeParking();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> gate : done) gate.get(2, TimeUnit.MINUTES);
+        gates.shutdown();
+
+        Set<Integer> slotIds = new HashSet<>();
+        int parked = 0;
+        for (int g = 0; g < GATES; g++) {
+            for (int i = 0; i < PLATES_PER_GATE; i++) {
+                String plate = "G" + g + "-" + i;
+                ParkingSlot slot = lot.findVehicle(plate);
+                if (slot == null) continue;
+                parked++;
+                assertTrue(slotIds.add(slot.getSlotId()), "slot #" + slot.getSlotId() + " holds two cars");
+                assertEquals(plate, slot.getParkedVehicle().getLicensePlate());
+            }
+        }
+
+        int byType = 0;
+        for (SlotType slotType : SlotType.values()) byType += lot.getOccupiedCount(slotType);
+        assertEquals(parked, lot.getOccupiedCount());
+        assertEquals(parked, byType);
+        assertEquals(SLOTS, parked + lot.getAvailableSlotsCount());
+        assertEquals(exits.sum(), lot.getTotalVehiclesServed());
+        assertEquals(revenuePaise.sum(), lot.getTotalRevenuePaise());
+    }
+}
@@ -0,0 +1,44 @@
+package models;
+
+import clock.ManualClock;
+import events.ParkingEventListener;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// An exit proposes one move into the slot it frees and moves nothing; the
+// car moves only when the proposal is accepted or optimizeParking runs.
+class ParkingLotMoveTest {
+    private static final int SLOTS = 50;
+
+    @Test
+    void exitProposesAMoveAndAcceptMoveAppliesIt() {
+        ParkingLot lot = new ParkingLot(1, SLOTS, SLOTS, new ManualClock(1_700_000_000_000L));
+        List<String> proposals = new ArrayList<>();
+        lot.setEventListener(new ParkingEventListener() {
+            @Override
+            public void onMoveProposed(Vehicle vehicle, ParkingSlot from, ParkingSlot to) {
+                proposals.add(vehicle.getLicensePlate() + " " + from.getSlotId() + "->" + to.getSlotId());
+            }
+        });
+
+        Vehicle near = new Vehicle("NEAR-1", VehicleType.CAR, false, false);
+        Vehicle far = new Vehicle("FAR-1", VehicleType.CAR, false, false);
+        lot.parkVehicle(near);
+        ParkingSlot nearest = lot.findVehicle("NEAR-1");
+        assertNotNull(lot.parkVehicleAt(far, SLOTS));
+        ParkingSlot farthest = lot.findVehicle("FAR-1");
+        assertTrue(farthest.getDistanceFromEntrance() > nearest.getDistanceFromEntrance());
+
+        lot.exitVehicle("NEAR-1");
+        assertEquals(List.of("FAR-1 " + SLOTS + "->" + nearest.getSlotId()), proposals);
+        assertEquals(farthest, lot.findVehicle("FAR-1"));
+
+        assertTrue(lot.acceptMove("FAR-1"));
+        assertEquals(nearest, lot.findVehicle("FAR-1"));
+        assertEquals(1, lot.getOccupiedCount());
+        assertFalse(lot.acceptMove("FAR-1"));
+        assertFalse(lot.acceptMove("GONE-1"));
+    }
+}
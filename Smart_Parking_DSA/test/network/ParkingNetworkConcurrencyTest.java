@@ -0,0 +1,97 @@
+package network;
+
+import clock.ManualClock;
+import models.ParkingLot;
+import models.Vehicle;
+import models.VehicleType;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Eight gates park, exit and leave queues for one shared pool of plates
+// through a network of small lots, asking for the first two lots only so
+// that most cars overflow and some queue. Gates race on the same plates.
+// At the end each plate is parked or waiting at no more than one lot, the
+// plate table names exactly that lot, and the lots' counters add up to what
+// the gates saw.
+class ParkingNetworkConcurrencyTest {
+    private static final int LOTS = 8;
+    private static final int SLOTS_PER_LOT = 100;
+    private static final int PLATES = 3_000;
+    private static final int GATES = 8;
+    private static final int OPS_PER_GATE = 25_000;
+
+    @Test
+    void plateTableFollowsEveryPlateAcrossLots() throws Exception {
+        List<ParkingLot> lots = new ArrayList<>();
+        double[] xKm = new double[LOTS];
+        double[] yKm = new double[LOTS];
+        for (int i = 0; i < LOTS; i++) {
+            lots.add(new ParkingLot(i + 1, SLOTS_PER_LOT, SLOTS_PER_LOT / 2, new ManualClock(1_700_000_000_000L)));
+            xKm[i] = i;
+            yKm[i] = (i % 2) * 0.5;
+        }
+        ParkingNetwork network = new ParkingNetwork(lots, xKm, yKm);
+        LongAdder exits = new LongAdder();
+        LongAdder revenuePaise = new LongAdder();
+        CyclicBarrier start = new CyclicBarrier(GATES);
+        ExecutorService gates = Executors.newFixedThreadPool(GATES);
+        List<Future<?>> done = new ArrayList<>();
+
+        for (int g = 0; g < GATES; g++) {
+            final int gate = g;
+            done.add(gates.submit(() -> {
+                Random rand = new Random(gate);
+                start.await();
+                for (int op = 0; op < OPS_PER_GATE; op++) {
+                    String plate = "P" + rand.nextInt(PLATES);
+                    int action = rand.nextInt(10);
+                    if (action < 5) {
+                        network.parkVehicle(1 + rand.nextInt(2), new Vehicle(plate, VehicleType.CAR,
+                            rand.nextInt(10) == 0, rand.nextInt(5) == 0));
+                    } else if (action < 9) {
+                        long pricePaise = network.exitVehicle(plate);
+                        if (pricePaise > 0) {
+                            exits.increment();
+                            revenuePaise.add(pricePaise);
+                        }
+                    } else {
+                        network.leaveQueue(plate);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> gate : done) gate.get(2, TimeUnit.MINUTES);
+        gates.shutdown();
+
+        int parked = 0;
+        int waiting = 0;
+        for (int i = 0; i < PLATES; i++) {
+            String plate = "P" + i;
+            ParkingLot holder = null;
+            for (ParkingLot lot : lots) {
+                boolean here = lot.findVehicle(plate) != null;
+                boolean queued = lot.isWaiting(plate);
+                assertFalse(here && queued, plate + " both parked and waiting at " + lot.getLotId());
+                if (!here && !queued) continue;
+                assertNull(holder, plate + " is at two lots");
+                holder = lot;
+                if (here) parked++;
+                else waiting++;
+            }
+            assertSame(holder, network.findLot(plate), plate + " is mapped to the wrong lot");
+        }
+
+        assertEquals(parked, network.getOccupiedCount());
+        assertEquals(waiting, network.getWaitingQueueSize());
+        int served = 0;
+        for (ParkingLot lot : lots) served += lot.getTotalVehiclesServed();
+        assertEquals(exits.sum(), served);
+        assertEquals(revenuePaise.sum(), network.getTotalRevenuePaise());
+        assertTrue(network.getOverflowCount() > 0);
+    }
+}
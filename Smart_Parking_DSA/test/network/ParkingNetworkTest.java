@@ -0,0 +1,93 @@
+package network;
+
+import clock.ManualClock;
+import models.ParkResult;
+import models.ParkStatus;
+import models.ParkingLot;
+import models.Vehicle;
+import models.VehicleType;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two lots side by side. Cars that reached a lot without the network are
+// recognised where they are instead of being parked a second time, and a
+// car queued at its own lot is not promoted into a slot freed next door.
+class ParkingNetworkTest {
+    private static final int SLOTS = 20;
+    private static final int QUEUE = 10;
+
+    @Test
+    void carAlreadyAtALotIsTrackedThereNotParkedAgain() {
+        ParkingNetwork network = network();
+        ParkingLot first = network.getLot(1);
+        ParkingLot second = network.getLot(2);
+
+        Vehicle direct = car("DIRECT-1");
+        assertTrue(first.parkVehicle(direct).isParked());
+        assertEquals(ParkStatus.ALREADY_PARKED, network.parkVehicle(1, direct).getStatus());
+        assertSame(first, network.findLot("DIRECT-1"));
+        assertTrue(network.exitVehicle("DIRECT-1") > 0);
+        assertNull(network.findLot("DIRECT-1"));
+
+        // Fill the first lot by hand and queue a car there, then ask the
+        // network for the same lot while the second has room.
+        int filled = 0;
+        while (first.parkVehicle(car("HAND-" + filled), false).isParked()) filled++;
+        Vehicle waiting = car("WAITING-1");
+        assertEquals(ParkStatus.QUEUED, first.parkVehicle(waiting).getStatus());
+
+        assertEquals(ParkStatus.ALREADY_QUEUED, network.parkVehicle(1, waiting).getStatus());
+        assertSame(first, network.findLot("WAITING-1"));
+        assertNull(second.findVehicle("WAITING-1"));
+        assertEquals(0, second.getOccupiedCount());
+        assertTrue(network.leaveQueue("WAITING-1"));
+        assertNull(network.findLot("WAITING-1"));
+    }
+
+    @Test
+    void queuedCarIsPromotedOnlyAtItsOwnLot() {
+        ParkingNetwork network = network();
+        ParkingLot first = network.getLot(1);
+        ParkingLot second = network.getLot(2);
+
+        List<String> parked = new ArrayList<>();
+        ParkResult result;
+        while ((result = network.parkVehicle(1, car("CAR-" + parked.size()))).isParked()) {
+            parked.add("CAR-" + parked.size());
+        }
+        assertEquals(ParkStatus.QUEUED, result.getStatus());
+        String waiting = "CAR-" + parked.size();
+        assertTrue(first.isWaiting(waiting));
+        String atSecond = parked.stream().filter(p -> network.findLot(p) == second).findFirst().orElseThrow();
+        String atFirst = parked.stream().filter(p -> network.findLot(p) == first).findFirst().orElseThrow();
+
+        // A slot frees next door: the queued car stays in line at its own lot
+        // and a newcomer asking for that lot overflows into the slot.
+        assertTrue(network.exitVehicle(atSecond) > 0);
+        assertTrue(first.isWaiting(waiting));
+        assertSame(first, network.findLot(waiting));
+        assertTrue(network.parkVehicle(1, car("NEWCOMER-1")).isParked());
+        assertSame(second, network.findLot("NEWCOMER-1"));
+        assertTrue(first.isWaiting(waiting));
+
+        // A slot at its own lot promotes it.
+        assertTrue(network.exitVehicle(atFirst) > 0);
+        assertFalse(first.isWaiting(waiting));
+        assertNotNull(first.findVehicle(waiting));
+        assertSame(first, network.findLot(waiting));
+    }
+
+    private static ParkingNetwork network() {
+        ManualClock clock = new ManualClock(1_700_000_000_000L);
+        List<ParkingLot> lots = List.of(
+            new ParkingLot(1, SLOTS, QUEUE, clock),
+            new ParkingLot(2, SLOTS, QUEUE, clock));
+        return new ParkingNetwork(lots, new double[] {0, 1}, new double[] {0, 0});
+    }
+
+    private static Vehicle car(String plate) {
+        return new Vehicle(plate, VehicleType.CAR, false, false);
+    }
+}